@@ -1,11 +1,13 @@
 package app.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
+@EnableConfigurationProperties({BillingSettings.class, LateFeeSettings.class, DeletionSettings.class})
 public class BeanConfiguration {
 
     @Bean
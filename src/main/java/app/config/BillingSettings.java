@@ -0,0 +1,27 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Monthly billing job tuning, bound from {@code rentfix.billing.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "rentfix.billing")
+public class BillingSettings {
+
+    /**
+     * Due contracts per chunk; each chunk is billed and checkpointed in one transaction.
+     */
+    private int chunkSize = 2000;
+
+    /**
+     * Payment rows per JDBC batch inside a chunk.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Chunks billed at the same time.
+     */
+    private int workers = 4;
+}
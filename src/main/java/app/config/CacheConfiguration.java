@@ -0,0 +1,48 @@
+package app.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Slf4j
+@Configuration
+@EnableConfigurationProperties({CacheSettings.class, WarmUpSettings.class})
+public class CacheConfiguration {
+
+    @Bean
+    public CacheManager cacheManager(CacheSettings settings) {
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        // Caches not listed in the properties are still created on demand, but bounded by the defaults
+        cacheManager.setCaffeine(builder(settings.getDefaults()));
+
+        settings.getSpecs().forEach((name, spec) -> {
+            cacheManager.registerCustomCache(name, builder(spec).build());
+            log.info("Cache '{}': maximumSize={}, expireAfterWrite={}, expireAfterAccess={}",
+                    name, spec.getMaximumSize(), spec.getExpireAfterWrite(), spec.getExpireAfterAccess());
+        });
+
+        return cacheManager;
+    }
+
+    static Caffeine<Object, Object> builder(CacheSettings.Spec spec) {
+
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .recordStats();
+
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+
+        return builder;
+    }
+}
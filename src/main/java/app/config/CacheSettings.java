@@ -0,0 +1,50 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size and expiry limits for the application caches, bound from
+ * {@code rentfix.cache.*}. Caches without their own entry under
+ * {@code specs} use {@code defaults}.
+ */
+@Data
+@ConfigurationProperties(prefix = "rentfix.cache")
+public class CacheSettings {
+
+    private Spec defaults = new Spec();
+
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    /**
+     * Threads available for stale-while-revalidate reloads.
+     */
+    private int refreshThreads = 2;
+
+    public Spec specFor(String cacheName) {
+        return specs.getOrDefault(cacheName, defaults);
+    }
+
+    @Data
+    public static class Spec {
+
+        private long maximumSize = 1_000;
+
+        private Duration expireAfterWrite = Duration.ofMinutes(10);
+
+        /**
+         * Optional idle timeout; {@code null} keeps entries until they are written out or evicted by size.
+         */
+        private Duration expireAfterAccess;
+
+        /**
+         * Age after which reads through {@code SingleFlightCache} serve the stored value
+         * and reload it in the background; {@code null} disables background refresh.
+         */
+        private Duration refreshAfter;
+    }
+}
@@ -0,0 +1,22 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Background deletion job tuning, bound from {@code rentfix.deletion.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "rentfix.deletion")
+public class DeletionSettings {
+
+    /**
+     * Properties deleted per transaction, together with their contracts and payments.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Deletion jobs run at the same time.
+     */
+    private int workers = 1;
+}
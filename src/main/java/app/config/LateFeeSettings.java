@@ -0,0 +1,56 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Late-fee rules for overdue monthly rent, bound from {@code rentfix.late-fees.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "rentfix.late-fees")
+public class LateFeeSettings {
+
+    private boolean enabled = true;
+
+    /**
+     * Days after the due date before any fee applies.
+     */
+    private int graceDays = 5;
+
+    /**
+     * Overdue payments evaluated per batch (and per transaction).
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Upper bound for all fees of one payment, as a percentage of its amount; unlimited when unset.
+     */
+    private BigDecimal maxTotalPercent;
+
+    /**
+     * Escalation tiers. Every tier reached adds its charge to the fee.
+     */
+    private List<Tier> tiers = new ArrayList<>();
+
+    @Data
+    public static class Tier {
+
+        /**
+         * Days after the grace period at which this tier starts to apply.
+         */
+        private int afterDays;
+
+        private BigDecimal flat;
+
+        private BigDecimal percent;
+
+        /**
+         * Upper bound for this tier's charge.
+         */
+        private BigDecimal cap;
+    }
+}
@@ -58,6 +58,10 @@ public class SecurityConfiguration {
                         .requestMatchers("/", "/auth/login", "/auth/register").permitAll()
                         .requestMatchers("/css/**", "/js/**", "/images/**", "/uploads/**").permitAll()
 
+                        // Includes the readiness and liveness probes, which the kubelet calls anonymously
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .requestMatchers("/owner/**").hasRole("OWNER")
                         .requestMatchers("/tenant/**").hasRole("TENANT")
@@ -0,0 +1,38 @@
+package app.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Startup cache warm-up, bound from {@code rentfix.warmup.*}.
+ */
+@Data
+@ConfigurationProperties(prefix = "rentfix.warmup")
+public class WarmUpSettings {
+
+    private boolean enabled = true;
+
+    /**
+     * Number of warm-up steps that may run at the same time.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Upper bound for the whole warm-up; readiness is not held back longer than this.
+     */
+    private Duration timeout = Duration.ofSeconds(60);
+
+    /**
+     * Cities whose first search page is preloaded, in addition to the unfiltered listing.
+     */
+    private List<String> cities = new ArrayList<>();
+
+    /**
+     * How many owners (those with the most properties) get their dashboard lists preloaded.
+     */
+    private int owners = 100;
+}
@@ -0,0 +1,80 @@
+package app.model;
+
+import app.model.enums.JobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A slice of a {@link BillingJob}: the due contracts it bills, each with the due date of the
+ * payment to create. They are stored with the chunk, so a resumed chunk bills exactly what the
+ * wheel found due when the job was planned.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+public class BillingChunk {
+
+    // Contract id and epoch day of the due date per contract, so a chunk is one row however large
+    private static final int ENTRY_BYTES = 2 * Long.BYTES + Integer.BYTES;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
+    private BillingJob job;
+
+    private int chunkNo;
+
+    private int contracts;
+
+    @Lob
+    @Column(nullable = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private byte[] dueDates;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    private int createdPayments;
+
+    private Long durationMs;
+
+    private LocalDateTime completedAt;
+
+    private String error;
+
+    public Map<UUID, LocalDate> getDueDates() {
+
+        ByteBuffer buffer = ByteBuffer.wrap(dueDates);
+        Map<UUID, LocalDate> due = new LinkedHashMap<>();
+
+        while (buffer.remaining() >= ENTRY_BYTES) {
+            due.put(new UUID(buffer.getLong(), buffer.getLong()), LocalDate.ofEpochDay(buffer.getInt()));
+        }
+        return due;
+    }
+
+    public void setDueDates(Map<UUID, LocalDate> due) {
+
+        ByteBuffer buffer = ByteBuffer.allocate(due.size() * ENTRY_BYTES);
+        due.forEach((contractId, dueDate) -> buffer
+                .putLong(contractId.getMostSignificantBits())
+                .putLong(contractId.getLeastSignificantBits())
+                .putInt((int) dueDate.toEpochDay()));
+
+        dueDates = buffer.array();
+        contracts = due.size();
+    }
+}
@@ -0,0 +1,46 @@
+package app.model;
+
+import app.model.enums.JobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One billing run over the contracts the {@code ContractBillingWheel} found due on {@code runDate}.
+ * The counters are advanced in the same transaction as each {@link BillingChunk} checkpoint,
+ * so they always match the chunk table.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+public class BillingJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    private int totalContracts;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    private int totalChunks;
+
+    private int completedChunks;
+
+    private int createdPayments;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
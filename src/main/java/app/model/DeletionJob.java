@@ -0,0 +1,67 @@
+package app.model;
+
+import app.model.enums.DeletionTarget;
+import app.model.enums.JobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A background deletion of a property or an owner with everything that hangs off it.
+ * The counters are advanced in the same transaction as each deleted batch of properties.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Table(indexes = @Index(name = "idx_deletion_job_target", columnList = "targetId, status"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_deletion_job_unfinished_target", columnNames = "unfinishedTargetId"))
+public class DeletionJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DeletionTarget target;
+
+    @Column(nullable = false)
+    private UUID targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private JobStatus status;
+
+    private int totalProperties;
+
+    private int deletedProperties;
+
+    private int deletedContracts;
+
+    private int deletedPayments;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+
+    private String error;
+
+    /*
+     * A copy of the target id while the job is pending or running, null once it has finished.
+     * Its unique constraint allows one unfinished job per target, since MySQL has no partial
+     * indexes and ignores NULLs in unique keys.
+     */
+    @Setter(AccessLevel.NONE)
+    private UUID unfinishedTargetId;
+
+    @PrePersist
+    @PreUpdate
+    void syncUnfinishedTarget() {
+        unfinishedTargetId = status == JobStatus.PENDING || status == JobStatus.RUNNING ? targetId : null;
+    }
+}
@@ -15,6 +15,10 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_payment_contract_type_due_date",
+        columnNames = {"contract_id", "type", "dueDate"}),
+        indexes = @Index(name = "idx_payment_status_due_date", columnList = "status, dueDate"))
 public class Payment {
 
     @Id
@@ -33,10 +37,12 @@ public class Payment {
     @Enumerated(EnumType.STRING)
     private PaymentStatus status;
 
-    @Column(nullable = false)
     private LocalDateTime paidAt;
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private PaymentType type;
+
+    @Version
+    private long version;
 }
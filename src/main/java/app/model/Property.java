@@ -5,6 +5,7 @@ import lombok.*;
 import app.model.enums.Status;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -48,6 +49,9 @@ public class Property {
     @Column(nullable = false)
     private BigDecimal monthlyRent;
 
+    // Day of the last bulk rent indexation; a repeated run skips recently indexed rents
+    private LocalDate rentIndexedOn;
+
     @Enumerated(EnumType.STRING)
     private Status status;
 
@@ -12,6 +12,9 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_contract_active_property", columnNames = "activePropertyId"),
+        @UniqueConstraint(name = "uk_contract_active_tenant", columnNames = "activeTenantId")})
 public class RentalContract {
 
     @Id
@@ -32,6 +35,30 @@ public class RentalContract {
     @Column(nullable = false)
     private BigDecimal monthlyRent;
 
+    // Day of the last bulk rent indexation; a repeated run skips recently indexed rents
+    private LocalDate rentIndexedOn;
+
     private boolean active;
+
+    @Version
+    private long version;
+
+    /*
+     * Copies of the property and tenant ids while the contract is active, null once it ends.
+     * Their unique constraints allow one active contract per property and per tenant, since
+     * MySQL has no partial indexes and ignores NULLs in unique keys.
+     */
+    @Setter(AccessLevel.NONE)
+    private UUID activePropertyId;
+
+    @Setter(AccessLevel.NONE)
+    private UUID activeTenantId;
+
+    @PrePersist
+    @PreUpdate
+    void syncActiveKeys() {
+        activePropertyId = active && property != null ? property.getId() : null;
+        activeTenantId = active && tenant != null ? tenant.getId() : null;
+    }
 }
 
@@ -0,0 +1,34 @@
+package app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Materialized account totals of one tenant, kept in step with the tenant's payments.
+ * {@code outstanding} is the running balance the tenant owes (charged minus paid).
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+public class TenantLedger {
+
+    @Id
+    private UUID tenantId;
+
+    @Column(nullable = false)
+    private BigDecimal totalCharged;
+
+    @Column(nullable = false)
+    private BigDecimal totalPaid;
+
+    @Column(nullable = false)
+    private BigDecimal outstanding;
+
+    private LocalDateTime updatedAt;
+}
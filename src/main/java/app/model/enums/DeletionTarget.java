@@ -0,0 +1,5 @@
+package app.model.enums;
+
+public enum DeletionTarget {
+    PROPERTY, OWNER
+}
@@ -1,5 +1,5 @@
 package app.model.enums;
 
 public enum PaymentStatus {
-    SUCCESS, FAILED, PENDING, CANCELED
+    SUCCESS, FAILED, PENDING, OVERDUE, CANCELED
 }
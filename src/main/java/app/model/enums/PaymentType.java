@@ -4,5 +4,6 @@ package app.model.enums;
 public enum PaymentType {
     INITIAL_RENT,
     DEPOSIT,
-    MONTHLY_RENT
+    MONTHLY_RENT,
+    LATE_FEE
 }
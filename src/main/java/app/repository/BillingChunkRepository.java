@@ -0,0 +1,27 @@
+package app.repository;
+
+import app.model.BillingChunk;
+import app.model.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BillingChunkRepository extends JpaRepository<BillingChunk, UUID> {
+
+    List<BillingChunk> findByJobIdAndStatusNotOrderByChunkNo(UUID jobId, JobStatus status);
+
+    @Modifying
+    @Query("""
+            UPDATE BillingChunk c
+            SET c.status = :status, c.createdPayments = :created, c.durationMs = :durationMs,
+                c.completedAt = :completedAt, c.error = :error
+            WHERE c.id = :chunkId
+            """)
+    void checkpoint(UUID chunkId, JobStatus status, int created, long durationMs, LocalDateTime completedAt, String error);
+}
@@ -0,0 +1,39 @@
+package app.repository;
+
+import app.model.BillingJob;
+import app.model.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface BillingJobRepository extends JpaRepository<BillingJob, UUID> {
+
+    List<BillingJob> findByStatusInOrderByStartedAt(Collection<JobStatus> statuses);
+
+    Optional<BillingJob> findFirstByOrderByStartedAtDesc();
+
+    @Modifying
+    @Query("""
+            UPDATE BillingJob j
+            SET j.completedChunks = j.completedChunks + 1,
+                j.createdPayments = j.createdPayments + :created
+            WHERE j.id = :jobId
+            """)
+    void recordChunk(UUID jobId, int created);
+
+    @Modifying
+    @Query("UPDATE BillingJob j SET j.status = :status, j.finishedAt = :finishedAt WHERE j.id = :jobId")
+    void finish(UUID jobId, JobStatus status, LocalDateTime finishedAt);
+
+    @Modifying
+    @Query("UPDATE BillingJob j SET j.status = :status, j.finishedAt = null WHERE j.id = :jobId")
+    void restart(UUID jobId, JobStatus status);
+}
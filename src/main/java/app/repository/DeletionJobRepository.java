@@ -0,0 +1,47 @@
+package app.repository;
+
+import app.model.DeletionJob;
+import app.model.enums.JobStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DeletionJobRepository extends JpaRepository<DeletionJob, UUID> {
+
+    Optional<DeletionJob> findFirstByTargetIdAndStatusIn(UUID targetId, Collection<JobStatus> statuses);
+
+    List<DeletionJob> findByStatusInOrderByStartedAt(Collection<JobStatus> statuses);
+
+    @Modifying
+    @Query("UPDATE DeletionJob j SET j.status = :status, j.totalProperties = :totalProperties WHERE j.id = :jobId")
+    void start(UUID jobId, JobStatus status, int totalProperties);
+
+    @Modifying
+    @Query("""
+            UPDATE DeletionJob j
+            SET j.deletedProperties = j.deletedProperties + :properties,
+                j.deletedContracts = j.deletedContracts + :contracts,
+                j.deletedPayments = j.deletedPayments + :payments
+            WHERE j.id = :jobId
+            """)
+    void recordBatch(UUID jobId, int properties, int contracts, int payments);
+
+    /**
+     * Ends the job; clearing the unfinished target lets the same target be submitted again.
+     */
+    @Modifying
+    @Query("""
+            UPDATE DeletionJob j
+            SET j.status = :status, j.finishedAt = :finishedAt, j.error = :error, j.unfinishedTargetId = NULL
+            WHERE j.id = :jobId
+            """)
+    void finish(UUID jobId, JobStatus status, LocalDateTime finishedAt, String error);
+}
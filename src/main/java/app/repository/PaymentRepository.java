@@ -1,55 +1,171 @@
 package app.repository;
 
 import app.model.Payment;
-import app.model.enums.PaymentType;
+import app.model.enums.PaymentStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, UUID> {
 
+    @EntityGraph(attributePaths = "contract.property")
     @Query("""
             SELECT p FROM Payment p
-            WHERE p.contract.tenant.id = :tenantId
+            WHERE p.contract.id = :contractId
             ORDER BY 
-                CASE WHEN p.status = 'PENDING' THEN 0 ELSE 1 END,
+                CASE WHEN p.status IN ('PENDING', 'OVERDUE') THEN 0 ELSE 1 END,
                 p.paidAt DESC
             """)
-    List<Payment> getTenantPaymentsSorted(UUID tenantId);
+    List<Payment> getContractPaymentsSorted(UUID contractId);
+
+    @EntityGraph(attributePaths = "contract.property")
+    Window<Payment> findByContract_Tenant_IdOrderByDueDateDescIdDesc(UUID tenantId, ScrollPosition position, Limit limit);
 
+    @EntityGraph(attributePaths = "contract.tenant")
+    Window<Payment> findByContract_Property_IdOrderByDueDateDescIdDesc(UUID propertyId, ScrollPosition position, Limit limit);
 
+    @EntityGraph(attributePaths = {"contract.property.owner", "contract.tenant"})
+    Window<Payment> findByOrderByDueDateDescIdDesc(ScrollPosition position, Limit limit);
+
+    /**
+     * Moves every PENDING payment due before {@code until} to OVERDUE.
+     */
+    @Modifying
     @Query("""
-            SELECT p FROM Payment p
-            WHERE p.contract.property.id = :propertyId
-            ORDER BY 
-                CASE WHEN p.status = 'PENDING' THEN 0 ELSE 1 END,
-                p.paidAt DESC
+            UPDATE Payment p SET p.status = app.model.enums.PaymentStatus.OVERDUE, p.version = p.version + 1
+            WHERE p.status = app.model.enums.PaymentStatus.PENDING
+              AND p.dueDate < :until
             """)
-    List<Payment> getOwnerPaymentsSorted(UUID propertyId);
+    int markOverdueDueBefore(LocalDate until);
 
+    long countByStatus(PaymentStatus status);
 
+    /**
+     * One keyset page (by id) of unpaid MONTHLY_RENT payments due before {@code dueBefore}.
+     */
     @Query("""
-            SELECT p FROM Payment p
+            SELECT p.id AS id, p.contract.id AS contractId, p.contract.tenant.id AS tenantId, p.amount AS amount, p.dueDate AS dueDate
+            FROM Payment p
+            WHERE p.status IN :statuses
+              AND p.type = app.model.enums.PaymentType.MONTHLY_RENT
+              AND p.dueDate < :dueBefore
+              AND p.id > :after
+            ORDER BY p.id
+            """)
+    List<UnpaidPayment> findOverdueRents(Collection<PaymentStatus> statuses, LocalDate dueBefore, UUID after, Limit limit);
+
+    @Query("""
+            SELECT f FROM Payment f
+            WHERE f.type = app.model.enums.PaymentType.LATE_FEE
+              AND f.contract.id IN :contractIds
+              AND f.dueDate IN :dueDates
+            """)
+    List<Payment> findLateFees(Collection<UUID> contractIds, Collection<LocalDate> dueDates);
+
+    /**
+     * Unpaid payments in id order, one keyset page at a time.
+     */
+    @Query("""
+            SELECT p.id AS id, p.contract.id AS contractId, p.contract.tenant.id AS tenantId, p.amount AS amount, p.dueDate AS dueDate
+            FROM Payment p
+            WHERE p.status IN :statuses
+              AND p.id > :after
+            ORDER BY p.id
+            """)
+    List<UnpaidPayment> findUnpaid(Collection<PaymentStatus> statuses, UUID after, Limit limit);
+
+    /**
+     * Locks the given payments in id order, so concurrent writers cannot deadlock on them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id IN :ids ORDER BY p.id")
+    List<Payment> findAllForUpdate(Collection<UUID> ids);
+
+    /**
+     * Amounts of the contract's unpaid payments, locked so they cannot be paid before
+     * {@link #cancelUnpaidOfContract} runs in the same transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT p.amount AS amount, p.status AS status FROM Payment p
             WHERE p.contract.id = :contractId
-            ORDER BY 
-                CASE WHEN p.status = 'PENDING' THEN 0 ELSE 1 END,
-                p.paidAt DESC
+              AND p.status IN (app.model.enums.PaymentStatus.PENDING, app.model.enums.PaymentStatus.OVERDUE)
             """)
-    List<Payment> getContractPaymentsSorted(UUID contractId);
+    List<PaymentAmount> findUnpaidOfContractForUpdate(UUID contractId);
 
+    @Modifying
     @Query("""
-            SELECT p FROM Payment p
-            ORDER BY 
-                p.dueDate DESC,
-                p.paidAt DESC
+            UPDATE Payment p SET p.status = app.model.enums.PaymentStatus.CANCELED, p.version = p.version + 1
+            WHERE p.contract.id = :contractId
+              AND p.status IN (app.model.enums.PaymentStatus.PENDING, app.model.enums.PaymentStatus.OVERDUE)
+            """)
+    int cancelUnpaidOfContract(UUID contractId);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            DELETE FROM Payment p
+            WHERE p.contract.id IN (SELECT c.id FROM RentalContract c WHERE c.tenant.id = :tenantId)
+            """)
+    int deleteAllOfTenant(UUID tenantId);
+
+    /**
+     * Payment totals per tenant and status of the contracts on the given properties.
+     */
+    @Query("""
+            SELECT p.contract.tenant.id AS tenantId, p.status AS status, SUM(p.amount) AS amount
+            FROM Payment p
+            WHERE p.contract.property.id IN :propertyIds
+            GROUP BY p.contract.tenant.id, p.status
+            """)
+    List<TenantAmount> findTotalsOfProperties(Collection<UUID> propertyIds);
+
+    @Modifying
+    @Query("""
+            DELETE FROM Payment p
+            WHERE p.contract.id IN (SELECT c.id FROM RentalContract c WHERE c.property.id IN :propertyIds)
             """)
-    List<Payment> findAllSorted();
+    int deleteAllOfProperties(Collection<UUID> propertyIds);
+
+    interface TenantAmount {
+
+        UUID getTenantId();
+
+        PaymentStatus getStatus();
+
+        BigDecimal getAmount();
+    }
+
+    interface PaymentAmount {
+
+        BigDecimal getAmount();
+
+        PaymentStatus getStatus();
+    }
+
+    interface UnpaidPayment {
+
+        UUID getId();
+
+        UUID getContractId();
+
+        UUID getTenantId();
 
+        BigDecimal getAmount();
 
-    boolean existsByContractIdAndTypeAndDueDate(UUID id, PaymentType paymentType, LocalDate nextDue);
+        LocalDate getDueDate();
+    }
 }
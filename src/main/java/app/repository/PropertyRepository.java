@@ -1,16 +1,102 @@
 package app.repository;
 
 import app.model.Property;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PropertyRepository extends JpaRepository<Property, UUID> {
+public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSpecificationExecutor<Property> {
 
     List<Property> findByOwner_Id(UUID ownerId);
 
     List<Property> findAllByOwnerId(UUID ownerId);
+
+    @EntityGraph(attributePaths = {"owner", "imageUrls"})
+    Optional<Property> findWithOwnerById(UUID id);
+
+    @EntityGraph(attributePaths = "imageUrls")
+    List<Property> findWithImagesByIdIn(Collection<UUID> ids);
+
+    @Query("""
+            SELECT p.owner.id FROM Property p
+            GROUP BY p.owner.id
+            ORDER BY COUNT(p) DESC
+            """)
+    List<UUID> findOwnerIdsByPropertyCount(Limit limit);
+
+    @EntityGraph(attributePaths = "owner")
+    Window<Property> findByOrderByCreatedOnDescIdDesc(ScrollPosition position, Limit limit);
+
+    @Query("SELECT p.id FROM Property p WHERE p.owner.id = :ownerId ORDER BY p.id")
+    List<UUID> findIdsByOwnerId(UUID ownerId);
+
+    @Query("SELECT p.owner.id FROM Property p WHERE p.id = :id")
+    Optional<UUID> findOwnerIdById(UUID id);
+
+    /**
+     * One keyset page (by id) of listing rents in scope that were not indexed after {@code cutoff}.
+     * A {@code null} owner or city is not filtered on; {@code propertyIds} only applies when {@code anyProperty} is false.
+     */
+    @Query("""
+            SELECT p.id AS id, p.owner.id AS ownerId, p.monthlyRent AS monthlyRent
+            FROM Property p
+            WHERE (:ownerId IS NULL OR p.owner.id = :ownerId)
+              AND (:city IS NULL OR p.city = :city)
+              AND (:anyProperty = true OR p.id IN :propertyIds)
+              AND (p.rentIndexedOn IS NULL OR p.rentIndexedOn <= :cutoff)
+              AND p.id > :after
+            ORDER BY p.id
+            """)
+    List<IndexableRent> findIndexableRents(UUID ownerId, String city, boolean anyProperty, Collection<UUID> propertyIds,
+                                           LocalDate cutoff, UUID after, Limit limit);
+
+    @Modifying
+    @Query("""
+            UPDATE Property p
+            SET p.monthlyRent = ROUND(p.monthlyRent * :factor, :scale), p.rentIndexedOn = :today
+            WHERE p.id IN :ids
+            """)
+    int indexRents(Collection<UUID> ids, BigDecimal factor, int scale, LocalDate today);
+
+    interface IndexableRent {
+
+        UUID getId();
+
+        UUID getOwnerId();
+
+        BigDecimal getMonthlyRent();
+    }
+
+    /**
+     * Marks the property RENTED only if it is still AVAILABLE; returns 0 when someone else got it first.
+     */
+    @Modifying
+    @Query("""
+            UPDATE Property p SET p.status = app.model.enums.Status.RENTED
+            WHERE p.id = :id
+              AND p.status = app.model.enums.Status.AVAILABLE
+            """)
+    int markRentedIfAvailable(UUID id);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+            UPDATE Property p SET p.status = app.model.enums.Status.AVAILABLE
+            WHERE p.id = :id
+              AND p.status = app.model.enums.Status.RENTED
+            """)
+    int markAvailableIfRented(UUID id);
 }
 
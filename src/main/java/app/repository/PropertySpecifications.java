@@ -0,0 +1,112 @@
+package app.repository;
+
+import app.model.Property;
+import app.model.enums.Status;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Reusable predicates for property searches. Every filter is null-safe:
+ * a blank or missing value simply does not restrict the query, so the
+ * service can combine them freely and still end up with one SQL statement.
+ */
+public final class PropertySpecifications {
+
+    private static final List<String> SEARCHED_FIELDS = List.of("title", "city", "description");
+    private static final String NON_WORD = "[^\\p{L}\\p{N}]+";
+
+    private PropertySpecifications() {
+    }
+
+    public static Specification<Property> cityEquals(String city) {
+        if (city == null || city.isBlank()) {
+            return null;
+        }
+        String value = city.trim().toLowerCase();
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("city")), value);
+    }
+
+    /**
+     * Every token must start a word of the title, city or description, as in the in-memory
+     * search index: the columns are split into words on anything but letters and digits, like
+     * the index does. {@code null} does not restrict the query; no tokens match nothing.
+     */
+    public static Specification<Property> hasWordsStartingWith(List<String> tokens) {
+        if (tokens == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (tokens.isEmpty()) {
+                return cb.disjunction();
+            }
+            Predicate[] perToken = tokens.stream()
+                    .map(token -> cb.or(SEARCHED_FIELDS.stream()
+                            .map(field -> cb.like(words(cb, root.get(field)), "% " + token + "%"))
+                            .toArray(Predicate[]::new)))
+                    .toArray(Predicate[]::new);
+            return cb.and(perToken);
+        };
+    }
+
+    // " word word word", lower-cased, so "% token%" matches a token at the start of any word
+    private static Expression<String> words(CriteriaBuilder cb, Expression<String> column) {
+        Expression<String> separated = cb.function("regexp_replace", String.class,
+                column, cb.literal(NON_WORD), cb.literal(" "));
+        return cb.concat(" ", cb.lower(separated));
+    }
+
+    public static Specification<Property> minBedrooms(Integer minBedrooms) {
+        if (minBedrooms == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("bedrooms"), minBedrooms);
+    }
+
+    public static Specification<Property> maxBedrooms(Integer maxBedrooms) {
+        if (maxBedrooms == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("bedrooms"), maxBedrooms);
+    }
+
+    public static Specification<Property> minBathrooms(Integer minBathrooms) {
+        if (minBathrooms == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("bathrooms"), minBathrooms);
+    }
+
+    public static Specification<Property> rentBetween(BigDecimal minRent, BigDecimal maxRent) {
+        if (minRent == null && maxRent == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            if (minRent == null) {
+                return cb.lessThanOrEqualTo(root.get("monthlyRent"), maxRent);
+            }
+            if (maxRent == null) {
+                return cb.greaterThanOrEqualTo(root.get("monthlyRent"), minRent);
+            }
+            return cb.between(root.get("monthlyRent"), minRent, maxRent);
+        };
+    }
+
+    public static Specification<Property> minArea(BigDecimal minArea) {
+        if (minArea == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("areaSqm"), minArea);
+    }
+
+    public static Specification<Property> hasStatus(Status status) {
+        if (status == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+}
@@ -1,10 +1,20 @@
 package app.repository;
 
 import app.model.RentalContract;
+import app.model.enums.PaymentType;
+import jakarta.transaction.Transactional;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,20 +22,63 @@ import java.util.UUID;
 @Repository
 public interface RentalContractRepository extends JpaRepository<RentalContract, UUID> {
 
+    @EntityGraph(attributePaths = "tenant")
     List<RentalContract> findByPropertyId(UUID propertyId);
 
     boolean existsByTenantIdAndActiveTrue(UUID tenantId);
 
-    void deleteAllByPropertyId(UUID id);
-
-    List<RentalContract> findByActiveTrue();
-
+    @EntityGraph(attributePaths = "property")
     List<RentalContract> findByTenantIdOrderByStartDateDesc(UUID userId);
 
     Optional<RentalContract> findByTenantIdAndActiveTrue(UUID tenantId);
 
-    List<RentalContract> findByTenantId(UUID id);
+    @EntityGraph(attributePaths = "property")
+    Optional<RentalContract> findWithPropertyByTenantIdAndActiveTrue(UUID tenantId);
+
+    @EntityGraph(attributePaths = {"property", "tenant"})
+    Optional<RentalContract> findWithPropertyAndTenantById(UUID id);
 
+    @Query("""
+            SELECT c.id AS id, c.property.id AS propertyId, c.tenant.id AS tenantId, c.active AS active
+            FROM RentalContract c WHERE c.tenant.id = :tenantId
+            """)
+    List<ContractKeys> findKeysByTenantId(UUID tenantId);
+
+    @Query("""
+            SELECT c.id AS id, c.property.id AS propertyId, c.tenant.id AS tenantId, c.active AS active
+            FROM RentalContract c WHERE c.property.id IN :propertyIds
+            """)
+    List<ContractKeys> findKeysByPropertyIds(Collection<UUID> propertyIds);
+
+    @Query("""
+            SELECT c.property.id AS propertyId, COUNT(c) AS contracts
+            FROM RentalContract c WHERE c.property.id IN :propertyIds
+            GROUP BY c.property.id
+            """)
+    List<PropertyContracts> countByPropertyIds(Collection<UUID> propertyIds);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("DELETE FROM RentalContract c WHERE c.tenant.id = :tenantId")
+    int deleteAllOfTenant(UUID tenantId);
+
+    @Modifying
+    @Query("DELETE FROM RentalContract c WHERE c.property.id IN :propertyIds")
+    int deleteAllOfProperties(Collection<UUID> propertyIds);
+
+    /**
+     * Fills the active-contract keys of contracts that predate them.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE RentalContract c
+            SET c.activePropertyId = c.property.id, c.activeTenantId = c.tenant.id
+            WHERE c.active = true
+              AND (c.activePropertyId IS NULL OR c.activeTenantId IS NULL)
+            """)
+    int backfillActiveKeys();
+
+    @EntityGraph(attributePaths = "property")
     @Query("""
             SELECT c FROM RentalContract c
             WHERE c.tenant.id = :tenantId
@@ -35,16 +88,107 @@ public interface RentalContractRepository extends JpaRepository<RentalContract,
             """)
     List<RentalContract> findFullHistoryForTenant(UUID tenantId);
 
+    @EntityGraph(attributePaths = {"property.owner", "tenant"})
+    Window<RentalContract> findByOrderByActiveDescStartDateDescIdDesc(ScrollPosition position, Limit limit);
+
+    /**
+     * The given contracts that are active and have no payment of the given type for {@code dueDate} yet.
+     */
     @Query("""
-            SELECT c FROM RentalContract c
-            ORDER BY
-                CASE WHEN c.active = true THEN 0 ELSE 1 END,
-                CASE 
-                    WHEN c.active = true THEN c.startDate 
-                    ELSE c.endDate 
-                END DESC
+            SELECT c.id AS id, c.tenant.id AS tenantId, c.monthlyRent AS monthlyRent FROM RentalContract c
+            WHERE c.active = true
+              AND c.id IN :ids
+              AND NOT EXISTS (
+                    SELECT 1 FROM Payment p
+                    WHERE p.contract = c AND p.type = :type AND p.dueDate = :dueDate)
+            """)
+    List<ContractRent> findActiveWithoutPayment(PaymentType type, LocalDate dueDate, Collection<UUID> ids);
+
+    /**
+     * One keyset page (by id) of active contracts in scope whose rent was last set (at signing or by an
+     * indexation) on or before {@code cutoff}. Filters work as in {@link PropertyRepository#findIndexableRents}.
+     */
+    @Query("""
+            SELECT c.id AS id, c.tenant.id AS tenantId, c.property.id AS propertyId, c.monthlyRent AS monthlyRent
+            FROM RentalContract c
+            WHERE c.active = true
+              AND (:ownerId IS NULL OR c.property.owner.id = :ownerId)
+              AND (:city IS NULL OR c.property.city = :city)
+              AND (:anyProperty = true OR c.property.id IN :propertyIds)
+              AND ((c.rentIndexedOn IS NULL AND c.startDate <= :cutoff) OR c.rentIndexedOn <= :cutoff)
+              AND c.id > :after
+            ORDER BY c.id
+            """)
+    List<IndexableContractRent> findIndexableRents(UUID ownerId, String city, boolean anyProperty, Collection<UUID> propertyIds,
+                                                   LocalDate cutoff, UUID after, Limit limit);
+
+    @Modifying
+    @Query("""
+            UPDATE RentalContract c
+            SET c.monthlyRent = ROUND(c.monthlyRent * :factor, :scale), c.rentIndexedOn = :today, c.version = c.version + 1
+            WHERE c.id IN :ids
+              AND c.active = true
+            """)
+    int indexRents(Collection<UUID> ids, BigDecimal factor, int scale, LocalDate today);
+
+    /**
+     * Start date and latest MONTHLY_RENT due date of every active contract, for the billing wheel.
+     */
+    @Query("""
+            SELECT c.id AS id, c.startDate AS startDate, MAX(p.dueDate) AS lastDueDate
+            FROM RentalContract c
+            LEFT JOIN Payment p ON p.contract = c AND p.type = app.model.enums.PaymentType.MONTHLY_RENT
+            WHERE c.active = true
+            GROUP BY c.id, c.startDate
             """)
-    List<RentalContract> findAllSorted();
+    List<ContractSchedule> findActiveSchedules();
+
+    interface ContractRent {
+
+        UUID getId();
+
+        UUID getTenantId();
+
+        BigDecimal getMonthlyRent();
+    }
+
+    interface IndexableContractRent {
+
+        UUID getId();
+
+        UUID getTenantId();
+
+        UUID getPropertyId();
+
+        BigDecimal getMonthlyRent();
+    }
+
+    interface ContractKeys {
+
+        UUID getId();
+
+        UUID getPropertyId();
+
+        UUID getTenantId();
+
+        boolean isActive();
+    }
+
+    interface PropertyContracts {
+
+        UUID getPropertyId();
+
+        long getContracts();
+    }
+
+    interface ContractSchedule {
+
+        UUID getId();
+
+        LocalDate getStartDate();
+
+        LocalDate getLastDueDate();
+    }
 
 
 }
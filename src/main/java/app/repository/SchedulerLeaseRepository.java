@@ -0,0 +1,43 @@
+package app.repository;
+
+import app.model.SchedulerLease;
+import jakarta.transaction.Transactional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Takes the lease if it has expired or already belongs to {@code holder}; returns 1 on success.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            UPDATE SchedulerLease l
+            SET l.holder = :holder, l.acquiredAt = :now, l.expiresAt = :expiresAt
+            WHERE l.name = :name
+              AND (l.expiresAt <= :now OR l.holder = :holder)
+            """)
+    int takeOver(String name, String holder, LocalDateTime now, LocalDateTime expiresAt);
+
+    /**
+     * Creates the lease row on first use; fails on the primary key if another node got there first.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+            INSERT INTO SchedulerLease (name, holder, acquiredAt, expiresAt)
+            VALUES (:name, :holder, :now, :expiresAt)
+            """)
+    int create(String name, String holder, LocalDateTime now, LocalDateTime expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expiresAt = :expiresAt WHERE l.name = :name AND l.holder = :holder")
+    int release(String name, String holder, LocalDateTime expiresAt);
+}
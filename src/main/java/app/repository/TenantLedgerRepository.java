@@ -0,0 +1,46 @@
+package app.repository;
+
+import app.model.TenantLedger;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TenantLedgerRepository extends JpaRepository<TenantLedger, UUID> {
+
+    /**
+     * Locks the given ledgers in id order, so concurrent writers cannot deadlock on them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM TenantLedger l WHERE l.tenantId IN :tenantIds ORDER BY l.tenantId")
+    List<TenantLedger> findAllForUpdate(Collection<UUID> tenantIds);
+
+    /**
+     * Totals of every tenant that has payments but no ledger row yet.
+     */
+    @Query("""
+            SELECT c.tenant.id AS tenantId,
+                   SUM(CASE WHEN p.status <> app.model.enums.PaymentStatus.CANCELED THEN p.amount ELSE 0 END) AS totalCharged,
+                   SUM(CASE WHEN p.status = app.model.enums.PaymentStatus.SUCCESS THEN p.amount ELSE 0 END) AS totalPaid
+            FROM Payment p JOIN p.contract c
+            WHERE NOT EXISTS (SELECT 1 FROM TenantLedger l WHERE l.tenantId = c.tenant.id)
+            GROUP BY c.tenant.id
+            """)
+    List<LedgerTotals> findMissingTotals();
+
+    interface LedgerTotals {
+
+        UUID getTenantId();
+
+        BigDecimal getTotalCharged();
+
+        BigDecimal getTotalPaid();
+    }
+}
@@ -1,6 +1,9 @@
 package app.repository;
 
 import app.model.User;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -15,5 +18,7 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByEmail(String email);
 
     Optional<User> findByUsername(String username);
+
+    Window<User> findByOrderByUsernameAsc(ScrollPosition position, Limit limit);
 }
 
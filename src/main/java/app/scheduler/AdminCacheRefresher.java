@@ -0,0 +1,46 @@
+package app.scheduler;
+
+import app.service.AdminService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Keeps the admin dashboard's read models warm. Each dataset is reloaded in
+ * place (cache put, not evict), so admin requests keep reading the previous
+ * value while the refresh runs and never wait on the full set of queries.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdminCacheRefresher {
+
+    private final AdminService adminService;
+
+    @Scheduled(fixedDelayString = "${rentfix.admin.refresh-interval:PT1M}")
+    public void refresh() {
+
+        long start = System.currentTimeMillis();
+
+        refresh("counts", adminService::refreshCounts);
+        refresh("users", adminService::refreshUsers);
+        refresh("properties", adminService::refreshProperties);
+        refresh("contracts", adminService::refreshContracts);
+        refresh("payments", adminService::refreshPayments);
+        refresh("maintenance", adminService::refreshMaintenance);
+
+        log.debug("[Scheduler] Admin read models refreshed in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private void refresh(String dataset, Supplier<?> loader) {
+        try {
+            loader.get();
+        } catch (RuntimeException ex) {
+            // The cached value stays in place until its TTL; the next run tries again
+            log.warn("[Scheduler] Could not refresh admin {}: {}", dataset, ex.getMessage());
+        }
+    }
+}
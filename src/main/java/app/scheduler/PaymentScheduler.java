@@ -2,89 +2,116 @@ package app.scheduler;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import app.model.Payment;
-import app.model.RentalContract;
-import app.model.enums.PaymentStatus;
-import app.model.enums.PaymentType;
-import app.repository.PaymentRepository;
-import app.repository.RentalContractRepository;
+import app.service.ContractBillingWheel;
+import app.service.LateFeeEngine;
+import app.service.MonthlyRentBilling;
+import app.service.OverduePaymentDetector;
+import app.service.PaymentService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.List;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class PaymentScheduler {
 
-    private final RentalContractRepository rentalContractRepository;
-    private final PaymentRepository paymentRepository;
+    // A billing run must finish well within its lease; a longer hold keeps other nodes off the same cron tick
+    private static final String BILLING_LEASE = "monthly-billing";
+    private static final Duration BILLING_AT_MOST = Duration.ofHours(3);
+    private static final Duration BILLING_AT_LEAST = Duration.ofMinutes(5);
 
-    @Scheduled(cron = "0 0 6 * * ?")
-    public void generateMonthlyPayments() {
+    // Just under the 5-minute delay, so the nodes' timers share one run per period
+    private static final String OVERDUE_LEASE = "overdue-payments";
+    private static final Duration OVERDUE_AT_MOST = Duration.ofMinutes(10);
+    private static final Duration OVERDUE_AT_LEAST = Duration.ofMinutes(4);
 
-        log.info("[Scheduler] Starting monthly payment generation...");
+    private static final String LATE_FEE_LEASE = "late-fees";
+    private static final Duration LATE_FEE_AT_MOST = Duration.ofHours(1);
+    private static final Duration LATE_FEE_AT_LEAST = Duration.ofMinutes(5);
 
-        List<RentalContract> activeContracts =
-                rentalContractRepository.findByActiveTrue();
+    private final MonthlyRentBilling monthlyRentBilling;
+    private final LateFeeEngine lateFeeEngine;
+    private final ContractBillingWheel contractBillingWheel;
+    private final OverduePaymentDetector overduePaymentDetector;
+    private final PaymentService paymentService;
+    private final SchedulerLeases schedulerLeases;
 
-        for (RentalContract contract : activeContracts) {
+    @Scheduled(cron = "0 0 6 * * ?")
+    public void generateMonthlyPayments() {
+        schedulerLeases.runExclusively(BILLING_LEASE, BILLING_AT_MOST, BILLING_AT_LEAST, () -> {
 
-            LocalDate nextDue = LocalDate.now()
-                    .withDayOfMonth(1)
-                    .plusMonths(1);
+            log.info("[Scheduler] Starting monthly payment generation...");
 
-            boolean exists = paymentRepository
-                    .existsByContractIdAndTypeAndDueDate(
-                            contract.getId(),
-                            PaymentType.MONTHLY_RENT,
-                            nextDue
-                    );
+            long start = System.currentTimeMillis();
+            int created = contractBillingWheel.tick(LocalDate.now());
 
-            if (exists) {
-                log.info("[Scheduler] Monthly payment already exists for contract {} at {}",
-                        contract.getId(), nextDue);
-                continue;
-            }
+            log.info("[Scheduler] Created {} monthly payments in {} ms",
+                    created, System.currentTimeMillis() - start);
+        });
+    }
 
-            Payment payment = new Payment();
-            payment.setId(UUID.randomUUID());
-            payment.setContract(contract);
-            payment.setAmount(contract.getMonthlyRent());
-            payment.setDueDate(nextDue);
-            payment.setStatus(PaymentStatus.PENDING);
-            payment.setType(PaymentType.MONTHLY_RENT);
-            payment.setPaidAt(null);
+    /**
+     * Reloads the due-date wheel so it also reflects contracts created or ended on other nodes.
+     */
+    @Scheduled(fixedDelayString = "${rentfix.billing.wheel-resync-interval:PT6H}",
+            initialDelayString = "${rentfix.billing.wheel-resync-interval:PT6H}")
+    public void resyncBillingWheel() {
+        contractBillingWheel.rebuild();
+    }
 
-            paymentRepository.save(payment);
 
-            log.info("[Scheduler] NEW monthly payment created for contract {} due at {}",
-                    contract.getId(), nextDue);
-        }
+    /**
+     * A billing job cut off by a restart is finished in the background instead of waiting for the next cron run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterruptedBilling() {
+        CompletableFuture.runAsync(() -> schedulerLeases.runExclusively(BILLING_LEASE, BILLING_AT_MOST, Duration.ZERO, () -> {
+                    int created = monthlyRentBilling.resumeInterrupted();
+                    if (created > 0) {
+                        log.info("[Scheduler] Resumed interrupted billing, created {} payments", created);
+                    }
+                }))
+                .exceptionally(ex -> {
+                    log.warn("[Scheduler] Resuming interrupted billing failed: {}", ex.getMessage());
+                    return null;
+                });
     }
 
+    @Scheduled(cron = "0 30 6 * * ?")
+    public void chargeLateFees() {
+        schedulerLeases.runExclusively(LATE_FEE_LEASE, LATE_FEE_AT_MOST, LATE_FEE_AT_LEAST,
+                () -> lateFeeEngine.run(LocalDate.now()));
+    }
 
     @Scheduled(fixedDelay = 300_000)  // без cron, изискване №2
     public void checkOverduePayments() {
+        schedulerLeases.runExclusively(OVERDUE_LEASE, OVERDUE_AT_MOST, OVERDUE_AT_LEAST, () -> {
 
-        log.info("[Scheduler] Checking for overdue payments...");
-
-        LocalDate today = LocalDate.now();
+            int marked = overduePaymentDetector.markOverdue(LocalDate.now());
 
-        List<Payment> allPayments = paymentRepository.findAll();
-
-        long overdueCount = allPayments.stream()
-                .filter(p -> p.getStatus() == PaymentStatus.PENDING)
-                .filter(p -> p.getDueDate() != null && p.getDueDate().isBefore(today))
-                .count();
+            if (marked > 0) {
+                log.warn("[Scheduler] Marked {} payments as OVERDUE, {} overdue in total",
+                        marked, overduePaymentDetector.getOverdueCount());
+            } else {
+                log.debug("[Scheduler] No newly overdue payments.");
+            }
+        });
+    }
 
-        if (overdueCount > 0) {
-            log.warn("[Scheduler] Found {} overdue PENDING payments!", overdueCount);
-        } else {
-            log.info("[Scheduler] No overdue PENDING payments.");
+    /**
+     * Deleting expired keys is idempotent, so every node may run it without a lease.
+     */
+    @Scheduled(cron = "0 15 * * * ?")
+    public void purgeIdempotencyKeys() {
+        int purged = paymentService.purgeIdempotencyKeys();
+        if (purged > 0) {
+            log.debug("[Scheduler] Purged {} expired idempotency keys", purged);
         }
     }
 }
@@ -0,0 +1,140 @@
+package app.scheduler;
+
+import app.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Makes a scheduled job run on one node per tick when several RentFix instances share a database.
+ * <p>
+ * A lease is a row in {@code SchedulerLease}. A node acquires it with one conditional UPDATE,
+ * which succeeds only if the lease has expired or the node already holds it. The row is INSERTed
+ * on first use. A node that dies keeps the lease only until {@code atMostFor} runs out; then the
+ * next node takes it over. On release the lease is kept until {@code atLeastFor} after acquisition,
+ * so nodes whose timers fire slightly later skip the tick instead of repeating it.
+ * Expiry is compared against each node's clock, so node clocks are assumed to be NTP-synced.
+ */
+@Slf4j
+@Component
+public class SchedulerLeases {
+
+    private final SchedulerLeaseRepository leaseRepository;
+    private final MeterRegistry meterRegistry;
+    private final String holder;
+
+    @Autowired
+    public SchedulerLeases(SchedulerLeaseRepository leaseRepository, MeterRegistry meterRegistry, @Value("${rentfix.scheduler.node-id:}") String nodeId) {
+        this.leaseRepository = leaseRepository;
+        this.meterRegistry = meterRegistry;
+        this.holder = nodeId == null || nodeId.isBlank() ? defaultNodeId() : nodeId;
+        log.info("[Scheduler] Lease holder id: {}", holder);
+    }
+
+    /**
+     * Runs {@code task} if this node gets the lease {@code name}; returns {@code false} when another node holds it.
+     */
+    public boolean runExclusively(String name, Duration atMostFor, Duration atLeastFor, Runnable task) {
+
+        Optional<Lease> lease = tryAcquire(name, atMostFor);
+        if (lease.isEmpty()) {
+            log.debug("[Scheduler] Lease '{}' is held by another node, skipping", name);
+            return false;
+        }
+
+        try {
+            task.run();
+        } finally {
+            release(lease.get(), atLeastFor);
+        }
+        return true;
+    }
+
+    public Optional<Lease> tryAcquire(String name, Duration atMostFor) {
+
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(atMostFor);
+        String outcome = "busy";
+
+        try {
+            boolean acquired = leaseRepository.takeOver(name, holder, now, expiresAt) == 1
+                    || (!leaseRepository.existsById(name) && create(name, now, expiresAt));
+
+            if (acquired) {
+                outcome = "acquired";
+                return Optional.of(new Lease(name, holder, now));
+            }
+            return Optional.empty();
+        } catch (RuntimeException ex) {
+            outcome = "error";
+            log.warn("[Scheduler] Could not acquire lease '{}': {}", name, ex.getMessage());
+            return Optional.empty();
+        } finally {
+            Timer.builder("rentfix.scheduler.lease.acquire")
+                    .tag("lease", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(System.nanoTime() - start));
+            Counter.builder("rentfix.scheduler.lease.attempts")
+                    .tag("lease", name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    public void release(Lease lease, Duration atLeastFor) {
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime keepUntil = lease.acquiredAt().plus(atLeastFor);
+
+        Timer.builder("rentfix.scheduler.lease.held")
+                .tag("lease", lease.name())
+                .register(meterRegistry)
+                .record(Duration.between(lease.acquiredAt(), now));
+
+        try {
+            leaseRepository.release(lease.name(), lease.holder(), keepUntil.isAfter(now) ? keepUntil : now);
+        } catch (RuntimeException ex) {
+            // The lease then simply runs until its atMostFor expiry
+            log.warn("[Scheduler] Could not release lease '{}': {}", lease.name(), ex.getMessage());
+        }
+    }
+
+    public String getHolder() {
+        return holder;
+    }
+
+    private boolean create(String name, LocalDateTime now, LocalDateTime expiresAt) {
+        try {
+            return leaseRepository.create(name, holder, now, expiresAt) == 1;
+        } catch (DataIntegrityViolationException ex) {
+            return false;
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception ex) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    public record Lease(String name, String holder, LocalDateTime acquiredAt) {
+    }
+}
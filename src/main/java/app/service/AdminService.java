@@ -10,101 +10,158 @@ import app.model.User;
 
 import app.model.enums.PaymentStatus;
 import app.model.enums.Role;
-import app.model.enums.Status;
+import app.repository.IdempotencyKeyRepository;
 import app.repository.PaymentRepository;
 import app.repository.PropertyRepository;
 import app.repository.RentalContractRepository;
+import app.repository.RentalContractRepository.ContractKeys;
+import app.repository.RentalContractRepository.PropertyContracts;
 import app.repository.UserRepository;
 import app.feign.dto.MaintenanceResponse;
+import app.web.dto.AdminContractView;
+import app.web.dto.AdminPaymentView;
+import app.web.dto.AdminPropertyView;
+import app.web.dto.AdminUserView;
+import app.web.dto.DeletionJobView;
+import app.web.dto.KeysetCursor;
+import app.web.dto.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public class AdminService {
 
+    private static final int PAGE_SIZE = 20;
+    private static final String FIRST_PAGE = "first";
+    private static final String ALL = "all";
+    private static final String COUNTS = "counts";
+
+    // Sort keys of the admin listings, as the keyset windows put them in their cursors
+    private static final Map<String, Class<?>> USER_KEYS = Map.of("username", String.class, "id", UUID.class);
+    private static final Map<String, Class<?>> CONTRACT_KEYS = Map.of("active", Boolean.class, "startDate", LocalDate.class, "id", UUID.class);
+    private static final Map<String, Class<?>> PAYMENT_KEYS = Map.of("dueDate", LocalDate.class, "id", UUID.class);
+    private static final Map<String, Class<?>> PROPERTY_KEYS = Map.of("createdOn", LocalDateTime.class, "id", UUID.class);
+
     private final UserRepository userRepository;
     private final MaintenanceClient maintenanceClient;
     private final RentalContractRepository rentalContractRepository;
     private final PaymentRepository paymentRepository;
     private final PropertyRepository propertyRepository;
     private final ContractService contractService;
-    private final PropertyService propertyService;
+    private final SingleFlightCache singleFlightCache;
+    private final TenantLedgerService tenantLedgerService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final CascadeDeletion cascadeDeletion;
+    private final ContractBillingWheel contractBillingWheel;
+    private final PropertyFilterEngine propertyFilterEngine;
 
     @Autowired
-    public AdminService(UserRepository userRepository, MaintenanceClient maintenanceClient, RentalContractRepository rentalContractRepository, PaymentRepository paymentRepository, PropertyRepository propertyRepository, ContractService contractService, PropertyService propertyService) {
+    public AdminService(UserRepository userRepository, MaintenanceClient maintenanceClient, RentalContractRepository rentalContractRepository, PaymentRepository paymentRepository, PropertyRepository propertyRepository, ContractService contractService, SingleFlightCache singleFlightCache, TenantLedgerService tenantLedgerService, IdempotencyKeyRepository idempotencyKeyRepository, CacheInvalidator cacheInvalidator, CascadeDeletion cascadeDeletion, ContractBillingWheel contractBillingWheel, PropertyFilterEngine propertyFilterEngine) {
         this.userRepository = userRepository;
         this.maintenanceClient = maintenanceClient;
         this.rentalContractRepository = rentalContractRepository;
         this.paymentRepository = paymentRepository;
         this.propertyRepository = propertyRepository;
         this.contractService = contractService;
-        this.propertyService = propertyService;
+        this.singleFlightCache = singleFlightCache;
+        this.tenantLedgerService = tenantLedgerService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.cascadeDeletion = cascadeDeletion;
+        this.contractBillingWheel = contractBillingWheel;
+        this.propertyFilterEngine = propertyFilterEngine;
     }
 
-    @Cacheable("admin")
-    public List<User> getAllUsers() {
-        log.info("Admin: fetching all users");
-        return userRepository.findAll();
+    public KeysetPage<AdminUserView> getAllUsers(String cursor) {
+        log.info("Admin: fetching users page");
+        return singleFlightCache.get("admin_users", cursor == null ? FIRST_PAGE : cursor, () -> usersPage(cursor));
+    }
+
+    public KeysetPage<AdminUserView> refreshUsers() {
+        return singleFlightCache.refresh("admin_users", FIRST_PAGE, () -> usersPage(null));
     }
 
-    @Cacheable("admin")
     public List<MaintenanceResponse> getAllMaintenance() {
         log.info("Admin: fetching all maintenance tickets");
-        return maintenanceClient.getAll();
+        return singleFlightCache.get("admin_maintenance", ALL, maintenanceClient::getAll);
+    }
 
+    public List<MaintenanceResponse> refreshMaintenance() {
+        return singleFlightCache.refresh("admin_maintenance", ALL, maintenanceClient::getAll);
     }
 
-    @Cacheable("admin")
-    public List<RentalContract> getAllContracts() {
-        return rentalContractRepository.findAllSorted();
+    public KeysetPage<AdminContractView> getAllContracts(String cursor) {
+        return singleFlightCache.get("admin_contracts", cursor == null ? FIRST_PAGE : cursor, () -> contractsPage(cursor));
     }
 
+    public KeysetPage<AdminContractView> refreshContracts() {
+        return singleFlightCache.refresh("admin_contracts", FIRST_PAGE, () -> contractsPage(null));
+    }
+
+    /**
+     * Ends the contract like a tenant move-out and cancels its unpaid payments in one statement.
+     */
     @Transactional
-    @CacheEvict(value = "admin", allEntries = true)
     public void endContract(UUID contractId) {
         RentalContract contract = rentalContractRepository.findById(contractId)
                 .orElseThrow(() -> new IllegalArgumentException("Contract not found"));
 
         if (!contract.isActive()) return;
 
-        contract.setActive(false);
-        contract.setEndDate(LocalDate.now());
+        UUID tenantId = contract.getTenant().getId();
+        contractService.cancel(contractId, tenantId);
 
-        List<Payment> futurePayments = paymentRepository.getContractPaymentsSorted(contractId)
+        List<TenantLedgerService.Change> changes = paymentRepository.findUnpaidOfContractForUpdate(contractId)
                 .stream()
-                .filter(p -> p.getStatus() == PaymentStatus.PENDING)
+                .map(p -> new TenantLedgerService.Change(tenantId, p.getAmount(), p.getStatus(), p.getAmount(), PaymentStatus.CANCELED))
                 .toList();
 
-        for (Payment payment : futurePayments) {
-            payment.setStatus(PaymentStatus.CANCELED);
-        }
+        int canceled = paymentRepository.cancelUnpaidOfContract(contractId);
+        tenantLedgerService.recordAll(changes);
 
-        contract.getProperty().setStatus(Status.AVAILABLE);
+        cacheInvalidator.evictMentioning("payment", contractId, tenantId, contract.getProperty().getId());
+        clear("admin_contracts", "admin_properties", "admin_payments");
+        log.info("Admin ended contract {}, {} unpaid payments canceled", contractId, canceled);
+    }
 
-        rentalContractRepository.save(contract);
+    public KeysetPage<AdminPaymentView> getAllPayments(String cursor) {
+        return singleFlightCache.get("admin_payments", cursor == null ? FIRST_PAGE : cursor, () -> paymentsPage(cursor));
     }
 
-    @Cacheable("admin")
-    public List<Payment> getAllPayments() {
-        return paymentRepository.findAllSorted();
+    public KeysetPage<AdminPaymentView> refreshPayments() {
+        return singleFlightCache.refresh("admin_payments", FIRST_PAGE, () -> paymentsPage(null));
     }
 
     @Transactional
-    @CacheEvict(value = "admin", allEntries = true)
-    public void correctPayment(UUID id, BigDecimal amount, PaymentStatus status) {
+    public void correctPayment(UUID id, BigDecimal amount, PaymentStatus status, Long version) {
 
         Payment payment = paymentRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Payment not found"));
 
+        // The admin edited what they saw; a payment changed since then is not overwritten blindly
+        if (version != null && version != payment.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Payment.class, id);
+        }
+
+        RentalContract contract = payment.getContract();
+        UUID tenantId = contract.getTenant().getId();
+        TenantLedgerService.Change change = new TenantLedgerService.Change(tenantId,
+                payment.getAmount(), payment.getStatus(), amount, status);
+
         payment.setAmount(amount);
         payment.setStatus(status);
 
@@ -112,34 +169,89 @@ public class AdminService {
             payment.setPaidAt(LocalDateTime.now());
         }
 
-        if (status == PaymentStatus.PENDING) {
+        if (status == PaymentStatus.PENDING || status == PaymentStatus.OVERDUE) {
             payment.setPaidAt(null);
         }
 
         paymentRepository.save(payment);
+        tenantLedgerService.record(change);
+
+        // The tenant's and owner's payment pages list it too, keyed by contract, tenant or property
+        cacheInvalidator.evictMentioning("payment", contract.getId(), tenantId, contract.getProperty().getId());
+        clear("admin_payments");
     }
 
-    @Cacheable("admin")
-    public List<Property> getAllProperties() {
-            return propertyRepository.findAll();
+    public KeysetPage<AdminPropertyView> getAllProperties(String cursor) {
+        return singleFlightCache.get("admin_properties", cursor == null ? FIRST_PAGE : cursor, () -> propertiesPage(cursor));
     }
 
-    @Transactional
-    @CacheEvict(value = "admin", allEntries = true)
-    public void deleteProperty(UUID id) {
+    public KeysetPage<AdminPropertyView> refreshProperties() {
+        return singleFlightCache.refresh("admin_properties", FIRST_PAGE, () -> propertiesPage(null));
+    }
 
-        Property property = propertyRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Property not found"));
+    public Map<String, Long> getCounts() {
+        return singleFlightCache.get("admin_stats", COUNTS, this::counts);
+    }
 
-        rentalContractRepository.deleteAllByPropertyId(id);
+    public Map<String, Long> refreshCounts() {
+        return singleFlightCache.refresh("admin_stats", COUNTS, this::counts);
+    }
 
-        propertyRepository.delete(property);
+    private KeysetPage<AdminUserView> usersPage(String cursor) {
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, USER_KEYS);
+        return KeysetPage.from(userRepository.findByOrderByUsernameAsc(position, Limit.of(PAGE_SIZE)), position)
+                .map(AdminUserView::from);
     }
 
+    private KeysetPage<AdminContractView> contractsPage(String cursor) {
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, CONTRACT_KEYS);
+        return KeysetPage.from(rentalContractRepository.findByOrderByActiveDescStartDateDescIdDesc(position, Limit.of(PAGE_SIZE)), position)
+                .map(AdminContractView::from);
+    }
+
+    private KeysetPage<AdminPaymentView> paymentsPage(String cursor) {
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, PAYMENT_KEYS);
+        return KeysetPage.from(paymentRepository.findByOrderByDueDateDescIdDesc(position, Limit.of(PAGE_SIZE)), position)
+                .map(AdminPaymentView::from);
+    }
 
+    private KeysetPage<AdminPropertyView> propertiesPage(String cursor) {
+
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, PROPERTY_KEYS);
+        KeysetPage<Property> page = KeysetPage.from(propertyRepository.findByOrderByCreatedOnDescIdDesc(position, Limit.of(PAGE_SIZE)), position);
+
+        // Counted for the whole page at once instead of loading each property's contracts
+        Map<UUID, Long> contracts = page.items().isEmpty()
+                ? Map.of()
+                : rentalContractRepository.countByPropertyIds(page.items().stream().map(Property::getId).toList())
+                        .stream()
+                        .collect(Collectors.toMap(PropertyContracts::getPropertyId, PropertyContracts::getContracts));
+
+        return page.map(property -> AdminPropertyView.from(property, contracts.getOrDefault(property.getId(), 0L)));
+    }
+
+    private Map<String, Long> counts() {
+        return Map.of(
+                "users", userRepository.count(),
+                "properties", propertyRepository.count(),
+                "contracts", rentalContractRepository.count(),
+                "payments", paymentRepository.count());
+    }
+
+    /**
+     * Starts deleting the property with its contracts, payments and images in the background.
+     */
+    public DeletionJobView deleteProperty(UUID id) {
+        return cascadeDeletion.deleteProperty(id);
+    }
+
+    /**
+     * Deletes a tenant at once; an owner is deleted in the background together with their properties.
+     *
+     * @return the job deleting an owner, or {@code null} when the user is already deleted
+     */
     @Transactional
-    @CacheEvict(value = "admin", allEntries = true)
-    public void deleteUser(UUID id) {
+    public DeletionJobView deleteUser(UUID id) {
             User user = userRepository.findById(id)
                     .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
@@ -147,36 +259,63 @@ public class AdminService {
                 throw new IllegalStateException("Cannot delete ADMIN.");
             }
 
-            if (user.getRole() == Role.TENANT) {
-                List<RentalContract> contracts =
-                        rentalContractRepository.findByTenantId(id);
+            clear("admin_users", "admin_properties", "admin_contracts", "admin_payments", "admin_stats");
 
-                for (RentalContract c : contracts) {
-                    if (c.isActive()) {
-                        contractService.cancel(c.getId(), id);
+            if (user.getRole() == Role.TENANT) {
+                List<ContractKeys> contracts = rentalContractRepository.findKeysByTenantId(id);
+
+                // Set-based only: the statements clear the persistence context, so no managed
+                // contract may be left behind that still references the tenant
+                int payments = paymentRepository.deleteAllOfTenant(id);
+                idempotencyKeyRepository.deleteAllOfUser(id);
+                rentalContractRepository.deleteAllOfTenant(id);
+                tenantLedgerService.delete(id);
+
+                // The tenant's contract and payment views are keyed by tenant, contract or property
+                List<Object> keys = new ArrayList<>(List.of(id));
+                for (ContractKeys contract : contracts) {
+                    keys.add(contract.getId());
+                    keys.add(contract.getPropertyId());
+
+                    if (contract.isActive()) {
+                        releaseProperty(contract);
                     }
-                    rentalContractRepository.delete(c);
                 }
+                cacheInvalidator.evictMentioning("contract", keys.toArray());
+                cacheInvalidator.evictMentioning("payment", keys.toArray());
 
-                List<Payment> payments = paymentRepository.findAll();
-                for (Payment payment : payments) {
-                    if (payment.getContract().getTenant().getId().equals(id)) {
-                        paymentRepository.delete(payment);
-                    }
-                }
+                log.info("Deleted {} contracts and {} payments of tenant {}", contracts.size(), payments, id);
             }
 
             if (user.getRole() == Role.OWNER) {
+                return cascadeDeletion.deleteOwner(id);
+            }
 
-                List<Property> properties = propertyRepository.findAllByOwnerId(id);
+            userRepository.deleteById(id);
+            cacheInvalidator.evictMentioning("user", id);
+            return null;
+        }
 
-                for (Property p : properties) {
-                    propertyService.delete(p.getId(), id);
-                }
-            }
-            userRepository.delete(user);
+    // Through the invalidator, so the admin pages are cleared after commit and in-flight loads are not stored
+    private void clear(String... cacheNames) {
+        for (String cacheName : cacheNames) {
+            cacheInvalidator.clear(cacheName);
         }
     }
 
+    /**
+     * Frees the property of a deleted tenant's active contract, as moving out would.
+     */
+    private void releaseProperty(ContractKeys contract) {
 
+        contractBillingWheel.cancel(contract.getId());
 
+        if (propertyRepository.markAvailableIfRented(contract.getPropertyId()) > 0) {
+            propertyRepository.findById(contract.getPropertyId()).ifPresent(property -> {
+                propertyFilterEngine.upsert(property);
+                cacheInvalidator.evictMentioning("property", property.getId(), property.getOwner().getId());
+            });
+            cacheInvalidator.clear("properties_search");
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package app.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Evicts only the cache entries a write actually affects.
+ * <p>
+ * Cached reads use list keys such as {@code {#root.methodName, #tenantId, #cursor}},
+ * so an entry can be matched by the IDs it was loaded for without knowing
+ * every page cursor that was ever requested. Evictions run after the surrounding
+ * transaction commits, so a concurrent reader cannot re-cache the old state.
+ */
+@Slf4j
+@Component
+public class CacheInvalidator {
+
+    private final CacheManager cacheManager;
+    private final SingleFlightCache singleFlightCache;
+
+    @Autowired
+    public CacheInvalidator(CacheManager cacheManager, SingleFlightCache singleFlightCache) {
+        this.cacheManager = cacheManager;
+        this.singleFlightCache = singleFlightCache;
+    }
+
+    /**
+     * Removes every entry of {@code cacheName} whose key contains one of the given IDs.
+     */
+    public void evictMentioning(String cacheName, Object... ids) {
+
+        Set<Object> targets = Arrays.stream(ids)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableSet());
+
+        if (!targets.isEmpty()) {
+            AfterCommit.run(() -> evictNow(cacheName, targets));
+        }
+    }
+
+    /**
+     * Clears a whole cache, for results that any write can change (e.g. search pages).
+     */
+    public void clear(String cacheName) {
+        AfterCommit.run(() -> {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                singleFlightCache.invalidated(cacheName);
+                cache.clear();
+            }
+        });
+    }
+
+    private void evictNow(String cacheName, Set<Object> targets) {
+
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+
+        // Before evicting, so a load that read the old state cannot store it afterwards
+        singleFlightCache.invalidated(cacheName);
+
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            caffeine.asMap().keySet().removeIf(key -> mentions(key, targets));
+        } else {
+            // Keys of other cache implementations cannot be enumerated
+            cache.clear();
+        }
+
+        log.debug("Evicted '{}' entries for {}", cacheName, targets);
+    }
+
+    private boolean mentions(Object key, Set<Object> targets) {
+        if (key instanceof Collection<?> parts) {
+            return parts.stream().anyMatch(part -> mentions(part, targets));
+        }
+        // Keys hold null parts (e.g. the first page's cursor), which an immutable set cannot look up
+        return key != null && targets.contains(key);
+    }
+}
@@ -0,0 +1,137 @@
+package app.service;
+
+import app.config.WarmUpSettings;
+import app.repository.PropertyRepository;
+import app.scheduler.AdminCacheRefresher;
+import app.web.dto.PropertySearchRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Preloads the hottest read paths after startup so the first visitors of
+ * {@code /properties}, {@code /owner/dashboard} and {@code /admin/dashboard}
+ * do not pay the cold-cache cost.
+ * <p>
+ * Runs synchronously in the last {@link ApplicationReadyEvent} listener (after the
+ * in-memory search structures are built). Spring Boot only switches readiness to
+ * {@code ACCEPTING_TRAFFIC} once all those listeners return, so the pod is not
+ * reported ready until the caches are warm or {@code rentfix.warmup.timeout} passes.
+ */
+@Slf4j
+@Component
+public class CacheWarmUp {
+
+    private final WarmUpSettings settings;
+    private final PropertyService propertyService;
+    private final PropertyRepository propertyRepository;
+    private final AdminCacheRefresher adminCacheRefresher;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public CacheWarmUp(WarmUpSettings settings, PropertyService propertyService, PropertyRepository propertyRepository, AdminCacheRefresher adminCacheRefresher, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.propertyService = propertyService;
+        this.propertyRepository = propertyRepository;
+        this.adminCacheRefresher = adminCacheRefresher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+
+        if (!settings.isEnabled()) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, settings.getParallelism()));
+
+        try {
+            List<CompletableFuture<Void>> running = new ArrayList<>();
+            steps().forEach((name, step) -> running.add(CompletableFuture.runAsync(() -> run(name, step), workers)));
+
+            CompletableFuture.allOf(running.toArray(CompletableFuture[]::new))
+                    .get(settings.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+            log.info("Cache warm-up finished: {} steps in {} ms", running.size(), System.currentTimeMillis() - start);
+        } catch (TimeoutException ex) {
+            log.warn("Cache warm-up did not finish within {}, continuing startup", settings.getTimeout());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log.warn("Cache warm-up failed: {}", ex.getMessage());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private Map<String, Runnable> steps() {
+
+        Map<String, Runnable> steps = new LinkedHashMap<>();
+
+        steps.put("properties", () -> {
+            propertyService.search(new PropertySearchRequest(), null);
+            propertyService.searchAvailable(new PropertySearchRequest(), null);
+        });
+
+        for (String city : settings.getCities()) {
+            steps.put("properties:" + city, () -> {
+                PropertySearchRequest criteria = new PropertySearchRequest();
+                criteria.setCity(city);
+                // The search form always submits the keyword field, empty when unused
+                criteria.setKeyword("");
+                propertyService.search(criteria, null);
+                propertyService.searchAvailable(criteria, null);
+            });
+        }
+
+        steps.put("owners", () -> {
+            for (UUID ownerId : propertyRepository.findOwnerIdsByPropertyCount(Limit.of(settings.getOwners()))) {
+                propertyService.getByOwner(ownerId);
+                propertyService.getAllByOwner(ownerId);
+            }
+        });
+
+        steps.put("admin", adminCacheRefresher::refresh);
+
+        return steps;
+    }
+
+    private void run(String name, Runnable step) {
+
+        long start = System.nanoTime();
+
+        try {
+            step.run();
+        } catch (RuntimeException ex) {
+            log.warn("Warm-up step '{}' failed: {}", name, ex.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            Timer.builder("rentfix.cache.warmup")
+                    .tag("step", name)
+                    .register(meterRegistry)
+                    .record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Warm-up step '{}' took {} ms", name, TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package app.service;
+
+import app.config.DeletionSettings;
+import app.model.DeletionJob;
+import app.model.enums.DeletionTarget;
+import app.model.enums.JobStatus;
+import app.repository.DeletionJobRepository;
+import app.repository.PaymentRepository;
+import app.repository.PropertyRepository;
+import app.repository.RentalContractRepository;
+import app.repository.RentalContractRepository.ContractKeys;
+import app.repository.UserRepository;
+import app.scheduler.SchedulerLeases;
+import app.scheduler.SchedulerLeases.Lease;
+import app.web.dto.DeletionJobView;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes properties and owners, with their contracts, payments and images, in the background.
+ * <p>
+ * A request only stores a {@link DeletionJob} and returns it. A worker then deletes the target's
+ * properties in batches of {@code rentfix.deletion.batch-size}: each batch removes the payments,
+ * contracts and properties with set-based DELETE statements and advances the job counters in one
+ * transaction. Image folders, in-memory indexes and caches are cleaned up once the batch has
+ * committed. A job reads the remaining property ids when it starts, so a job cut off by a restart
+ * is simply run again by {@link #resumeInterrupted()}. A target has at most one unfinished job,
+ * which a unique key on {@link DeletionJob#getUnfinishedTargetId()} enforces across nodes.
+ */
+@Slf4j
+@Service
+public class CascadeDeletion {
+
+    private static final List<JobStatus> UNFINISHED = List.of(JobStatus.PENDING, JobStatus.RUNNING);
+    private static final String RESUME_LEASE = "deletion-resume";
+    private static final Duration RESUME_AT_MOST = Duration.ofHours(1);
+
+    private final PropertyRepository propertyRepository;
+    private final UserRepository userRepository;
+    private final RentalContractRepository rentalContractRepository;
+    private final PaymentRepository paymentRepository;
+    private final DeletionJobRepository deletionJobRepository;
+    private final TenantLedgerService tenantLedgerService;
+    private final ContractBillingWheel contractBillingWheel;
+    private final PropertySearchIndex propertySearchIndex;
+    private final PropertyFilterEngine propertyFilterEngine;
+    private final CacheInvalidator cacheInvalidator;
+    private final DeletionSettings settings;
+    private final SchedulerLeases schedulerLeases;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate submitTemplate;
+    private final ThreadPoolTaskExecutor workers;
+
+    @Autowired
+    public CascadeDeletion(PropertyRepository propertyRepository, UserRepository userRepository, RentalContractRepository rentalContractRepository, PaymentRepository paymentRepository, DeletionJobRepository deletionJobRepository, TenantLedgerService tenantLedgerService, ContractBillingWheel contractBillingWheel, PropertySearchIndex propertySearchIndex, PropertyFilterEngine propertyFilterEngine, CacheInvalidator cacheInvalidator, DeletionSettings settings, SchedulerLeases schedulerLeases, PlatformTransactionManager transactionManager) {
+        this.propertyRepository = propertyRepository;
+        this.userRepository = userRepository;
+        this.rentalContractRepository = rentalContractRepository;
+        this.paymentRepository = paymentRepository;
+        this.deletionJobRepository = deletionJobRepository;
+        this.tenantLedgerService = tenantLedgerService;
+        this.contractBillingWheel = contractBillingWheel;
+        this.propertySearchIndex = propertySearchIndex;
+        this.propertyFilterEngine = propertyFilterEngine;
+        this.cacheInvalidator = cacheInvalidator;
+        this.settings = settings;
+        this.schedulerLeases = schedulerLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // The job row must be committed before a worker looks for it, even inside the caller's transaction
+        this.submitTemplate = new TransactionTemplate(transactionManager);
+        this.submitTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(settings.getWorkers());
+        this.workers.setMaxPoolSize(settings.getWorkers());
+        this.workers.setThreadNamePrefix("deletion-");
+        this.workers.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    public DeletionJobView deleteProperty(UUID propertyId) {
+
+        if (!propertyRepository.existsById(propertyId)) {
+            throw new IllegalArgumentException("Property not found");
+        }
+
+        return submit(DeletionTarget.PROPERTY, propertyId);
+    }
+
+    /**
+     * Deletes every property of the owner and then the owner's user account.
+     */
+    public DeletionJobView deleteOwner(UUID ownerId) {
+        return submit(DeletionTarget.OWNER, ownerId);
+    }
+
+    public Optional<DeletionJobView> getJob(UUID jobId) {
+        return deletionJobRepository.findById(jobId)
+                .map(DeletionJobView::from);
+    }
+
+    /**
+     * Runs the jobs that were pending or running when the application stopped, one after another.
+     * Nodes starting together would all resume the same jobs, so only the holder of the resume
+     * lease does, and it keeps the lease until the jobs are done.
+     *
+     * @return {@code false} when another node holds the lease
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public boolean resumeInterrupted() {
+
+        Optional<Lease> lease = schedulerLeases.tryAcquire(RESUME_LEASE, RESUME_AT_MOST);
+        if (lease.isEmpty()) {
+            log.info("[Deletion] Another node is resuming the interrupted jobs");
+            return false;
+        }
+
+        workers.execute(() -> {
+            try {
+                for (DeletionJob job : deletionJobRepository.findByStatusInOrderByStartedAt(UNFINISHED)) {
+                    log.info("[Deletion] Resuming job {} for {} {}", job.getId(), job.getTarget(), job.getTargetId());
+                    run(job);
+                }
+            } finally {
+                schedulerLeases.release(lease.get(), Duration.ZERO);
+            }
+        });
+        return true;
+    }
+
+    private DeletionJobView submit(DeletionTarget target, UUID targetId) {
+
+        Optional<DeletionJob> unfinished = deletionJobRepository.findFirstByTargetIdAndStatusIn(targetId, UNFINISHED);
+        if (unfinished.isPresent()) {
+            return DeletionJobView.from(unfinished.get());
+        }
+
+        DeletionJob job;
+        try {
+            job = submitTemplate.execute(status -> deletionJobRepository.saveAndFlush(
+                    new DeletionJob(null, target, targetId, JobStatus.PENDING, 0, 0, 0, 0, LocalDateTime.now(), null, null, null)));
+        } catch (DataIntegrityViolationException ex) {
+            // Another request queued a job for the target since the lookup; read it in a fresh transaction
+            return submitTemplate.execute(status -> deletionJobRepository.findFirstByTargetIdAndStatusIn(targetId, UNFINISHED))
+                    .map(DeletionJobView::from)
+                    .orElseThrow(() -> ex);
+        }
+
+        workers.execute(() -> run(job));
+        log.info("[Deletion] Queued job {} for {} {}", job.getId(), target, targetId);
+
+        return DeletionJobView.from(job);
+    }
+
+    private void run(DeletionJob job) {
+
+        long start = System.nanoTime();
+        UUID targetId = job.getTargetId();
+
+        try {
+            List<UUID> propertyIds;
+            UUID ownerId;
+
+            if (job.getTarget() == DeletionTarget.OWNER) {
+                propertyIds = propertyRepository.findIdsByOwnerId(targetId);
+                ownerId = targetId;
+            } else {
+                ownerId = propertyRepository.findOwnerIdById(targetId).orElse(null);
+                propertyIds = ownerId == null ? List.of() : List.of(targetId);
+            }
+
+            transactionTemplate.executeWithoutResult(status -> deletionJobRepository.start(
+                    job.getId(), JobStatus.RUNNING, job.getDeletedProperties() + propertyIds.size()));
+
+            for (int from = 0; from < propertyIds.size(); from += settings.getBatchSize()) {
+                List<UUID> batch = propertyIds.subList(from, Math.min(from + settings.getBatchSize(), propertyIds.size()));
+
+                List<ContractKeys> contracts = transactionTemplate.execute(status -> deleteBatch(job, batch));
+                cleanUp(batch, ownerId, contracts);
+            }
+
+            if (job.getTarget() == DeletionTarget.OWNER) {
+                transactionTemplate.executeWithoutResult(status -> userRepository.deleteById(targetId));
+                cacheInvalidator.evictMentioning("user", targetId);
+                cacheInvalidator.clear("admin_users");
+                cacheInvalidator.clear("admin_stats");
+            }
+
+            transactionTemplate.executeWithoutResult(status ->
+                    deletionJobRepository.finish(job.getId(), JobStatus.COMPLETED, LocalDateTime.now(), null));
+
+            log.info("[Deletion] Job {} deleted {} {} with {} properties in {} ms", job.getId(), job.getTarget(), targetId,
+                    propertyIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        } catch (RuntimeException ex) {
+            log.warn("[Deletion] Job {} for {} {} failed: {}", job.getId(), job.getTarget(), targetId, ex.getMessage());
+            transactionTemplate.executeWithoutResult(status ->
+                    deletionJobRepository.finish(job.getId(), JobStatus.FAILED, LocalDateTime.now(), abbreviate(ex.getMessage())));
+        }
+    }
+
+    /**
+     * Deletes one batch of properties with their contracts and payments; runs inside the batch transaction.
+     *
+     * @return the deleted contracts, for the cleanup after commit
+     */
+    private List<ContractKeys> deleteBatch(DeletionJob job, List<UUID> propertyIds) {
+
+        List<ContractKeys> contracts = rentalContractRepository.findKeysByPropertyIds(propertyIds);
+
+        // The deleted payments leave their tenants' running balances as well
+        List<TenantLedgerService.Change> removed = paymentRepository.findTotalsOfProperties(propertyIds)
+                .stream()
+                .map(total -> new TenantLedgerService.Change(total.getTenantId(), total.getAmount(), total.getStatus(), null, null))
+                .toList();
+
+        int payments = paymentRepository.deleteAllOfProperties(propertyIds);
+        int deletedContracts = rentalContractRepository.deleteAllOfProperties(propertyIds);
+        propertyRepository.deleteAllByIdInBatch(propertyIds);
+
+        tenantLedgerService.recordAll(removed);
+        deletionJobRepository.recordBatch(job.getId(), propertyIds.size(), deletedContracts, payments);
+
+        return contracts;
+    }
+
+    private void cleanUp(List<UUID> propertyIds, UUID ownerId, List<ContractKeys> contracts) {
+
+        List<Object> keys = new ArrayList<>(propertyIds);
+        for (ContractKeys contract : contracts) {
+            keys.add(contract.getId());
+            keys.add(contract.getTenantId());
+            if (contract.isActive()) {
+                contractBillingWheel.cancel(contract.getId());
+            }
+        }
+
+        for (UUID propertyId : propertyIds) {
+            propertySearchIndex.remove(propertyId);
+            propertyFilterEngine.remove(propertyId);
+            deleteImages(propertyId);
+        }
+
+        List<Object> propertyKeys = new ArrayList<>(propertyIds);
+        propertyKeys.add(ownerId);
+
+        cacheInvalidator.evictMentioning("property", propertyKeys.toArray());
+        cacheInvalidator.evictMentioning("contract", keys.toArray());
+        cacheInvalidator.evictMentioning("payment", keys.toArray());
+        cacheInvalidator.clear("properties_search");
+        cacheInvalidator.clear("admin_properties");
+        cacheInvalidator.clear("admin_contracts");
+        cacheInvalidator.clear("admin_payments");
+        cacheInvalidator.clear("admin_stats");
+    }
+
+    private void deleteImages(UUID propertyId) {
+        try {
+            FileSystemUtils.deleteRecursively(PropertyService.imageFolder(propertyId));
+        } catch (IOException ex) {
+            // The rows are gone either way; a leftover folder is only wasted disk space
+            log.warn("[Deletion] Could not delete the images of property {}: {}", propertyId, ex.getMessage());
+        }
+    }
+
+    private static String abbreviate(String message) {
+        return message == null || message.length() <= 255 ? message : message.substring(0, 255);
+    }
+}
@@ -0,0 +1,147 @@
+package app.service;
+
+import app.repository.RentalContractRepository;
+import app.repository.RentalContractRepository.ContractSchedule;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bills each active contract on its own schedule ({@code startDate + n months}) instead of
+ * recomputing one due date for every contract each day.
+ * <p>
+ * The wheel holds one entry per active contract, dated at the due date of its latest MONTHLY_RENT
+ * payment. When that day comes, the payment for the following month is created and the contract
+ * is rescheduled for the new due date. Each tick therefore only touches the contracts that are due.
+ * <p>
+ * The wheel lives in memory. It is rebuilt from the database at startup and by the periodic
+ * resync, which also picks up contracts that were created or ended on other nodes. Create, cancel
+ * and end on this node update it once their transaction commits, so a rollback leaves no entry behind.
+ */
+@Slf4j
+@Component
+public class ContractBillingWheel {
+
+    private final RentalContractRepository rentalContractRepository;
+    private final MonthlyRentBilling monthlyRentBilling;
+
+    private final Map<UUID, LocalDate> startDates = new HashMap<>();
+    private TimingWheel<UUID> wheel = new TimingWheel<>(LocalDate.now().minusDays(1));
+
+    @Autowired
+    public ContractBillingWheel(RentalContractRepository rentalContractRepository, MonthlyRentBilling monthlyRentBilling, MeterRegistry meterRegistry) {
+        this.rentalContractRepository = rentalContractRepository;
+        this.monthlyRentBilling = monthlyRentBilling;
+        meterRegistry.gauge("rentfix.billing.wheel.size", this, ContractBillingWheel::size);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+
+        long start = System.currentTimeMillis();
+        List<ContractSchedule> schedules = rentalContractRepository.findActiveSchedules();
+
+        TimingWheel<UUID> rebuilt = new TimingWheel<>(LocalDate.now().minusDays(1));
+        Map<UUID, LocalDate> starts = new HashMap<>();
+
+        for (ContractSchedule schedule : schedules) {
+            LocalDate lastDue = schedule.getLastDueDate() != null ? schedule.getLastDueDate() : schedule.getStartDate();
+            rebuilt.schedule(schedule.getId(), lastDue);
+            starts.put(schedule.getId(), schedule.getStartDate());
+        }
+
+        synchronized (this) {
+            wheel = rebuilt;
+            startDates.clear();
+            startDates.putAll(starts);
+        }
+
+        log.info("[Billing] Due-date wheel rebuilt with {} contracts in {} ms",
+                schedules.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Registers a contract whose latest MONTHLY_RENT payment is due on {@code lastDueDate}.
+     */
+    public void schedule(UUID contractId, LocalDate startDate, LocalDate lastDueDate) {
+        AfterCommit.run(() -> scheduleNow(contractId, startDate, lastDueDate));
+    }
+
+    public void cancel(UUID contractId) {
+        AfterCommit.run(() -> cancelNow(contractId));
+    }
+
+    private synchronized void scheduleNow(UUID contractId, LocalDate startDate, LocalDate lastDueDate) {
+        startDates.put(contractId, startDate);
+        wheel.schedule(contractId, lastDueDate);
+    }
+
+    private synchronized void cancelNow(UUID contractId) {
+        startDates.remove(contractId);
+        wheel.cancel(contractId);
+    }
+
+    /**
+     * Creates the next MONTHLY_RENT payment for every contract that is due up to {@code today},
+     * through one {@link MonthlyRentBilling} job; returns how many payments were created.
+     * The job also finishes the chunks earlier runs left unbilled, so it runs even when nothing is due.
+     */
+    public int tick(LocalDate today) {
+
+        Map<UUID, LocalDate> nextDue = new LinkedHashMap<>();
+
+        synchronized (this) {
+            for (TimingWheel.Due<UUID> due : wheel.advanceTo(today)) {
+                LocalDate startDate = startDates.get(due.key());
+                if (startDate != null) {
+                    nextDue.put(due.key(), nextDueDate(startDate, due.date()));
+                }
+            }
+        }
+
+        int created = monthlyRentBilling.billDue(today, nextDue);
+
+        synchronized (this) {
+            nextDue.forEach((contractId, dueDate) -> {
+                if (startDates.containsKey(contractId)) {
+                    wheel.schedule(contractId, dueDate);
+                }
+            });
+        }
+
+        log.info("[Billing] {} contracts due by {}, {} payments created", nextDue.size(), today, created);
+        return created;
+    }
+
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    /**
+     * First date of the contract's schedule after {@code after}, in a later calendar month,
+     * so a contract is never billed twice for one month.
+     */
+    static LocalDate nextDueDate(LocalDate startDate, LocalDate after) {
+
+        long months = Math.max(0, ChronoUnit.MONTHS.between(startDate, after));
+        LocalDate candidate = startDate.plusMonths(months);
+
+        while (!candidate.isAfter(after) || YearMonth.from(candidate).equals(YearMonth.from(after))) {
+            candidate = startDate.plusMonths(++months);
+        }
+
+        return candidate;
+    }
+}
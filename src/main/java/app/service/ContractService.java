@@ -11,9 +11,13 @@ import app.repository.PropertyRepository;
 import app.repository.RentalContractRepository;
 import app.repository.UserRepository;
 import app.web.dto.ContractRequest;
+import app.web.dto.ContractView;
+import app.web.dto.PropertyContractView;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
@@ -28,17 +32,29 @@ public class ContractService {
     private final PropertyRepository propertyRepository;
     private final UserRepository userRepository;
     private final PaymentService paymentService;
+    private final PropertyFilterEngine propertyFilterEngine;
+    private final CacheInvalidator cacheInvalidator;
+    private final ContractBillingWheel contractBillingWheel;
 
     @Autowired
-    public ContractService(RentalContractRepository rentalContractRepository, PropertyRepository propertyRepository, UserRepository userRepository, PaymentService paymentService) {
+    public ContractService(RentalContractRepository rentalContractRepository, PropertyRepository propertyRepository, UserRepository userRepository, PaymentService paymentService, PropertyFilterEngine propertyFilterEngine, CacheInvalidator cacheInvalidator, ContractBillingWheel contractBillingWheel) {
         this.rentalContractRepository = rentalContractRepository;
         this.propertyRepository = propertyRepository;
         this.userRepository = userRepository;
         this.paymentService = paymentService;
+        this.propertyFilterEngine = propertyFilterEngine;
+        this.cacheInvalidator = cacheInvalidator;
+        this.contractBillingWheel = contractBillingWheel;
     }
 
+    /**
+     * Rents the property to the tenant. Concurrent requests are settled by the database rather than
+     * by locks held across the whole method: the property is claimed with a conditional update, so
+     * the loser of a race waits only for that row and then fails fast; the unique active-contract
+     * keys on {@link RentalContract} reject anything that slips past, such as one tenant renting
+     * two properties at once.
+     */
     @Transactional
-    @CacheEvict(value = {"contract", "property"}, allEntries = true)
     public void create(UUID propertyId, UUID tenantId, ContractRequest request) {
 
         //Tenant must NOT have an active contract
@@ -46,13 +62,19 @@ public class ContractService {
             throw new IllegalStateException("You already have an active contract.");
         }
 
-        Property property = propertyRepository.findById(propertyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
-
-        if (property.getStatus() != Status.AVAILABLE) {
+        if (propertyRepository.markRentedIfAvailable(propertyId) == 0) {
+            if (!propertyRepository.existsById(propertyId)) {
+                throw new ResourceNotFoundException("Property not found");
+            }
+            log.info("Tenant {} lost the race for property {}", tenantId, propertyId);
             throw new IllegalStateException("This property is already rented.");
         }
 
+        Property property = propertyRepository.findById(propertyId)
+                .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
+        // Already RENTED in the database; this only refreshes a copy loaded earlier in the transaction
+        property.setStatus(Status.RENTED);
+
         User tenant = userRepository.findById(tenantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Tenant not found"));
 
@@ -63,17 +85,21 @@ public class ContractService {
         contract.setMonthlyRent(property.getMonthlyRent());
         contract.setActive(true);
 
-        rentalContractRepository.save(contract);
+        try {
+            rentalContractRepository.saveAndFlush(contract);
+        } catch (DataIntegrityViolationException ex) {
+            throw new IllegalStateException("You already have an active contract.");
+        }
         paymentService.createInitialPaymentsForNewContract(contract);
         paymentService.createFirstMonthlyRentPayment(contract);
+        contractBillingWheel.schedule(contract.getId(), contract.getStartDate(), contract.getStartDate().plusMonths(1));
 
-        property.setStatus(Status.RENTED);
-        propertyRepository.save(property);
+        propertyFilterEngine.upsert(property);
+        evictAffected(contract);
         log.info("Contract created for tenant {} on property {}", tenantId, propertyId);
     }
 
     @Transactional
-    @CacheEvict(value = {"contract", "property"}, allEntries = true)
     public void cancel(UUID contractId, UUID tenantId) {
 
         RentalContract contract = rentalContractRepository.findById(contractId)
@@ -90,39 +116,84 @@ public class ContractService {
         contract.setActive(false);
         contract.setEndDate(LocalDate.now());
         rentalContractRepository.save(contract);
+        contractBillingWheel.cancel(contractId);
         Property property = contract.getProperty();
         property.setStatus(Status.AVAILABLE);
         propertyRepository.save(property);
+        propertyFilterEngine.upsert(property);
+        evictAffected(contract);
         log.info("Tenant {} moved out of contract {}", tenantId, contractId);
     }
 
-    @Cacheable(value = "contract", key = "#root.methodName + '_' + #tenantId")
-    public RentalContract getActiveContract(UUID tenantId) {
-        return rentalContractRepository.findByTenantIdAndActiveTrue(tenantId)
+    /**
+     * A contract change touches the tenant's and property's contract views and the
+     * property's status; search pages can gain or lose the property, so they are cleared.
+     */
+    private void evictAffected(RentalContract contract) {
+        Property property = contract.getProperty();
+
+        cacheInvalidator.evictMentioning("contract",
+                contract.getId(), contract.getTenant().getId(), property.getId());
+        cacheInvalidator.evictMentioning("property",
+                property.getId(), property.getOwner() == null ? null : property.getOwner().getId());
+        cacheInvalidator.clear("properties_search");
+    }
+
+    /**
+     * Fills the active-contract keys of contracts created before they existed; fails and logs
+     * if the data already holds two active contracts for one property or tenant.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillActiveKeys() {
+        try {
+            int updated = rentalContractRepository.backfillActiveKeys();
+            if (updated > 0) {
+                log.info("Filled active-contract keys of {} contracts", updated);
+            }
+        } catch (DataIntegrityViolationException ex) {
+            log.error("Active contracts overlap, double bookings must be ended by an admin: {}", ex.getMessage());
+        }
+    }
+
+    @Cacheable(value = "contract", key = "{#root.methodName, #tenantId}")
+    public ContractView getActiveContract(UUID tenantId) {
+        return rentalContractRepository.findWithPropertyByTenantIdAndActiveTrue(tenantId)
+                .map(ContractView::from)
                 .orElse(null);
     }
 
-    @Cacheable(value = "contract", key = "#root.methodName + '_' + #tenantId")
-    public List<RentalContract> getHistoryForTenant(UUID tenantId) {
-        return rentalContractRepository.findByTenantIdOrderByStartDateDesc(tenantId);
+    @Cacheable(value = "contract", key = "{#root.methodName, #tenantId}")
+    public List<ContractView> getHistoryForTenant(UUID tenantId) {
+        return rentalContractRepository.findByTenantIdOrderByStartDateDesc(tenantId)
+                .stream()
+                .map(ContractView::from)
+                .toList();
     }
 
-    @Cacheable(value = "contract", key = "#root.methodName + '_' + #propertyId")
-    public List<RentalContract> getByProperty(UUID propertyId) {
-        return rentalContractRepository.findByPropertyId(propertyId);
+    @Cacheable(value = "contract", key = "{#root.methodName, #propertyId}")
+    public List<PropertyContractView> getByProperty(UUID propertyId) {
+        return rentalContractRepository.findByPropertyId(propertyId)
+                .stream()
+                .map(PropertyContractView::from)
+                .toList();
     }
 
-    @Cacheable(value = "contract", key = "#root.methodName + '_' + #contractId")
-    public RentalContract getById(UUID contractId) {
-        return rentalContractRepository.getById(contractId);
+    @Cacheable(value = "contract", key = "{#root.methodName, #contractId}")
+    public ContractView getById(UUID contractId) {
+        return rentalContractRepository.findWithPropertyAndTenantById(contractId)
+                .map(ContractView::from)
+                .orElseThrow(() -> new ResourceNotFoundException("Contract not found"));
     }
 
-    @Cacheable(value = "contract", key = "#root.methodName + '_' + #tenantId")
-    public List<RentalContract> getFullHistoryForTenant(UUID tenantId) {
-        return rentalContractRepository.findFullHistoryForTenant(tenantId);
+    @Cacheable(value = "contract", key = "{#root.methodName, #tenantId}")
+    public List<ContractView> getFullHistoryForTenant(UUID tenantId) {
+        return rentalContractRepository.findFullHistoryForTenant(tenantId)
+                .stream()
+                .map(ContractView::from)
+                .toList();
     }
 
-    @Cacheable(value = "contract", key = "#root.methodName + '_' + #userId")
+    @Cacheable(value = "contract", key = "{#root.methodName, #userId}")
     public UUID getActivePropertyId(UUID userId) {
 
         RentalContract contract = rentalContractRepository
@@ -0,0 +1,180 @@
+package app.service;
+
+import app.web.dto.ContractExportRow;
+import app.web.dto.PaymentExportRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.AvailableHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes payments and contracts to CSV or NDJSON for the admin exports.
+ * <p>
+ * Rows are read through a forward-only result stream with a JDBC fetch size and written out as
+ * they arrive, so memory use does not grow with the table. The queries select flat DTO rows
+ * instead of entities, which keeps the persistence context empty for the whole export.
+ */
+@Slf4j
+@Service
+public class ExportService {
+
+    private static final String PAYMENTS = """
+            SELECT new app.web.dto.PaymentExportRow(p.id, c.id, t.username, pr.title, p.type, p.status, p.amount, p.dueDate, p.paidAt)
+            FROM Payment p
+            LEFT JOIN p.contract c
+            LEFT JOIN c.tenant t
+            LEFT JOIN c.property pr
+            ORDER BY p.dueDate, p.id
+            """;
+
+    private static final String CONTRACTS = """
+            SELECT new app.web.dto.ContractExportRow(c.id, pr.id, pr.title, pr.city, t.username, c.monthlyRent, c.startDate, c.endDate, c.active)
+            FROM RentalContract c
+            LEFT JOIN c.property pr
+            LEFT JOIN c.tenant t
+            ORDER BY c.startDate, c.id
+            """;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Unsupported export format: " + value);
+            }
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int fetchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ExportService(ObjectMapper objectMapper, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, @Value("${rentfix.export.fetch-size:1000}") int fetchSize) {
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.meterRegistry = meterRegistry;
+        this.fetchSize = fetchSize;
+    }
+
+    public long exportPayments(OutputStream out, Format format) {
+        return export("payments", PAYMENTS, PaymentExportRow.class, PaymentExportRow.COLUMNS, PaymentExportRow::values, out, format);
+    }
+
+    public long exportContracts(OutputStream out, Format format) {
+        return export("contracts", CONTRACTS, ContractExportRow.class, ContractExportRow.COLUMNS, ContractExportRow::values, out, format);
+    }
+
+    private <T> long export(String name, String jpql, Class<T> type, List<String> columns, Function<T, List<Object>> values,
+                            OutputStream out, Format format) {
+
+        long start = System.nanoTime();
+
+        Long rows = transactionTemplate.execute(status -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+            try (Stream<T> stream = entityManager.createQuery(jpql, type)
+                    .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                    .setHint(AvailableHints.HINT_READ_ONLY, true)
+                    .getResultStream()) {
+
+                if (format == Format.CSV) {
+                    writeCsvLine(writer, columns);
+                }
+
+                long count = 0;
+                for (T row : (Iterable<T>) stream::iterator) {
+                    if (format == Format.CSV) {
+                        writeCsvLine(writer, values.apply(row));
+                    } else {
+                        writer.write(objectMapper.writeValueAsString(row));
+                        writer.write('\n');
+                    }
+                    count++;
+                }
+
+                writer.flush();
+                return count;
+            } catch (IOException ex) {
+                // Usually the client went away; the read-only transaction is simply rolled back
+                throw new UncheckedIOException(ex);
+            }
+        });
+
+        meterRegistry.counter("rentfix.export.rows", "dataset", name, "format", format.extension()).increment(rows);
+        log.info("Exported {} {} as {} in {} ms", rows, name, format, (System.nanoTime() - start) / 1_000_000);
+
+        return rows;
+    }
+
+    private static void writeCsvLine(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+
+        String text = value.toString();
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+
+        // Keep spreadsheet apps from evaluating user-entered text as a formula; some skip a leading tab or CR first
+        if (!text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0 && !(value instanceof Number)) {
+            text = "'" + text;
+        }
+
+        return quote ? '"' + text.replace("\"", "\"\"") + '"' : text;
+    }
+}
@@ -0,0 +1,181 @@
+package app.service;
+
+import app.config.LateFeeSettings;
+import app.model.Payment;
+import app.model.RentalContract;
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+import app.repository.PaymentRepository;
+import app.repository.PaymentRepository.UnpaidPayment;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Charges late fees on unpaid monthly rent according to {@link LateFeeSettings}.
+ * <p>
+ * Each overdue rent payment gets at most one LATE_FEE payment with the same due date. While the fee
+ * is unpaid, its amount grows as the rent reaches further escalation tiers. A fee that has been
+ * paid or cancelled is left alone. Overdue rents are streamed in keyset batches by id, each batch
+ * in its own transaction. The rules are compiled once into a {@link LateFeePlan}, so evaluating
+ * a payment is plain long arithmetic.
+ */
+@Slf4j
+@Service
+public class LateFeeEngine {
+
+    private static final List<PaymentStatus> UNPAID = List.of(PaymentStatus.PENDING, PaymentStatus.OVERDUE);
+    private static final UUID FIRST = new UUID(0, 0);
+
+    private final PaymentRepository paymentRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final TenantLedgerService tenantLedgerService;
+    private final LateFeeSettings settings;
+    private final LateFeePlan plan;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public LateFeeEngine(PaymentRepository paymentRepository, CacheInvalidator cacheInvalidator, TenantLedgerService tenantLedgerService, LateFeeSettings settings, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.tenantLedgerService = tenantLedgerService;
+        this.settings = settings;
+        this.plan = LateFeePlan.compile(settings);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Result run(LocalDate today) {
+
+        if (!settings.isEnabled()) {
+            return new Result(0, 0, 0);
+        }
+
+        long start = System.nanoTime();
+        LocalDate dueBefore = today.minusDays(plan.graceDays());
+
+        int evaluated = 0;
+        int created = 0;
+        int escalated = 0;
+        UUID after = FIRST;
+
+        while (true) {
+            List<UnpaidPayment> batch = paymentRepository.findOverdueRents(UNPAID, dueBefore, after, Limit.of(settings.getBatchSize()));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            Result result;
+            try {
+                result = transactionTemplate.execute(status -> apply(batch, today));
+            } catch (DataIntegrityViolationException ex) {
+                // A fee of this batch was written concurrently; the reload sees it now
+                result = transactionTemplate.execute(status -> apply(batch, today));
+            }
+
+            evaluated += result.evaluated();
+            created += result.created();
+            escalated += result.escalated();
+            after = batch.get(batch.size() - 1).getId();
+
+            if (batch.size() < settings.getBatchSize()) {
+                break;
+            }
+        }
+
+        if (created + escalated > 0) {
+            cacheInvalidator.clear("payment");
+            cacheInvalidator.clear("admin_payments");
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("rentfix.late-fees.run")
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        log.info("[LateFees] {} overdue rents evaluated, {} fees created, {} escalated in {} ms",
+                evaluated, created, escalated, TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+        return new Result(evaluated, created, escalated);
+    }
+
+    private Result apply(List<UnpaidPayment> batch, LocalDate today) {
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(settings.getBatchSize());
+
+        Map<FeeKey, Payment> fees = paymentRepository.findLateFees(
+                        batch.stream().map(UnpaidPayment::getContractId).collect(Collectors.toSet()),
+                        batch.stream().map(UnpaidPayment::getDueDate).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(f -> new FeeKey(f.getContract().getId(), f.getDueDate()), Function.identity(), (a, b) -> a));
+
+        int escalated = 0;
+        List<Payment> created = new ArrayList<>();
+        List<TenantLedgerService.Change> changes = new ArrayList<>();
+
+        for (UnpaidPayment rent : batch) {
+
+            long feeCents = plan.feeCents(Money.cents(rent.getAmount()),
+                    ChronoUnit.DAYS.between(rent.getDueDate(), today));
+            if (feeCents == 0) {
+                continue;
+            }
+
+            BigDecimal amount = BigDecimal.valueOf(feeCents, 2);
+            Payment fee = fees.get(new FeeKey(rent.getContractId(), rent.getDueDate()));
+
+            if (fee == null) {
+                fee = new Payment();
+                fee.setContract(entityManager.getReference(RentalContract.class, rent.getContractId()));
+                fee.setAmount(amount);
+                fee.setDueDate(rent.getDueDate());
+                fee.setStatus(PaymentStatus.PENDING);
+                fee.setType(PaymentType.LATE_FEE);
+                created.add(fee);
+                changes.add(TenantLedgerService.Change.created(rent.getTenantId(), amount, fee.getStatus()));
+            } else if (UNPAID.contains(fee.getStatus()) && fee.getAmount().compareTo(amount) < 0) {
+                changes.add(new TenantLedgerService.Change(rent.getTenantId(), fee.getAmount(), fee.getStatus(), amount, fee.getStatus()));
+                fee.setAmount(amount);
+                escalated++;
+            }
+        }
+
+        // Through the repository, so a duplicate fee surfaces as DataIntegrityViolationException;
+        // the flush also writes the escalated fees
+        paymentRepository.saveAllAndFlush(created);
+        entityManager.clear();
+        tenantLedgerService.recordAll(changes);
+
+        return new Result(batch.size(), created.size(), escalated);
+    }
+
+    public record Result(int evaluated, int created, int escalated) {
+    }
+
+    private record FeeKey(UUID contractId, LocalDate dueDate) {
+    }
+}
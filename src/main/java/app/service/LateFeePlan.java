@@ -0,0 +1,111 @@
+package app.service;
+
+import app.config.LateFeeSettings;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The late-fee rules compiled into flat arrays. All amounts are in cents and percentages
+ * are in basis points, so evaluating one payment needs no allocation and no BigDecimal
+ * arithmetic. {@code tierByDay} maps each number of days late straight to the highest
+ * tier reached.
+ */
+final class LateFeePlan {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final int graceDays;
+    private final long maxTotalBasisPoints;
+    private final long[] flatCents;
+    private final long[] percentBasisPoints;
+    private final long[] capCents;
+    private final int[] tierByDay;
+
+    private LateFeePlan(int graceDays, long maxTotalBasisPoints, long[] flatCents, long[] percentBasisPoints, long[] capCents, int[] tierByDay) {
+        this.graceDays = graceDays;
+        this.maxTotalBasisPoints = maxTotalBasisPoints;
+        this.flatCents = flatCents;
+        this.percentBasisPoints = percentBasisPoints;
+        this.capCents = capCents;
+        this.tierByDay = tierByDay;
+    }
+
+    static LateFeePlan compile(LateFeeSettings settings) {
+
+        if (settings.getGraceDays() < 0) {
+            throw new IllegalArgumentException("Late-fee grace days must not be negative");
+        }
+
+        List<LateFeeSettings.Tier> tiers = settings.getTiers().stream()
+                .sorted(Comparator.comparingInt(LateFeeSettings.Tier::getAfterDays))
+                .toList();
+
+        int count = tiers.size();
+        long[] flat = new long[count];
+        long[] percent = new long[count];
+        long[] cap = new long[count];
+
+        for (int i = 0; i < count; i++) {
+            LateFeeSettings.Tier tier = tiers.get(i);
+            if (tier.getAfterDays() < 0) {
+                throw new IllegalArgumentException("Late-fee tier after-days must not be negative");
+            }
+            flat[i] = cents(tier.getFlat(), 0);
+            percent[i] = basisPoints(tier.getPercent(), 0);
+            cap[i] = cents(tier.getCap(), UNLIMITED);
+        }
+
+        int lastStart = count == 0 ? 0 : tiers.get(count - 1).getAfterDays();
+        int[] tierByDay = new int[lastStart + 1];
+        for (int day = 0, tier = -1; day <= lastStart; day++) {
+            while (tier + 1 < count && tiers.get(tier + 1).getAfterDays() <= day) {
+                tier++;
+            }
+            tierByDay[day] = tier;
+        }
+
+        return new LateFeePlan(settings.getGraceDays(), basisPoints(settings.getMaxTotalPercent(), UNLIMITED),
+                flat, percent, cap, tierByDay);
+    }
+
+    /**
+     * Total fee in cents for a payment of {@code amountCents} that is {@code daysLate} days past due.
+     */
+    long feeCents(long amountCents, long daysLate) {
+
+        // The first day after the grace period is day 0 of the tiers
+        long afterGrace = daysLate - graceDays - 1;
+        if (afterGrace < 0 || flatCents.length == 0) {
+            return 0;
+        }
+
+        int highest = tierByDay[(int) Math.min(afterGrace, tierByDay.length - 1)];
+        long total = 0;
+
+        for (int i = 0; i <= highest; i++) {
+            long charge = flatCents[i] + amountCents * percentBasisPoints[i] / 10_000;
+            total += Math.min(charge, capCents[i]);
+        }
+
+        if (maxTotalBasisPoints != UNLIMITED) {
+            total = Math.min(total, amountCents * maxTotalBasisPoints / 10_000);
+        }
+
+        return total;
+    }
+
+    int graceDays() {
+        return graceDays;
+    }
+
+    private static long cents(BigDecimal amount, long fallback) {
+        return amount == null ? fallback : Money.cents(amount);
+    }
+
+    private static long basisPoints(BigDecimal percent, long fallback) {
+        return percent == null ? fallback : percent.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
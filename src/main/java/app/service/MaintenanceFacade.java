@@ -8,6 +8,7 @@ import app.feign.dto.MaintenanceView;
 import app.model.Property;
 import app.model.User;
 import app.model.enums.MaintenanceStatus;
+import app.web.dto.PropertyView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -17,17 +18,23 @@ import java.util.stream.Collectors;
 @Service
 public class MaintenanceFacade {
 
+    private static final String ALL = "all";
+
     private final MaintenanceClient maintenanceClient;
     private final PropertyService propertyService;
     private final UserService userService;
     private final ContractService contractService;
+    private final SingleFlightCache singleFlightCache;
+    private final CacheInvalidator cacheInvalidator;
 
     @Autowired
-    public MaintenanceFacade(MaintenanceClient maintenanceClient, PropertyService propertyService, UserService userService, ContractService contractService) {
+    public MaintenanceFacade(MaintenanceClient maintenanceClient, PropertyService propertyService, UserService userService, ContractService contractService, SingleFlightCache singleFlightCache, CacheInvalidator cacheInvalidator) {
         this.maintenanceClient = maintenanceClient;
         this.propertyService = propertyService;
         this.userService = userService;
         this.contractService = contractService;
+        this.singleFlightCache = singleFlightCache;
+        this.cacheInvalidator = cacheInvalidator;
     }
 
     public void createForTenant(UUID tenantId, String description) {
@@ -37,8 +44,7 @@ public class MaintenanceFacade {
             throw new IllegalStateException("You don't have an active property.");
         }
 
-        Property property = propertyService.getById(propertyId);
-        UUID ownerId = property.getOwner().getId();
+        UUID ownerId = propertyService.getById(propertyId).ownerId();
 
         MaintenanceCreateRequest request = new MaintenanceCreateRequest();
         request.setPropertyId(propertyId);
@@ -47,6 +53,8 @@ public class MaintenanceFacade {
         request.setDescription(description);
 
         maintenanceClient.create(request);
+        cacheInvalidator.evictMentioning("maintenance", ALL, propertyId);
+        cacheInvalidator.clear("admin_maintenance");
     }
 
     public List<MaintenanceView> getForTenant(UUID tenantId) {
@@ -56,11 +64,12 @@ public class MaintenanceFacade {
             return List.of();
         }
 
-        List<MaintenanceResponse> responses = maintenanceClient.getByProperty(propertyId);
+        List<MaintenanceResponse> responses = singleFlightCache.get("maintenance", propertyId,
+                () -> maintenanceClient.getByProperty(propertyId));
 
-        Property property = propertyService.getById(propertyId);
+        PropertyView property = propertyService.getById(propertyId);
         User tenant = userService.getById(tenantId);
-        User owner = userService.getById(property.getOwner().getId());
+        User owner = userService.getById(property.ownerId());
 
         return responses.stream()
                 .map(r -> {
@@ -71,8 +80,8 @@ public class MaintenanceFacade {
                     v.setCreatedAt(r.getCreatedAt());
 
                     v.setPropertyId(r.getPropertyId());
-                    v.setPropertyTitle(property.getTitle());
-                    v.setPropertyCity(property.getCity());
+                    v.setPropertyTitle(property.title());
+                    v.setPropertyCity(property.city());
 
                     v.setTenantName(tenant.getUsername());
                     v.setOwnerName(owner.getUsername());
@@ -96,7 +105,7 @@ public class MaintenanceFacade {
                 .map(Property::getId)
                 .collect(Collectors.toSet());
 
-        List<MaintenanceResponse> all = maintenanceClient.getAll();
+        List<MaintenanceResponse> all = loadAll();
 
         List<MaintenanceResponse> filtered = all.stream()
                 .filter(r -> ownerPropertyIds.contains(r.getPropertyId()))
@@ -144,7 +153,7 @@ public class MaintenanceFacade {
     }
 
     public List<MaintenanceView> getAll() {
-        List<MaintenanceResponse> responses = maintenanceClient.getAll();
+        List<MaintenanceResponse> responses = loadAll();
         if (responses.isEmpty()) {
             return List.of();
         }
@@ -199,10 +208,26 @@ public class MaintenanceFacade {
         MaintenanceUpdateStatusRequest request = new MaintenanceUpdateStatusRequest();
         request.setStatus(newStatus);
         maintenanceClient.updateStatus(id, request);
+        evictAll();
     }
 
     public void delete(UUID id) {
         maintenanceClient.delete(id);
+        evictAll();
+    }
+
+    /**
+     * The full ticket list is shared by the owner and admin views, so concurrent
+     * readers wait on one Feign call and stale lists are reloaded in the background.
+     */
+    private List<MaintenanceResponse> loadAll() {
+        return singleFlightCache.get("maintenance", ALL, maintenanceClient::getAll);
+    }
+
+    private void evictAll() {
+        // Status and delete calls only carry the ticket id, not its property
+        cacheInvalidator.clear("maintenance");
+        cacheInvalidator.clear("admin_maintenance");
     }
 
     public int getCountForOwner(UUID ownerId) {
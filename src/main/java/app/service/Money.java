@@ -0,0 +1,23 @@
+package app.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts as whole cents, for matching and fee arithmetic on {@code long}s
+ * instead of {@link BigDecimal}s of varying scale.
+ */
+final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * The amount in cents, rounded half up.
+     *
+     * @throws ArithmeticException if the amount does not fit in a {@code long}
+     */
+    static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
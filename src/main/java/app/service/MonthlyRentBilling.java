@@ -0,0 +1,344 @@
+package app.service;
+
+import app.config.BillingSettings;
+import app.model.BillingChunk;
+import app.model.BillingJob;
+import app.model.Payment;
+import app.model.RentalContract;
+import app.model.enums.JobStatus;
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+import app.repository.BillingChunkRepository;
+import app.repository.BillingJobRepository;
+import app.repository.PaymentRepository;
+import app.repository.RentalContractRepository;
+import app.repository.RentalContractRepository.ContractRent;
+import app.web.dto.BillingJobView;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the MONTHLY_RENT payments for the contracts the {@link ContractBillingWheel} finds due,
+ * as a resumable job.
+ * <p>
+ * A run is planned once: the due contracts, each with the due date of its next payment, are split
+ * into chunks of {@code rentfix.billing.chunk-size} and stored as {@link BillingChunk} rows under a
+ * {@link BillingJob}. The chunks are then billed on a bounded worker pool. Each chunk inserts its
+ * payments in JDBC batches of {@code rentfix.billing.batch-size} and records its checkpoint in one
+ * transaction, so a chunk is either fully billed and marked completed, or not at all. Chunks left
+ * unfinished by a failure or a restart are billed again by the next run, or by
+ * {@link #resumeInterrupted()} at startup.
+ * <p>
+ * Per due date, one NOT EXISTS query picks the batch's active contracts that have no payment yet,
+ * so a rerun or a catch-up after downtime never bills twice. A concurrent writer is stopped by the
+ * (contract, type, dueDate) unique constraint; the chunk is then retried once and the query skips
+ * the rows committed in the meantime.
+ */
+@Slf4j
+@Service
+public class MonthlyRentBilling {
+
+    private static final List<JobStatus> UNFINISHED = List.of(JobStatus.RUNNING, JobStatus.FAILED);
+
+    private final RentalContractRepository rentalContractRepository;
+    private final PaymentRepository paymentRepository;
+    private final BillingJobRepository billingJobRepository;
+    private final BillingChunkRepository billingChunkRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final TenantLedgerService tenantLedgerService;
+    private final BillingSettings settings;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter createdCounter;
+    private final ThreadPoolTaskExecutor workers;
+
+    // One run at a time per instance; the scheduler and the startup resume may overlap
+    private final ReentrantLock runLock = new ReentrantLock();
+    private final AtomicInteger remainingChunks = new AtomicInteger();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public MonthlyRentBilling(RentalContractRepository rentalContractRepository, PaymentRepository paymentRepository, BillingJobRepository billingJobRepository, BillingChunkRepository billingChunkRepository, CacheInvalidator cacheInvalidator, TenantLedgerService tenantLedgerService, BillingSettings settings, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.rentalContractRepository = rentalContractRepository;
+        this.paymentRepository = paymentRepository;
+        this.billingJobRepository = billingJobRepository;
+        this.billingChunkRepository = billingChunkRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.tenantLedgerService = tenantLedgerService;
+        this.settings = settings;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.createdCounter = Counter.builder("rentfix.billing.payments.created")
+                .register(meterRegistry);
+        meterRegistry.gauge("rentfix.billing.chunks.remaining", remainingChunks);
+
+        this.workers = new ThreadPoolTaskExecutor();
+        this.workers.setCorePoolSize(settings.getWorkers());
+        this.workers.setMaxPoolSize(settings.getWorkers());
+        this.workers.setThreadNamePrefix("billing-");
+        this.workers.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Creates the MONTHLY_RENT payment due on the given date for each of the given contracts,
+     * as a job planned for {@code runDate}. Unfinished jobs of earlier runs are finished first.
+     * Inactive contracts and payments that already exist are skipped.
+     *
+     * @return the number of payments created by this call
+     */
+    public int billDue(LocalDate runDate, Map<UUID, LocalDate> dueByContract) {
+
+        runLock.lock();
+        try {
+            int created = resume();
+            if (!dueByContract.isEmpty()) {
+                created += run(plan(runDate, dueByContract));
+            }
+            return created;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Finishes the jobs that were still running when the application stopped, or that had failed chunks.
+     */
+    public int resumeInterrupted() {
+
+        runLock.lock();
+        try {
+            return resume();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public Optional<BillingJobView> getLatestJob() {
+        return billingJobRepository.findFirstByOrderByStartedAtDesc()
+                .map(BillingJobView::from);
+    }
+
+    private int resume() {
+
+        int created = 0;
+        for (BillingJob job : billingJobRepository.findByStatusInOrderByStartedAt(UNFINISHED)) {
+            created += run(job);
+        }
+        return created;
+    }
+
+    private BillingJob plan(LocalDate runDate, Map<UUID, LocalDate> dueByContract) {
+
+        return transactionTemplate.execute(status -> {
+
+            BillingJob job = new BillingJob();
+            job.setRunDate(runDate);
+            job.setStatus(JobStatus.RUNNING);
+            job.setTotalContracts(dueByContract.size());
+            job.setStartedAt(LocalDateTime.now());
+
+            List<BillingChunk> chunks = new ArrayList<>();
+            Map<UUID, LocalDate> due = new LinkedHashMap<>();
+
+            for (Map.Entry<UUID, LocalDate> entry : dueByContract.entrySet()) {
+                due.put(entry.getKey(), entry.getValue());
+                if (due.size() == settings.getChunkSize()) {
+                    chunks.add(chunk(job, chunks.size(), due));
+                    due.clear();
+                }
+            }
+            if (!due.isEmpty()) {
+                chunks.add(chunk(job, chunks.size(), due));
+            }
+
+            job.setTotalChunks(chunks.size());
+            billingJobRepository.save(job);
+            billingChunkRepository.saveAll(chunks);
+
+            log.info("[Billing] Planned job {} for {}: {} due contracts in {} chunks",
+                    job.getId(), runDate, dueByContract.size(), chunks.size());
+
+            return job;
+        });
+    }
+
+    private static BillingChunk chunk(BillingJob job, int chunkNo, Map<UUID, LocalDate> due) {
+        BillingChunk chunk = new BillingChunk();
+        chunk.setJob(job);
+        chunk.setChunkNo(chunkNo);
+        chunk.setDueDates(due);
+        chunk.setStatus(JobStatus.PENDING);
+        return chunk;
+    }
+
+    private int run(BillingJob job) {
+
+        long start = System.nanoTime();
+        List<BillingChunk> chunks = billingChunkRepository.findByJobIdAndStatusNotOrderByChunkNo(job.getId(), JobStatus.COMPLETED);
+
+        if (job.getStatus() != JobStatus.RUNNING) {
+            transactionTemplate.executeWithoutResult(status -> billingJobRepository.restart(job.getId(), JobStatus.RUNNING));
+        }
+        if (chunks.size() < job.getTotalChunks()) {
+            log.info("[Billing] Resuming job {} of {}: {} of {} chunks left",
+                    job.getId(), job.getRunDate(), chunks.size(), job.getTotalChunks());
+        }
+
+        remainingChunks.set(chunks.size());
+
+        List<CompletableFuture<Integer>> running = chunks.stream()
+                .map(chunk -> CompletableFuture.supplyAsync(() -> bill(job, chunk), workers))
+                .toList();
+
+        int created = 0;
+        int failed = 0;
+
+        for (CompletableFuture<Integer> chunk : running) {
+            try {
+                created += chunk.join();
+            } catch (CompletionException ex) {
+                failed++;
+            }
+        }
+
+        JobStatus outcome = failed == 0 ? JobStatus.COMPLETED : JobStatus.FAILED;
+        transactionTemplate.executeWithoutResult(status ->
+                billingJobRepository.finish(job.getId(), outcome, LocalDateTime.now()));
+
+        if (created > 0) {
+            cacheInvalidator.clear("payment");
+            cacheInvalidator.clear("admin_payments");
+            cacheInvalidator.clear("admin_stats");
+        }
+
+        long elapsedMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("[Billing] Job {} {}: {} chunks, {} failed, {} payments in {} ms ({} payments/s)",
+                job.getId(), outcome, chunks.size(), failed, created, elapsedMs, created * 1000L / elapsedMs);
+
+        return created;
+    }
+
+    private int bill(BillingJob job, BillingChunk chunk) {
+
+        long start = System.nanoTime();
+        String outcome = "completed";
+
+        try {
+            int created;
+            try {
+                created = transactionTemplate.execute(status -> billChunk(job, chunk, start));
+            } catch (DataIntegrityViolationException ex) {
+                // Written concurrently; the existence check skips those rows now
+                log.info("[Billing] Chunk {} of job {} collided with a concurrent writer, retrying", chunk.getChunkNo(), job.getId());
+                created = transactionTemplate.execute(status -> billChunk(job, chunk, start));
+            }
+            createdCounter.increment(created);
+            return created;
+        } catch (RuntimeException ex) {
+            outcome = "failed";
+            log.warn("[Billing] Chunk {} of job {} failed: {}", chunk.getChunkNo(), job.getId(), ex.getMessage());
+            transactionTemplate.executeWithoutResult(status -> billingChunkRepository.checkpoint(
+                    chunk.getId(), JobStatus.FAILED, 0, elapsedMs(start), null, abbreviate(ex.getMessage())));
+            throw ex;
+        } finally {
+            remainingChunks.decrementAndGet();
+            Timer.builder("rentfix.billing.chunk")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Inserts the chunk's missing payments batch by batch and checkpoints it; runs inside the chunk transaction.
+     */
+    private int billChunk(BillingJob job, BillingChunk chunk, long start) {
+
+        Map<UUID, LocalDate> dueByContract = chunk.getDueDates();
+        List<UUID> ids = new ArrayList<>(dueByContract.keySet());
+        int created = 0;
+
+        for (int from = 0; from < ids.size(); from += settings.getBatchSize()) {
+            created += insertDue(ids.subList(from, Math.min(from + settings.getBatchSize(), ids.size())), dueByContract);
+        }
+
+        billingChunkRepository.checkpoint(chunk.getId(), JobStatus.COMPLETED, created,
+                elapsedMs(start), LocalDateTime.now(), null);
+        billingJobRepository.recordChunk(job.getId(), created);
+
+        return created;
+    }
+
+    private int insertDue(List<UUID> batch, Map<UUID, LocalDate> dueByContract) {
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(settings.getBatchSize());
+        List<Payment> payments = new ArrayList<>();
+        List<TenantLedgerService.Change> charges = new ArrayList<>();
+
+        // Nearly always one due date per batch; catch-up months after downtime add a few more
+        Map<LocalDate, List<UUID>> byDueDate = batch.stream()
+                .collect(Collectors.groupingBy(dueByContract::get));
+
+        byDueDate.forEach((dueDate, ids) -> {
+            for (ContractRent contract : rentalContractRepository.findActiveWithoutPayment(PaymentType.MONTHLY_RENT, dueDate, ids)) {
+                Payment payment = new Payment();
+                payment.setContract(entityManager.getReference(RentalContract.class, contract.getId()));
+                payment.setAmount(contract.getMonthlyRent());
+                payment.setDueDate(dueDate);
+                payment.setStatus(PaymentStatus.PENDING);
+                payment.setType(PaymentType.MONTHLY_RENT);
+                payments.add(payment);
+                charges.add(TenantLedgerService.Change.created(contract.getTenantId(), payment.getAmount(), payment.getStatus()));
+            }
+        });
+
+        // Through the repository, so a duplicate surfaces as DataIntegrityViolationException
+        paymentRepository.saveAllAndFlush(payments);
+        entityManager.clear();
+        tenantLedgerService.recordAll(charges);
+
+        return charges.size();
+    }
+
+    private static String abbreviate(String message) {
+        return message == null || message.length() <= 255 ? message : message.substring(0, 255);
+    }
+
+    private static long elapsedMs(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,60 @@
+package app.service;
+
+import app.model.enums.PaymentStatus;
+import app.repository.PaymentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves PENDING payments whose due date has passed to OVERDUE.
+ * <p>
+ * Each run is one bulk UPDATE on the (status, dueDate) index. It has no lower bound
+ * on the due date: late fees, catch-up billing and admin corrections all write PENDING
+ * payments that are already past due, so only scanning the days since the last run
+ * would miss them. The index keeps the scan to the PENDING rows that are due. The
+ * current number of OVERDUE payments is published as the {@code rentfix.payments.overdue}
+ * gauge.
+ */
+@Slf4j
+@Service
+public class OverduePaymentDetector {
+
+    private final PaymentRepository paymentRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final AtomicLong overdue = new AtomicLong();
+
+    @Autowired
+    public OverduePaymentDetector(PaymentRepository paymentRepository, CacheInvalidator cacheInvalidator, MeterRegistry meterRegistry) {
+        this.paymentRepository = paymentRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        meterRegistry.gauge("rentfix.payments.overdue", overdue);
+    }
+
+    /**
+     * Marks every PENDING payment due before today as overdue; returns how many were marked.
+     */
+    @Transactional
+    public int markOverdue(LocalDate today) {
+
+        int marked = paymentRepository.markOverdueDueBefore(today);
+
+        if (marked > 0) {
+            cacheInvalidator.clear("payment");
+            cacheInvalidator.clear("admin_payments");
+        }
+
+        overdue.set(paymentRepository.countByStatus(PaymentStatus.OVERDUE));
+
+        return marked;
+    }
+
+    public long getOverdueCount() {
+        return overdue.get();
+    }
+}
@@ -0,0 +1,358 @@
+package app.service;
+
+import app.model.Payment;
+import app.model.enums.PaymentStatus;
+import app.repository.PaymentRepository;
+import app.repository.PaymentRepository.UnpaidPayment;
+import app.web.dto.ReconciliationReport;
+import app.web.dto.ReconciliationReport.UnmatchedLine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Marks payments as paid from a CSV bank statement.
+ * <p>
+ * All unpaid payments are first loaded into a hash index keyed by (contract, amount in cents, due
+ * month). The statement is then read line by line, and each credit line takes one payment from its
+ * key: the reference has to contain the contract id, and the month comes from the {@code dueMonth}
+ * column or else the booking date. Matches are written in batches, one transaction per batch,
+ * so memory depends on the number of unpaid payments and the batch size, not on the file.
+ * <p>
+ * The statement needs a header row with {@code date}, {@code reference} and {@code amount} columns;
+ * {@code dueMonth} (yyyy-MM) is optional.
+ */
+@Slf4j
+@Service
+public class PaymentReconciliation {
+
+    private static final List<PaymentStatus> UNPAID = List.of(PaymentStatus.PENDING, PaymentStatus.OVERDUE);
+    private static final UUID FIRST = new UUID(0, 0);
+    private static final Pattern CONTRACT_ID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    private static final int MAX_REPORTED = 1000;
+
+    private final PaymentRepository paymentRepository;
+    private final TenantLedgerService tenantLedgerService;
+    private final CacheInvalidator cacheInvalidator;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public PaymentReconciliation(PaymentRepository paymentRepository, TenantLedgerService tenantLedgerService, CacheInvalidator cacheInvalidator, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, @Value("${rentfix.reconciliation.batch-size:500}") int batchSize) {
+        this.paymentRepository = paymentRepository;
+        this.tenantLedgerService = tenantLedgerService;
+        this.cacheInvalidator = cacheInvalidator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    record Key(UUID contractId, long amountCents, YearMonth dueMonth) {
+    }
+
+    record Candidate(UUID paymentId, UUID tenantId) {
+    }
+
+    // A statement line that took a candidate; reported as unmatched if the payment was paid meanwhile
+    private record Match(Candidate candidate, long lineNo, String reference, String amount) {
+    }
+
+    public ReconciliationReport importStatement(InputStream statement) {
+
+        // Two overlapping imports could both take the same payment from their own index
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("A bank statement import is already running.");
+        }
+
+        try {
+            return run(statement);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Could not read the bank statement: " + ex.getMessage(), ex);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    private ReconciliationReport run(InputStream statement) throws IOException {
+
+        long start = System.nanoTime();
+        Map<Key, Deque<Candidate>> index = buildIndex();
+
+        long lines = 0;
+        Tally tally = new Tally();
+        List<Match> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(statement, StandardCharsets.UTF_8))) {
+
+            Columns columns = Columns.of(reader.readLine());
+            long lineNo = 1;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                lines++;
+
+                List<String> fields = splitCsv(line);
+                String reference = columns.get(fields, columns.reference);
+                String amountText = columns.get(fields, columns.amount);
+                String reason;
+
+                try {
+                    Key key = key(fields, columns, reference, amountText);
+                    Deque<Candidate> candidates = key == null ? null : index.get(key);
+
+                    if (key == null) {
+                        reason = "no contract reference";
+                    } else if (key.amountCents() <= 0) {
+                        reason = "not a credit";
+                    } else if (candidates == null || candidates.isEmpty()) {
+                        reason = "no unpaid payment for this contract, amount and month";
+                    } else {
+                        batch.add(new Match(candidates.poll(), lineNo, reference, amountText));
+
+                        if (batch.size() == batchSize) {
+                            markPaid(batch, tally);
+                            batch.clear();
+                        }
+                        continue;
+                    }
+                } catch (NumberFormatException | ArithmeticException | DateTimeParseException ex) {
+                    reason = "malformed line";
+                }
+
+                tally.unmatched(new UnmatchedLine(lineNo, reference, amountText, reason));
+            }
+        }
+
+        markPaid(batch, tally);
+
+        // Lines skipped in a batch are reported when the batch is written, after later unmatched lines
+        tally.reported.sort(Comparator.comparingLong(UnmatchedLine::lineNo));
+
+        if (tally.matched > 0) {
+            cacheInvalidator.clear("payment");
+            cacheInvalidator.clear("admin_payments");
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        meterRegistry.counter("rentfix.reconciliation.lines", "outcome", "matched").increment(tally.matched);
+        meterRegistry.counter("rentfix.reconciliation.lines", "outcome", "unmatched").increment(tally.unmatched);
+        log.info("[Reconciliation] {} statement lines: {} matched ({}), {} unmatched in {} ms",
+                lines, tally.matched, tally.matchedAmount, tally.unmatched, elapsedMs);
+
+        return new ReconciliationReport(lines, tally.matched, tally.unmatched, tally.matchedAmount, elapsedMs, tally.reported);
+    }
+
+    /**
+     * Loads every unpaid payment into the match index, one keyset page at a time.
+     */
+    private Map<Key, Deque<Candidate>> buildIndex() {
+
+        Map<Key, Deque<Candidate>> index = new HashMap<>();
+        UUID after = FIRST;
+
+        while (true) {
+            List<UnpaidPayment> page = paymentRepository.findUnpaid(UNPAID, after, Limit.of(batchSize));
+
+            for (UnpaidPayment payment : page) {
+                Key key = new Key(payment.getContractId(), Money.cents(payment.getAmount()), YearMonth.from(payment.getDueDate()));
+                index.computeIfAbsent(key, k -> new ArrayDeque<>(1))
+                        .add(new Candidate(payment.getId(), payment.getTenantId()));
+            }
+
+            if (page.size() < batchSize) {
+                return index;
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private static Key key(List<String> fields, Columns columns, String reference, String amountText) {
+
+        Matcher contractId = CONTRACT_ID.matcher(reference == null ? "" : reference);
+        if (!contractId.find()) {
+            return null;
+        }
+
+        String dueMonth = columns.get(fields, columns.dueMonth);
+        String date = columns.get(fields, columns.date);
+        if (amountText == null || ((dueMonth == null || dueMonth.isBlank()) && date == null)) {
+            throw new NumberFormatException("missing column");
+        }
+
+        YearMonth month = dueMonth != null && !dueMonth.isBlank()
+                ? YearMonth.parse(dueMonth.trim())
+                : YearMonth.from(LocalDate.parse(date.trim()));
+
+        long cents = Money.cents(new BigDecimal(amountText.trim().replace(" ", "")));
+
+        return new Key(UUID.fromString(contractId.group()), cents, month);
+    }
+
+    /**
+     * Marks one batch as paid. A line whose payment was paid or cancelled since the index was built
+     * is counted as unmatched.
+     */
+    private void markPaid(List<Match> batch, Tally tally) {
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Match> byPayment = new HashMap<>();
+        for (Match match : batch) {
+            byPayment.put(match.candidate().paymentId(), match);
+        }
+
+        List<TenantLedgerService.Change> paid = transactionTemplate.execute(status -> {
+
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            LocalDateTime now = LocalDateTime.now();
+            List<TenantLedgerService.Change> changes = new ArrayList<>(batch.size());
+
+            for (Payment payment : paymentRepository.findAllForUpdate(byPayment.keySet())) {
+                if (!UNPAID.contains(payment.getStatus())) {
+                    continue;
+                }
+
+                changes.add(new TenantLedgerService.Change(byPayment.remove(payment.getId()).candidate().tenantId(),
+                        payment.getAmount(), payment.getStatus(), payment.getAmount(), PaymentStatus.SUCCESS));
+                payment.setStatus(PaymentStatus.SUCCESS);
+                payment.setPaidAt(now);
+            }
+
+            entityManager.flush();
+            entityManager.clear();
+            tenantLedgerService.recordAll(changes);
+            return changes;
+        });
+
+        for (TenantLedgerService.Change change : paid) {
+            tally.matched++;
+            tally.matchedAmount = tally.matchedAmount.add(change.newAmount());
+        }
+
+        // Left over: paid, cancelled or deleted since the index was built
+        for (Match skipped : byPayment.values()) {
+            tally.unmatched(new UnmatchedLine(skipped.lineNo(), skipped.reference(), skipped.amount(), "already paid"));
+        }
+    }
+
+    /**
+     * Splits one CSV line, honouring double-quoted fields with doubled quotes inside.
+     */
+    static List<String> splitCsv(String line) {
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Tally {
+
+        private long matched;
+        private long unmatched;
+        private BigDecimal matchedAmount = BigDecimal.ZERO;
+        private final List<UnmatchedLine> reported = new ArrayList<>();
+
+        void unmatched(UnmatchedLine line) {
+            unmatched++;
+            if (reported.size() < MAX_REPORTED) {
+                reported.add(line);
+            }
+        }
+    }
+
+    private record Columns(int date, int reference, int amount, int dueMonth) {
+
+        static Columns of(String header) {
+
+            if (header == null) {
+                throw new IllegalArgumentException("The bank statement is empty.");
+            }
+
+            List<String> names = splitCsv(header.replace("\uFEFF", "")).stream()
+                    .map(name -> name.trim().toLowerCase(Locale.ROOT))
+                    .toList();
+
+            Columns columns = new Columns(names.indexOf("date"), names.indexOf("reference"),
+                    names.indexOf("amount"), names.indexOf("duemonth"));
+
+            if (columns.reference < 0 || columns.amount < 0 || (columns.date < 0 && columns.dueMonth < 0)) {
+                throw new IllegalArgumentException("The bank statement needs date, reference and amount columns.");
+            }
+
+            return columns;
+        }
+
+        String get(List<String> fields, int column) {
+            return column >= 0 && column < fields.size() ? fields.get(column) : null;
+        }
+    }
+}
@@ -3,23 +3,36 @@ package app.service;
 import app.exception.ResourceNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import app.model.IdempotencyKey;
 import app.model.Payment;
 import app.model.Property;
 import app.model.RentalContract;
 import app.model.enums.PaymentStatus;
 import app.model.enums.PaymentType;
+import app.repository.IdempotencyKeyRepository;
 import app.repository.PaymentRepository;
 import app.repository.PropertyRepository;
+import app.web.dto.KeysetCursor;
+import app.web.dto.KeysetPage;
+import app.web.dto.PaymentView;
+import app.web.dto.PropertyPaymentView;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -27,22 +40,40 @@ import java.util.UUID;
 
 public class PaymentService {
 
+    private static final int PAGE_SIZE = 20;
+    private static final Map<String, Class<?>> PAYMENT_KEYS = Map.of("dueDate", LocalDate.class, "id", UUID.class);
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 100;
+    private static final Duration IDEMPOTENCY_KEY_RETENTION = Duration.ofHours(24);
+
     private final PaymentRepository paymentRepository;
     private final PropertyRepository propertyRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final TenantLedgerService tenantLedgerService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public PaymentService(PaymentRepository paymentRepository, PropertyRepository propertyRepository) {
+    public PaymentService(PaymentRepository paymentRepository, PropertyRepository propertyRepository, CacheInvalidator cacheInvalidator, TenantLedgerService tenantLedgerService, IdempotencyKeyRepository idempotencyKeyRepository, PlatformTransactionManager transactionManager) {
         this.paymentRepository = paymentRepository;
         this.propertyRepository = propertyRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.tenantLedgerService = tenantLedgerService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Cacheable("payment")
-    public List<Payment> getPaymentsForTenant(UUID tenantId) {
-        return paymentRepository.getTenantPaymentsSorted(tenantId);
+    @Cacheable(value = "payment", key = "{#root.methodName, #tenantId, #cursor}")
+    public KeysetPage<PaymentView> getPaymentsForTenant(UUID tenantId, String cursor) {
+
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, PAYMENT_KEYS);
+
+        return KeysetPage.from(paymentRepository.findByContract_Tenant_IdOrderByDueDateDescIdDesc(
+                tenantId, position, Limit.of(PAGE_SIZE)), position)
+                .map(PaymentView::from);
     }
 
-    @Cacheable("payment")
-    public List<Payment> getPaymentsForProperty(UUID propertyId, UUID ownerId) {
+    @Cacheable(value = "payment", key = "{#root.methodName, #propertyId, #ownerId, #cursor}")
+    public KeysetPage<PropertyPaymentView> getPaymentsForProperty(UUID propertyId, UUID ownerId, String cursor) {
 
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
@@ -51,18 +82,69 @@ public class PaymentService {
             throw new AccessDeniedException("Unauthorized");
         }
 
-        return paymentRepository.getOwnerPaymentsSorted(propertyId);
+        KeysetScrollPosition position = KeysetCursor.decode(cursor, PAYMENT_KEYS);
+
+        return KeysetPage.from(paymentRepository.findByContract_Property_IdOrderByDueDateDescIdDesc(
+                propertyId, position, Limit.of(PAGE_SIZE)), position)
+                .map(PropertyPaymentView::from);
     }
 
-    @Cacheable("payment")
-    public List<Payment> getByContract(UUID contractId) {
-        return paymentRepository.getContractPaymentsSorted(contractId);
+    @Cacheable(value = "payment", key = "{#root.methodName, #contractId}")
+    public List<PaymentView> getByContract(UUID contractId) {
+        return paymentRepository.getContractPaymentsSorted(contractId)
+                .stream()
+                .map(PaymentView::from)
+                .toList();
     }
 
 
-    @Transactional
-    @CacheEvict(value = "payment", allEntries = true)
     public void pay(UUID paymentId, UUID tenantId) {
+        pay(paymentId, tenantId, null);
+    }
+
+    /**
+     * Pays a pending or overdue payment. A request that repeats an already processed
+     * {@code idempotencyKey} returns without paying again, also when both copies arrive at once:
+     * the key is stored with the payment, and the second insert fails on its unique constraint.
+     * The payment's version column catches concurrent writes such as the overdue sweep or an
+     * admin correction; the payment is then re-read and paid once more.
+     */
+    public void pay(UUID paymentId, UUID tenantId, String idempotencyKey) {
+
+        if (idempotencyKey != null && idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key is too long");
+        }
+
+        if (idempotencyKey != null && alreadyProcessed(tenantId, idempotencyKey, paymentId)) {
+            log.info("Payment {} request with key {} already processed", paymentId, idempotencyKey);
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> payOnce(paymentId, tenantId, idempotencyKey));
+        } catch (OptimisticLockingFailureException ex) {
+            log.info("Payment {} changed concurrently, retrying", paymentId);
+            transactionTemplate.executeWithoutResult(status -> payOnce(paymentId, tenantId, idempotencyKey));
+        } catch (DataIntegrityViolationException ex) {
+            // The other copy of a duplicated request committed first
+            if (idempotencyKey == null || !alreadyProcessed(tenantId, idempotencyKey, paymentId)) {
+                throw ex;
+            }
+        }
+    }
+
+    private boolean alreadyProcessed(UUID tenantId, String idempotencyKey, UUID paymentId) {
+        return idempotencyKeyRepository.findByUserIdAndIdempotencyKey(tenantId, idempotencyKey)
+                .map(key -> {
+                    if (!key.getPaymentId().equals(paymentId)) {
+                        throw new IllegalArgumentException("Idempotency key was already used for another payment");
+                    }
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private void payOnce(UUID paymentId, UUID tenantId, String idempotencyKey) {
 
         Payment payment = paymentRepository.findById(paymentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found"));
@@ -71,20 +153,30 @@ public class PaymentService {
             throw new SecurityException("Unauthorized payment attempt");
         }
 
-        if (payment.getStatus() != PaymentStatus.PENDING) {
+        if (payment.getStatus() != PaymentStatus.PENDING && payment.getStatus() != PaymentStatus.OVERDUE) {
             return;
         }
 
+        PaymentStatus previous = payment.getStatus();
         payment.setStatus(PaymentStatus.SUCCESS);
         payment.setPaidAt(LocalDateTime.now());
 
         paymentRepository.save(payment);
+        if (idempotencyKey != null) {
+            idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(null, tenantId, idempotencyKey, paymentId, LocalDateTime.now()));
+        }
+        tenantLedgerService.record(new TenantLedgerService.Change(
+                tenantId, payment.getAmount(), previous, payment.getAmount(), PaymentStatus.SUCCESS));
+        evictPaymentsOf(payment.getContract());
 
         log.info("Payment {} marked as PAID by tenant {}", paymentId, tenantId);
     }
 
+    public int purgeIdempotencyKeys() {
+        return idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(IDEMPOTENCY_KEY_RETENTION));
+    }
+
     @Transactional
-    @CacheEvict(value = "payment", allEntries = true)
     public void createInitialPaymentsForNewContract(RentalContract contract) {
 
         BigDecimal rent = contract.getMonthlyRent();
@@ -92,17 +184,28 @@ public class PaymentService {
 
         createPaidPayment(contract, rent, start, PaymentType.INITIAL_RENT);
         createPaidPayment(contract, rent, start, PaymentType.DEPOSIT);
+        evictPaymentsOf(contract);
 
     }
 
     @Transactional
-    @CacheEvict(value = "payment", allEntries = true)
     public void createFirstMonthlyRentPayment(RentalContract contract) {
 
         BigDecimal rent = contract.getMonthlyRent();
         LocalDate dueDate = contract.getStartDate().plusMonths(1);
 
         createPayment(contract, rent, dueDate, PaymentType.MONTHLY_RENT);
+        evictPaymentsOf(contract);
+    }
+
+    /**
+     * Drops the cached payment lists of the contract's tenant, property and the contract itself.
+     */
+    private void evictPaymentsOf(RentalContract contract) {
+        cacheInvalidator.evictMentioning("payment",
+                contract.getId(),
+                contract.getTenant() == null ? null : contract.getTenant().getId(),
+                contract.getProperty() == null ? null : contract.getProperty().getId());
     }
 
 
@@ -120,6 +223,7 @@ public class PaymentService {
         payment.setType(type);
 
         paymentRepository.save(payment);
+        recordCharge(payment);
     }
 
     private void createPaidPayment(RentalContract contract,
@@ -136,6 +240,14 @@ public class PaymentService {
         payment.setType(type);
 
         paymentRepository.save(payment);
+        recordCharge(payment);
+    }
+
+    private void recordCharge(Payment payment) {
+        RentalContract contract = payment.getContract();
+        tenantLedgerService.record(TenantLedgerService.Change.created(
+                contract.getTenant() == null ? null : contract.getTenant().getId(),
+                payment.getAmount(), payment.getStatus()));
     }
 
 }
@@ -0,0 +1,517 @@
+package app.service;
+
+import app.model.Property;
+import app.model.enums.Status;
+import app.repository.PropertyRepository;
+import app.web.dto.KeysetCursor;
+import app.web.dto.KeysetPage;
+import app.web.dto.PropertySearchRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Columnar, primitive-array copy of the filterable property attributes.
+ * Filters are evaluated as {@link BitSet} operations over slot positions,
+ * so searches never touch JPA entities until a page has to be rendered.
+ * <p>
+ * The snapshot is immutable: writers build a new one and swap the
+ * reference, readers just grab the current one and never lock. The
+ * columns are split into chunks of 1024 slots, and a write copies only
+ * the chunks and bitmaps it changes, not the whole snapshot.
+ * Slots are kept in creation order, so iterating a result bitset
+ * backwards yields the newest properties first. Deleted properties
+ * leave dead slots behind until they make up a quarter of all slots;
+ * then the live ones are compacted into consecutive slots. Changes made
+ * inside a transaction are applied once it commits.
+ */
+@Slf4j
+@Component
+public class PropertyFilterEngine {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    // A cursor whose anchor left the result; serving the first page instead would repeat results
+    static final String EXPIRED_CURSOR = "These search results have changed; please search again.";
+
+    private final PropertyRepository propertyRepository;
+
+    private volatile Snapshot snapshot = Snapshot.empty();
+    private volatile boolean ready;
+
+    @Autowired
+    public PropertyFilterEngine(PropertyRepository propertyRepository) {
+        this.propertyRepository = propertyRepository;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+
+        long start = System.currentTimeMillis();
+
+        Sort creationOrder = Sort.by("createdOn").and(Sort.by("id"));
+        Snapshot next = Snapshot.empty();
+
+        int pageNumber = 0;
+        Page<Property> page;
+        do {
+            page = propertyRepository.findAll(PageRequest.of(pageNumber++, REBUILD_BATCH_SIZE, creationOrder));
+            next = next.withAppended(page.getContent());
+        } while (page.hasNext());
+
+        snapshot = next;
+        ready = true;
+
+        log.info("Property filter snapshot built: {} properties in {} ms",
+                next.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public void upsert(Property property) {
+        AfterCommit.run(() -> swap(current -> current.withProperty(property)));
+    }
+
+    public void remove(UUID propertyId) {
+        AfterCommit.run(() -> swap(current -> current.without(propertyId)));
+    }
+
+    /**
+     * Applies new monthly rents in one copy, instead of one {@link #upsert} copy per property.
+     */
+    public void updateRents(Map<UUID, BigDecimal> rents) {
+        AfterCommit.run(() -> swap(current -> current.withRents(rents)));
+    }
+
+    private synchronized void swap(UnaryOperator<Snapshot> change) {
+        snapshot = change.apply(snapshot);
+    }
+
+    static long toCents(BigDecimal value) {
+        return value == null ? 0L : Money.cents(value);
+    }
+
+    public static final class Snapshot {
+
+        private static final int CHUNK_BITS = 10;
+        private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+        // Slots of deleted properties are compacted away once they are a quarter of all slots
+        private static final int MIN_DEAD_TO_COMPACT = 64;
+
+        // Number of allocated slots, including slots of deleted properties
+        private final int slots;
+        private final int dead;
+        private final Chunk[] chunks;
+        // Shared by the snapshots between two compactions: it only gains ids in slots beyond an
+        // older snapshot's count, which that snapshot ignores. Compacting drops deleted ids
+        private final Map<UUID, Integer> positions;
+        private final BitSet live;
+        private final Map<Status, BitSet> byStatus;
+        private final Map<String, BitSet> byCity;
+
+        private Snapshot(int slots, int dead, Chunk[] chunks, Map<UUID, Integer> positions, BitSet live,
+                         Map<Status, BitSet> byStatus, Map<String, BitSet> byCity) {
+            this.slots = slots;
+            this.dead = dead;
+            this.chunks = chunks;
+            this.positions = positions;
+            this.live = live;
+            this.byStatus = byStatus;
+            this.byCity = byCity;
+        }
+
+        static Snapshot empty() {
+            return new Snapshot(0, 0, new Chunk[0], new ConcurrentHashMap<>(), new BitSet(), Map.of(), Map.of());
+        }
+
+        /**
+         * Number of live properties in the snapshot.
+         */
+        public int size() {
+            return live.cardinality();
+        }
+
+        int allocatedSlots() {
+            return slots;
+        }
+
+        /**
+         * Returns the slots of all live properties matching the criteria.
+         * A {@code null} status matches every status.
+         */
+        public BitSet filter(PropertySearchRequest criteria, Status status) {
+
+            BitSet result = (BitSet) live.clone();
+
+            if (status != null) {
+                result.and(byStatus.getOrDefault(status, new BitSet()));
+            }
+
+            String city = normalizeCity(criteria.getCity());
+            if (!city.isEmpty()) {
+                result.and(byCity.getOrDefault(city, new BitSet()));
+            }
+
+            int minBedrooms = criteria.getMinBedrooms() == null ? Integer.MIN_VALUE : criteria.getMinBedrooms();
+            int maxBedrooms = criteria.getMaxBedrooms() == null ? Integer.MAX_VALUE : criteria.getMaxBedrooms();
+            int minBathrooms = criteria.getMinBathrooms() == null ? Integer.MIN_VALUE : criteria.getMinBathrooms();
+            long minRent = criteria.getMinRent() == null ? Long.MIN_VALUE : toCents(criteria.getMinRent());
+            long maxRent = criteria.getMaxRent() == null ? Long.MAX_VALUE : toCents(criteria.getMaxRent());
+            long minArea = criteria.getMinArea() == null ? Long.MIN_VALUE : toCents(criteria.getMinArea());
+
+            boolean hasRanges = criteria.getMinBedrooms() != null || criteria.getMaxBedrooms() != null
+                    || criteria.getMinBathrooms() != null
+                    || criteria.getMinRent() != null || criteria.getMaxRent() != null
+                    || criteria.getMinArea() != null;
+
+            if (hasRanges) {
+                for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+                    Chunk chunk = chunks[i >>> CHUNK_BITS];
+                    int j = i & CHUNK_MASK;
+                    if (chunk.bedrooms[j] < minBedrooms || chunk.bedrooms[j] > maxBedrooms
+                            || chunk.bathrooms[j] < minBathrooms
+                            || chunk.rentCents[j] < minRent || chunk.rentCents[j] > maxRent
+                            || chunk.areaCents[j] < minArea) {
+                        result.clear(i);
+                    }
+                }
+            }
+
+            return result;
+        }
+
+        public boolean matches(BitSet result, UUID propertyId) {
+            Integer position = slotOf(propertyId);
+            return position != null && result.get(position);
+        }
+
+        /**
+         * Returns one keyset page of the result, newest first. The anchor is the
+         * property the previous page ended on (or, scrolling backward, started on);
+         * a {@code null} anchor starts from the newest property.
+         *
+         * @throws IllegalArgumentException if the anchor has been compacted away, so the cursor expired
+         */
+        public KeysetPage<UUID> page(BitSet result, UUID anchor, boolean backward, int limit) {
+
+            Integer anchorSlot = anchor == null ? null : slotOf(anchor);
+            if (anchor != null && anchorSlot == null) {
+                throw new IllegalArgumentException(EXPIRED_CURSOR);
+            }
+            List<UUID> page = new ArrayList<>(limit);
+            boolean hasNext;
+            boolean hasPrevious;
+
+            if (anchorSlot != null && backward) {
+                // Walk towards newer slots, then flip back into display order
+                int i = result.nextSetBit(anchorSlot + 1);
+                for (; i >= 0 && page.size() < limit; i = result.nextSetBit(i + 1)) {
+                    page.add(id(i));
+                }
+                Collections.reverse(page);
+                hasPrevious = i >= 0;
+                hasNext = true;
+            } else {
+                int i = result.previousSetBit(anchorSlot == null ? slots - 1 : anchorSlot - 1);
+                for (; i >= 0 && page.size() < limit; i = result.previousSetBit(i - 1)) {
+                    page.add(id(i));
+                }
+                hasNext = i >= 0;
+                hasPrevious = anchorSlot != null;
+            }
+
+            if (page.isEmpty()) {
+                return new KeysetPage<>(page, null, null, result.cardinality());
+            }
+
+            return new KeysetPage<>(page,
+                    hasNext ? KeysetCursor.forward(Map.of("id", page.get(page.size() - 1))) : null,
+                    hasPrevious ? KeysetCursor.backward(Map.of("id", page.get(0))) : null,
+                    result.cardinality());
+        }
+
+        Snapshot withAppended(List<Property> properties) {
+
+            if (properties.isEmpty()) {
+                return this;
+            }
+
+            Editor editor = new Editor(this);
+            properties.forEach(editor::append);
+            return editor.publish();
+        }
+
+        Snapshot withProperty(Property property) {
+
+            Editor editor = new Editor(this);
+            Integer position = slotOf(property.getId());
+
+            if (position == null || !live.get(position)) {
+                editor.append(property);
+            } else {
+                editor.overwrite(position, property);
+            }
+
+            return editor.publish();
+        }
+
+        // Only the rents change, so only the chunks holding them are copied
+        Snapshot withRents(Map<UUID, BigDecimal> rents) {
+
+            Editor editor = new Editor(this);
+            rents.forEach((id, rent) -> {
+                Integer position = slotOf(id);
+                if (position != null && live.get(position)) {
+                    editor.chunk(position).rentCents[position & CHUNK_MASK] = toCents(rent);
+                }
+            });
+
+            return editor.publish();
+        }
+
+        Snapshot without(UUID propertyId) {
+
+            Integer position = slotOf(propertyId);
+            if (position == null || !live.get(position)) {
+                return this;
+            }
+
+            Editor editor = new Editor(this);
+            editor.kill(position);
+            return editor.publish();
+        }
+
+        private Integer slotOf(UUID propertyId) {
+            Integer position = positions.get(propertyId);
+            return position != null && position < slots ? position : null;
+        }
+
+        private UUID id(int slot) {
+            return chunks[slot >>> CHUNK_BITS].ids[slot & CHUNK_MASK];
+        }
+
+        // Moves the live properties to consecutive slots in the same order, with a map of their own
+        private Snapshot compacted() {
+
+            int size = live.cardinality();
+            int[] moved = new int[slots];
+            Chunk[] packed = new Chunk[(size + CHUNK_MASK) >>> CHUNK_BITS];
+            Map<UUID, Integer> packedPositions = new ConcurrentHashMap<>(size);
+
+            int next = 0;
+            for (int i = live.nextSetBit(0); i >= 0; i = live.nextSetBit(i + 1), next++) {
+                if ((next & CHUNK_MASK) == 0) {
+                    packed[next >>> CHUNK_BITS] = new Chunk();
+                }
+                Chunk from = chunks[i >>> CHUNK_BITS];
+                Chunk to = packed[next >>> CHUNK_BITS];
+                int f = i & CHUNK_MASK;
+                int t = next & CHUNK_MASK;
+
+                to.ids[t] = from.ids[f];
+                to.bedrooms[t] = from.bedrooms[f];
+                to.bathrooms[t] = from.bathrooms[f];
+                to.rentCents[t] = from.rentCents[f];
+                to.areaCents[t] = from.areaCents[f];
+                packedPositions.put(from.ids[f], next);
+                moved[i] = next;
+            }
+
+            BitSet packedLive = new BitSet(size);
+            packedLive.set(0, size);
+
+            return new Snapshot(size, 0, packed, packedPositions, packedLive, remap(byStatus, moved), remap(byCity, moved));
+        }
+
+        // The bitmaps only hold live slots, since deleting a property clears its bits
+        private static <K> Map<K, BitSet> remap(Map<K, BitSet> bitmaps, int[] moved) {
+
+            Map<K, BitSet> remapped = new HashMap<>();
+            bitmaps.forEach((key, bits) -> {
+                if (bits.isEmpty()) {
+                    return;
+                }
+                BitSet copy = new BitSet();
+                for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                    copy.set(moved[i]);
+                }
+                remapped.put(key, copy);
+            });
+
+            return remapped;
+        }
+
+        private static String normalizeCity(String city) {
+            return city == null ? "" : city.trim().toLowerCase();
+        }
+
+        /**
+         * Builds the next snapshot from the current one. A chunk or bitmap is copied the first
+         * time the edit changes it; everything untouched is shared with the current snapshot.
+         */
+        private static final class Editor {
+
+            private final Snapshot from;
+            private final Map<Status, BitSet> byStatus;
+            private final Map<String, BitSet> byCity;
+            private final Set<Object> copied = Collections.newSetFromMap(new IdentityHashMap<>());
+            private Chunk[] grown;
+            private BitSet live;
+            private int slots;
+            private int dead;
+
+            Editor(Snapshot from) {
+                this.from = from;
+                this.byStatus = new EnumMap<>(Status.class);
+                this.byStatus.putAll(from.byStatus);
+                this.byCity = new HashMap<>(from.byCity);
+                this.grown = from.chunks.clone();
+                this.live = from.live;
+                this.slots = from.slots;
+                this.dead = from.dead;
+            }
+
+            void append(Property property) {
+
+                int slot = slots++;
+                int index = slot >>> CHUNK_BITS;
+
+                if (index == grown.length) {
+                    grown = Arrays.copyOf(grown, Math.max(4, grown.length * 2));
+                }
+                if (grown[index] == null) {
+                    grown[index] = own(new Chunk());
+                }
+
+                // Visible to older snapshots only as a slot beyond their count
+                from.positions.put(property.getId(), slot);
+                write(slot, property);
+            }
+
+            void overwrite(int slot, Property property) {
+                clearBitmaps(slot);
+                write(slot, property);
+            }
+
+            void kill(int slot) {
+                clearBitmaps(slot);
+                live = owned(live);
+                live.clear(slot);
+                dead++;
+            }
+
+            Chunk chunk(int slot) {
+                int index = slot >>> CHUNK_BITS;
+                if (!copied.contains(grown[index])) {
+                    grown[index] = own(grown[index].copy());
+                }
+                return grown[index];
+            }
+
+            Snapshot publish() {
+
+                Snapshot next = new Snapshot(slots, dead, Arrays.copyOf(grown, (slots + CHUNK_MASK) >>> CHUNK_BITS),
+                        from.positions, live, byStatus, byCity);
+
+                return dead >= MIN_DEAD_TO_COMPACT && dead * 4L >= slots ? next.compacted() : next;
+            }
+
+            private void write(int slot, Property property) {
+
+                Chunk chunk = chunk(slot);
+                int i = slot & CHUNK_MASK;
+                chunk.ids[i] = property.getId();
+                chunk.bedrooms[i] = property.getBedrooms();
+                chunk.bathrooms[i] = property.getBathrooms();
+                chunk.rentCents[i] = toCents(property.getMonthlyRent());
+                chunk.areaCents[i] = toCents(property.getAreaSqm());
+
+                if (!live.get(slot)) {
+                    live = owned(live);
+                    live.set(slot);
+                }
+
+                if (property.getStatus() != null) {
+                    setBit(byStatus, property.getStatus(), slot);
+                }
+                setBit(byCity, normalizeCity(property.getCity()), slot);
+            }
+
+            private void clearBitmaps(int slot) {
+                byStatus.replaceAll((status, bits) -> cleared(bits, slot));
+                byCity.replaceAll((city, bits) -> cleared(bits, slot));
+            }
+
+            private <K> void setBit(Map<K, BitSet> bitmaps, K key, int slot) {
+                BitSet bits = bitmaps.get(key);
+                bits = bits == null ? own(new BitSet()) : owned(bits);
+                bits.set(slot);
+                bitmaps.put(key, bits);
+            }
+
+            private BitSet cleared(BitSet bits, int slot) {
+                if (!bits.get(slot)) {
+                    return bits;
+                }
+                BitSet owned = owned(bits);
+                owned.clear(slot);
+                return owned;
+            }
+
+            private BitSet owned(BitSet bits) {
+                return copied.contains(bits) ? bits : own((BitSet) bits.clone());
+            }
+
+            private <T> T own(T copy) {
+                copied.add(copy);
+                return copy;
+            }
+        }
+
+        // One block of CHUNK_SIZE slots per column, copied as a whole when one of its slots changes
+        private static final class Chunk {
+
+            private final UUID[] ids;
+            private final int[] bedrooms;
+            private final int[] bathrooms;
+            private final long[] rentCents;
+            private final long[] areaCents;
+
+            Chunk() {
+                this(new UUID[CHUNK_SIZE], new int[CHUNK_SIZE], new int[CHUNK_SIZE], new long[CHUNK_SIZE], new long[CHUNK_SIZE]);
+            }
+
+            private Chunk(UUID[] ids, int[] bedrooms, int[] bathrooms, long[] rentCents, long[] areaCents) {
+                this.ids = ids;
+                this.bedrooms = bedrooms;
+                this.bathrooms = bathrooms;
+                this.rentCents = rentCents;
+                this.areaCents = areaCents;
+            }
+
+            Chunk copy() {
+                return new Chunk(ids.clone(), bedrooms.clone(), bathrooms.clone(), rentCents.clone(), areaCents.clone());
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package app.service;
+
+import app.model.Property;
+import app.repository.PropertyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over property title, description and city.
+ * Built once when the application is ready and kept up to date by
+ * {@link PropertyService} on create, update and delete; changes made inside
+ * a transaction are applied once it commits. Attribute filters
+ * are applied to the ranked IDs by {@link PropertyFilterEngine}.
+ * Every query token is matched as a prefix and all tokens must match;
+ * results are ranked by the summed field weights of the matched terms.
+ */
+@Slf4j
+@Component
+public class PropertySearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int TITLE_WEIGHT = 3;
+    private static final int CITY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private final PropertyRepository propertyRepository;
+
+    // term -> (property id -> weight of the term in that property)
+    private final NavigableMap<String, Map<UUID, Integer>> postings = new ConcurrentSkipListMap<>();
+    // property id -> terms it contributed, used to unindex it again
+    private final Map<UUID, Set<String>> documents = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean ready;
+
+    @Autowired
+    public PropertySearchIndex(PropertyRepository propertyRepository) {
+        this.propertyRepository = propertyRepository;
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+
+        long start = System.currentTimeMillis();
+
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+
+            int pageNumber = 0;
+            Page<Property> page;
+            do {
+                page = propertyRepository.findAll(PageRequest.of(pageNumber++, REBUILD_BATCH_SIZE, Sort.by("id")));
+                page.forEach(this::addDocument);
+            } while (page.hasNext());
+
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Property search index built: {} properties, {} terms in {} ms",
+                documents.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(Property property) {
+        AfterCommit.run(() -> indexNow(property));
+    }
+
+    public void remove(UUID propertyId) {
+        AfterCommit.run(() -> removeNow(propertyId));
+    }
+
+    private void indexNow(Property property) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(property.getId());
+            addDocument(property);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeNow(UUID propertyId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(propertyId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(UUID propertyId) {
+        return documents.containsKey(propertyId);
+    }
+
+    /**
+     * Returns the IDs of all properties matching every token of the query,
+     * best match first. An empty or blank query matches nothing.
+     */
+    public List<UUID> search(String query) {
+
+        List<String> tokens = tokenize(query).stream().distinct().toList();
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Map<UUID, Integer>> perToken = new ArrayList<>(tokens.size());
+            for (String token : tokens) {
+                Map<UUID, Integer> matches = prefixMatches(token);
+                if (matches.isEmpty()) {
+                    return List.of();
+                }
+                perToken.add(matches);
+            }
+
+            // Intersect starting from the most selective token
+            perToken.sort(Comparator.comparingInt(Map::size));
+
+            Map<UUID, Integer> scores = new HashMap<>(perToken.get(0));
+            for (int i = 1; i < perToken.size() && !scores.isEmpty(); i++) {
+                Map<UUID, Integer> next = perToken.get(i);
+                scores.entrySet().removeIf(e -> !next.containsKey(e.getKey()));
+                scores.replaceAll((id, score) -> score + next.get(id));
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<UUID, Integer>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.<UUID, Integer>comparingByKey()))
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<UUID, Integer> prefixMatches(String prefix) {
+
+        SortedMap<String, Map<UUID, Integer>> terms = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+
+        if (terms.size() == 1) {
+            return terms.values().iterator().next();
+        }
+
+        Map<UUID, Integer> merged = new HashMap<>();
+        for (Map<UUID, Integer> posting : terms.values()) {
+            posting.forEach((id, weight) -> merged.merge(id, weight, Math::max));
+        }
+        return merged;
+    }
+
+    private void addDocument(Property property) {
+
+        Map<String, Integer> weights = new HashMap<>();
+        collect(weights, property.getTitle(), TITLE_WEIGHT);
+        collect(weights, property.getCity(), CITY_WEIGHT);
+        collect(weights, property.getDescription(), DESCRIPTION_WEIGHT);
+
+        weights.forEach((term, weight) ->
+                postings.computeIfAbsent(term, t -> new ConcurrentHashMap<>()).put(property.getId(), weight));
+
+        documents.put(property.getId(), Set.copyOf(weights.keySet()));
+    }
+
+    private void removeDocument(UUID propertyId) {
+
+        Set<String> previous = documents.remove(propertyId);
+        if (previous == null) {
+            return;
+        }
+
+        for (String term : previous) {
+            Map<UUID, Integer> posting = postings.get(term);
+            if (posting == null) {
+                continue;
+            }
+            posting.remove(propertyId);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void collect(Map<String, Integer> weights, String text, int weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Lower-cased words of the text; queries and documents are split the same way.
+     */
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase()))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+}
@@ -6,56 +6,194 @@
     import app.model.Property;
     import app.model.User;
     import app.model.enums.Status;
+    import app.repository.PropertySpecifications;
+    import app.web.dto.PropertyCard;
     import app.web.dto.PropertyRequest;
     import app.repository.PropertyRepository;
+    import app.web.dto.KeysetCursor;
+    import app.web.dto.KeysetPage;
+    import app.web.dto.PropertySearchRequest;
+    import app.web.dto.PropertyView;
     import app.repository.UserRepository;
     import org.springframework.beans.factory.annotation.Autowired;
-    import org.springframework.cache.annotation.CacheEvict;
     import org.springframework.cache.annotation.Cacheable;
+    import org.springframework.data.domain.KeysetScrollPosition;
+    import org.springframework.data.domain.Sort;
+    import org.springframework.data.domain.Window;
+    import org.springframework.data.jpa.domain.Specification;
     import org.springframework.stereotype.Service;
     import org.springframework.web.multipart.MultipartFile;
 
     import java.io.File;
+    import java.nio.file.Path;
     import java.time.LocalDateTime;
     import java.util.*;
+    import java.util.stream.Collectors;
 
     @Slf4j
     @Service
 
     public class PropertyService {
 
+        private static final int PAGE_SIZE = 12;
+        private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "createdOn", "id");
+        private static final Map<String, Class<?>> NEWEST_FIRST_KEYS = Map.of("createdOn", LocalDateTime.class, "id", UUID.class);
+        // The in-memory path pages by position in the ranked ids, so its cursors only carry the id
+        private static final Map<String, Class<?>> RANKED_KEYS = Map.of("id", UUID.class);
+
         private final PropertyRepository propertyRepository;
         private final UserRepository userRepository;
+        private final PropertySearchIndex propertySearchIndex;
+        private final PropertyFilterEngine propertyFilterEngine;
+        private final CacheInvalidator cacheInvalidator;
+        private final SingleFlightCache singleFlightCache;
 
         @Autowired
-        public PropertyService(PropertyRepository propertyRepository, UserRepository userRepository) {
+        public PropertyService(PropertyRepository propertyRepository, UserRepository userRepository, PropertySearchIndex propertySearchIndex, PropertyFilterEngine propertyFilterEngine, CacheInvalidator cacheInvalidator, SingleFlightCache singleFlightCache) {
             this.propertyRepository = propertyRepository;
             this.userRepository = userRepository;
+            this.propertySearchIndex = propertySearchIndex;
+            this.propertyFilterEngine = propertyFilterEngine;
+            this.cacheInvalidator = cacheInvalidator;
+            this.singleFlightCache = singleFlightCache;
+        }
+
+        public KeysetPage<PropertyCard> search(PropertySearchRequest criteria, String cursor) {
+
+            log.info("Searching properties: city={}, keyword={}", criteria.getCity(), criteria.getKeyword());
+
+            return singleFlightCache.get("properties_search", Arrays.asList("search", criteria, cursor),
+                    () -> find(criteria, cursor, null));
+        }
+
+        public KeysetPage<PropertyCard> searchAvailable(PropertySearchRequest criteria, String cursor) {
+            return singleFlightCache.get("properties_search", Arrays.asList("searchAvailable", criteria, cursor),
+                    () -> find(criteria, cursor, Status.AVAILABLE));
+        }
+
+        private KeysetPage<PropertyCard> find(PropertySearchRequest criteria, String cursor, Status status) {
+
+            boolean hasKeyword = criteria.getKeyword() != null && !criteria.getKeyword().isBlank();
+
+            if (!propertyFilterEngine.isReady() || (hasKeyword && !propertySearchIndex.isReady())) {
+                return findInDatabase(criteria, KeysetCursor.decode(cursor, NEWEST_FIRST_KEYS), status);
+            }
+
+            KeysetScrollPosition position = KeysetCursor.decode(cursor, RANKED_KEYS);
+
+            // Filter and rank IDs in memory, then load only the requested page from the database
+            PropertyFilterEngine.Snapshot snapshot = propertyFilterEngine.snapshot();
+            BitSet matches = snapshot.filter(criteria, status);
+            UUID anchor = position.isInitial() ? null : (UUID) position.getKeys().get("id");
+
+            KeysetPage<UUID> ids;
+
+            if (hasKeyword) {
+                List<UUID> ranked = new ArrayList<>();
+                int anchorIndex = -1;
+
+                // The anchor is located in the same pass that filters the ranked ids
+                for (UUID id : propertySearchIndex.search(criteria.getKeyword())) {
+                    if (snapshot.matches(matches, id)) {
+                        if (id.equals(anchor)) {
+                            anchorIndex = ranked.size();
+                        }
+                        ranked.add(id);
+                    }
+                }
+
+                // A deleted anchor, or one that no longer matches, cannot say where the page starts
+                if (anchor != null && anchorIndex < 0) {
+                    throw new IllegalArgumentException(PropertyFilterEngine.EXPIRED_CURSOR);
+                }
+
+                ids = slice(ranked, anchorIndex, position.scrollsBackward());
+            } else {
+                ids = snapshot.page(matches, anchor, position.scrollsBackward(), PAGE_SIZE);
+            }
+
+            return new KeysetPage<>(loadInOrder(ids.items()), ids.next(), ids.previous(), ids.total());
+        }
+
+        private KeysetPage<PropertyCard> findInDatabase(PropertySearchRequest criteria, KeysetScrollPosition position, Status status) {
+
+            Specification<Property> spec = toSpecification(criteria)
+                    .and(PropertySpecifications.hasStatus(status));
+
+            Window<Property> window = propertyRepository.findBy(spec, q -> q
+                    .sortBy(NEWEST_FIRST)
+                    .limit(PAGE_SIZE)
+                    .scroll(position));
+
+            // The window only orders the page; its properties are loaded again together with their images
+            KeysetPage<Property> page = KeysetPage.from(window, position);
+            List<UUID> ids = page.items().stream().map(Property::getId).toList();
+
+            return new KeysetPage<>(loadInOrder(ids), page.next(), page.previous(), propertyRepository.count(spec));
+        }
+
+        /**
+         * One page of the ranked ids after (or, scrolling backward, before) {@code index}; -1 for the first page.
+         */
+        private KeysetPage<UUID> slice(List<UUID> ranked, int index, boolean backward) {
+
+            int from;
+            int to;
+
+            if (index >= 0 && backward) {
+                to = index;
+                from = Math.max(0, to - PAGE_SIZE);
+            } else {
+                from = index + 1;
+                to = Math.min(from + PAGE_SIZE, ranked.size());
+            }
+
+            List<UUID> ids = ranked.subList(from, to);
+            if (ids.isEmpty()) {
+                return new KeysetPage<>(ids, null, null, ranked.size());
+            }
+
+            return new KeysetPage<>(ids,
+                    to < ranked.size() ? KeysetCursor.forward(Map.of("id", ids.get(ids.size() - 1))) : null,
+                    from > 0 ? KeysetCursor.backward(Map.of("id", ids.get(0))) : null,
+                    ranked.size());
         }
 
-        @Cacheable("properties_search")
-        public List<Property> search(String city, String keyword, Integer minBedrooms, Integer maxBedrooms) {
+        private List<PropertyCard> loadInOrder(List<UUID> ids) {
 
-            log.info("Searching properties: city={}, keyword={}", city, keyword);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
 
-            List<Property> all = propertyRepository.findAll();
+            Map<UUID, PropertyCard> byId = propertyRepository.findWithImagesByIdIn(ids)
+                    .stream()
+                    .collect(Collectors.toMap(Property::getId, PropertyCard::from));
 
-            return all.stream()
-                    .filter(p -> city == null || city.isBlank() ||
-                            p.getCity().equalsIgnoreCase(city))
-                    .filter(p -> keyword == null || keyword.isBlank() ||
-                            p.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-                    .filter(p -> minBedrooms == null || p.getBedrooms() >= minBedrooms)
-                    .filter(p -> maxBedrooms == null || p.getBedrooms() <= maxBedrooms)
+            return ids.stream()
+                    .map(byId::get)
+                    .filter(Objects::nonNull)
                     .toList();
         }
+
+        private Specification<Property> toSpecification(PropertySearchRequest criteria) {
+            // Matched like the search index does, so both paths find the same properties
+            List<String> keywordTokens = criteria.getKeyword() == null || criteria.getKeyword().isBlank()
+                    ? null
+                    : PropertySearchIndex.tokenize(criteria.getKeyword());
+
+            return Specification.where(PropertySpecifications.cityEquals(criteria.getCity()))
+                    .and(PropertySpecifications.hasWordsStartingWith(keywordTokens))
+                    .and(PropertySpecifications.minBedrooms(criteria.getMinBedrooms()))
+                    .and(PropertySpecifications.maxBedrooms(criteria.getMaxBedrooms()))
+                    .and(PropertySpecifications.minBathrooms(criteria.getMinBathrooms()))
+                    .and(PropertySpecifications.rentBetween(criteria.getMinRent(), criteria.getMaxRent()))
+                    .and(PropertySpecifications.minArea(criteria.getMinArea()));
+        }
+
         private List<String> saveImages(UUID propertyId, MultipartFile[] files) {
             List<String> urls = new ArrayList<>();
 
-            String root = new File("src/main/resources/static/uploads/").getAbsolutePath();
-            String folder = root + "/property-images/" + propertyId + "/";
-
-            File dir = new File(folder);
+            File dir = imageFolder(propertyId).toFile();
             if (!dir.exists()) dir.mkdirs();
 
             for (MultipartFile file : files) {
@@ -75,13 +213,19 @@
             return urls;
         }
 
-        @Cacheable("property")
+        /**
+         * Folder holding the uploaded images of a property, served under {@code /uploads/property-images/{id}}.
+         */
+        static Path imageFolder(UUID propertyId) {
+            return Path.of("src/main/resources/static/uploads/property-images", propertyId.toString()).toAbsolutePath();
+        }
+
+        @Cacheable(value = "property", key = "{#root.methodName, #ownerId}")
         public List<Property> getByOwner(UUID ownerId) {
             return propertyRepository.findByOwner_Id(ownerId);
         }
 
         @Transactional
-        @CacheEvict(value = "property", allEntries = true)
         public Property create(PropertyRequest request, UUID ownerId) {
 
             User owner = userRepository.findById(ownerId).orElseThrow();
@@ -107,16 +251,22 @@
                 property.setImageUrls(urls);
             }
 
-            return propertyRepository.save(property);
+            Property saved = propertyRepository.save(property);
+            propertySearchIndex.index(saved);
+            propertyFilterEngine.upsert(saved);
+            evictAffected(saved.getId(), ownerId);
+
+            return saved;
         }
 
-        @Cacheable("property")
-        public Property getById(UUID id) {
-            return propertyRepository.findById(id).orElseThrow();
+        @Cacheable(value = "property", key = "{#root.methodName, #id}")
+        public PropertyView getById(UUID id) {
+            return propertyRepository.findWithOwnerById(id)
+                    .map(PropertyView::from)
+                    .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
         }
 
         @Transactional
-        @CacheEvict(value = "property", allEntries = true)
         public void update(UUID id, PropertyRequest request, UUID ownerId) {
             Property property = propertyRepository.findById(id).orElseThrow();
 
@@ -134,11 +284,13 @@
             property.setUpdatedOn(LocalDateTime.now());
 
             propertyRepository.save(property);
+            propertySearchIndex.index(property);
+            propertyFilterEngine.upsert(property);
+            evictAffected(id, ownerId);
             log.info("Property updated: {}", id);
         }
 
         @Transactional
-        @CacheEvict(value = "property", allEntries = true)
         public void delete(UUID id, UUID ownerId) {
             Property property = propertyRepository.findById(id).orElseThrow();
 
@@ -146,36 +298,37 @@
                 throw new SecurityException("Cannot delete another owner's property");
 
             propertyRepository.delete(property);
+            propertySearchIndex.remove(id);
+            propertyFilterEngine.remove(id);
+            evictAffected(id, ownerId);
             log.info("Property deleted: {}", id);
         }
 
-        @Cacheable("property")
-        public Property getByIdForOwner(UUID propertyId, UUID ownerId) {
+        private void evictAffected(UUID propertyId, UUID ownerId) {
+            cacheInvalidator.evictMentioning("property", propertyId, ownerId);
+            cacheInvalidator.clear("properties_search");
+        }
+
+        @Cacheable(value = "property", key = "{#root.methodName, #propertyId, #ownerId}")
+        public PropertyView getByIdForOwner(UUID propertyId, UUID ownerId) {
 
-            Property property = propertyRepository.findById(propertyId)
+            PropertyView property = propertyRepository.findWithOwnerById(propertyId)
+                    .map(PropertyView::from)
                     .orElseThrow(() -> new ResourceNotFoundException("Property not found"));
 
-            if (!property.getOwner().getId().equals(ownerId)) {
+            if (!property.ownerId().equals(ownerId)) {
                 throw new SecurityException("You do not have access to this property");
             }
 
             return property;
         }
 
-        @Cacheable("property")
-        public List<Property> searchAvailable(String city, String keyword, Integer minBedrooms, Integer maxBedrooms) {
-            return search(city, keyword, minBedrooms, maxBedrooms)
-                    .stream()
-                    .filter(p -> p.getStatus().name().equals("AVAILABLE"))
-                    .toList();
-        }
-
-        @Cacheable("property")
+        @Cacheable(value = "property", key = "{#root.methodName, #ownerId}")
         public List<Property> getAllByOwner(UUID ownerId) {
             return propertyRepository.findAllByOwnerId(ownerId);
         }
 
-        @Cacheable("property")
+        @Cacheable(value = "property", key = "{#root.methodName, #ids}")
         public List<Property> getAllByIds(List<UUID> ids) {
             if (ids == null || ids.isEmpty()) {
                 return List.of();
@@ -0,0 +1,251 @@
+package app.service;
+
+import app.repository.PropertyRepository;
+import app.repository.PropertyRepository.IndexableRent;
+import app.repository.RentalContractRepository;
+import app.repository.RentalContractRepository.IndexableContractRent;
+import app.web.dto.IndexationReport;
+import app.web.dto.IndexationReport.RentChange;
+import app.web.dto.IndexationRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Raises (or lowers) listing rents and the rents of active contracts by one factor.
+ * <p>
+ * The rents in scope are read in keyset pages of {@code rentfix.indexation.batch-size}, and each
+ * page is updated with one UPDATE that multiplies and rounds in the database, so a large portfolio
+ * takes one statement per page instead of one form post per property. The report computes the
+ * new rents with the same rounding; a dry run only builds the report. Every indexed row is stamped
+ * with the day, and rows stamped (or contracts signed) within {@code minIntervalMonths} are skipped,
+ * so running the yearly indexation twice does not raise rents twice.
+ */
+@Slf4j
+@Service
+public class RentIndexation {
+
+    private static final UUID FIRST = new UUID(0, 0);
+    private static final int FACTOR_SCALE = 6;
+    private static final int MAX_REPORTED = 1000;
+    private static final BigDecimal MIN_FACTOR = new BigDecimal("0.5");
+    private static final BigDecimal MAX_FACTOR = new BigDecimal("2");
+
+    private final PropertyRepository propertyRepository;
+    private final RentalContractRepository rentalContractRepository;
+    private final PropertyFilterEngine propertyFilterEngine;
+    private final CacheInvalidator cacheInvalidator;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Autowired
+    public RentIndexation(PropertyRepository propertyRepository, RentalContractRepository rentalContractRepository, PropertyFilterEngine propertyFilterEngine, CacheInvalidator cacheInvalidator, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry, @Value("${rentfix.indexation.batch-size:1000}") int batchSize) {
+        this.propertyRepository = propertyRepository;
+        this.rentalContractRepository = rentalContractRepository;
+        this.propertyFilterEngine = propertyFilterEngine;
+        this.cacheInvalidator = cacheInvalidator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+    }
+
+    public IndexationReport index(IndexationRequest request) {
+
+        BigDecimal factor = factor(request);
+
+        if (request.getMinIntervalMonths() < 0) {
+            throw new IllegalArgumentException("The minimum interval cannot be negative.");
+        }
+
+        // Two overlapping runs could both index the same rows before either stamps them
+        if (!runLock.tryLock()) {
+            throw new IllegalStateException("A rent indexation is already running.");
+        }
+
+        try {
+            return run(request, factor);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * The multiplier for the request: {@code 1 + percent / 100}, or {@code currentIndex / baseIndex},
+     * limited by the cap and, unless decreases are allowed, by 1 from below.
+     */
+    static BigDecimal factor(IndexationRequest request) {
+
+        boolean byPercent = request.getPercent() != null;
+        boolean byIndex = request.getBaseIndex() != null || request.getCurrentIndex() != null;
+
+        BigDecimal factor;
+        if (byPercent && !byIndex) {
+            factor = BigDecimal.ONE.add(request.getPercent().movePointLeft(2));
+        } else if (!byPercent && request.getBaseIndex() != null && request.getCurrentIndex() != null
+                && request.getBaseIndex().signum() > 0) {
+            factor = request.getCurrentIndex().divide(request.getBaseIndex(), FACTOR_SCALE, RoundingMode.HALF_UP);
+        } else {
+            throw new IllegalArgumentException("Give either a percentage or a positive base index and a current index.");
+        }
+
+        if (request.getCapPercent() != null) {
+            factor = factor.min(BigDecimal.ONE.add(request.getCapPercent().movePointLeft(2)));
+        }
+        if (!request.isAllowDecrease()) {
+            factor = factor.max(BigDecimal.ONE);
+        }
+
+        if (factor.compareTo(MIN_FACTOR) < 0 || factor.compareTo(MAX_FACTOR) > 0) {
+            throw new IllegalArgumentException("Rents can change by -50% to +100% in one indexation.");
+        }
+
+        return factor;
+    }
+
+    private IndexationReport run(IndexationRequest request, BigDecimal factor) {
+
+        long start = System.nanoTime();
+        Scope scope = Scope.of(request);
+        int scale = request.isWholeEuros() ? 0 : 2;
+
+        List<RentChange> changes = new ArrayList<>();
+        long properties = 0;
+        long contracts = 0;
+        BigDecimal increase = BigDecimal.ZERO;
+
+        if (request.isIndexProperties()) {
+            UUID after = FIRST;
+            List<IndexableRent> page;
+
+            do {
+                page = propertyRepository.findIndexableRents(scope.ownerId, scope.city, scope.anyProperty, scope.propertyIds,
+                        scope.cutoff, after, Limit.of(batchSize));
+
+                Map<UUID, BigDecimal> rents = new LinkedHashMap<>();
+                Set<Object> keys = new HashSet<>();
+
+                for (IndexableRent rent : page) {
+                    BigDecimal newRent = apply(rent.getMonthlyRent(), factor, scale);
+                    rents.put(rent.getId(), newRent);
+                    keys.add(rent.getId());
+                    keys.add(rent.getOwnerId());
+                    report(changes, new RentChange("property", rent.getId(), rent.getId(), rent.getMonthlyRent(), newRent));
+                }
+
+                if (!rents.isEmpty() && !request.isDryRun()) {
+                    properties += transactionTemplate.execute(status ->
+                            propertyRepository.indexRents(rents.keySet(), factor, scale, scope.today));
+                    propertyFilterEngine.updateRents(rents);
+                    cacheInvalidator.evictMentioning("property", keys.toArray());
+                } else {
+                    properties += rents.size();
+                }
+
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == batchSize);
+        }
+
+        if (request.isIndexContracts()) {
+            UUID after = FIRST;
+            List<IndexableContractRent> page;
+
+            do {
+                page = rentalContractRepository.findIndexableRents(scope.ownerId, scope.city, scope.anyProperty, scope.propertyIds,
+                        scope.cutoff, after, Limit.of(batchSize));
+
+                List<UUID> ids = new ArrayList<>(page.size());
+                Set<Object> keys = new HashSet<>();
+
+                for (IndexableContractRent rent : page) {
+                    BigDecimal newRent = apply(rent.getMonthlyRent(), factor, scale);
+                    increase = increase.add(newRent.subtract(rent.getMonthlyRent()));
+                    ids.add(rent.getId());
+                    keys.add(rent.getId());
+                    keys.add(rent.getTenantId());
+                    keys.add(rent.getPropertyId());
+                    report(changes, new RentChange("contract", rent.getId(), rent.getPropertyId(), rent.getMonthlyRent(), newRent));
+                }
+
+                if (!ids.isEmpty() && !request.isDryRun()) {
+                    contracts += transactionTemplate.execute(status ->
+                            rentalContractRepository.indexRents(ids, factor, scale, scope.today));
+                    cacheInvalidator.evictMentioning("contract", keys.toArray());
+                } else {
+                    contracts += ids.size();
+                }
+
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == batchSize);
+        }
+
+        if (!request.isDryRun()) {
+            if (properties > 0) {
+                cacheInvalidator.clear("properties_search");
+                cacheInvalidator.clear("admin_properties");
+            }
+            if (contracts > 0) {
+                cacheInvalidator.clear("admin_contracts");
+            }
+            meterRegistry.counter("rentfix.indexation.rents", "kind", "property").increment(properties);
+            meterRegistry.counter("rentfix.indexation.rents", "kind", "contract").increment(contracts);
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("[Indexation] {}factor {}: {} properties, {} contracts (+{} per month) in {} ms",
+                request.isDryRun() ? "Preview of " : "", factor, properties, contracts, increase, elapsedMs);
+
+        return new IndexationReport(request.isDryRun(), factor, properties, contracts, increase, elapsedMs, changes);
+    }
+
+    // Must round like ROUND(rent * factor, scale) in the UPDATE, so the report shows the stored values
+    private static BigDecimal apply(BigDecimal rent, BigDecimal factor, int scale) {
+        return rent.multiply(factor).setScale(scale, RoundingMode.HALF_UP);
+    }
+
+    private static void report(List<RentChange> changes, RentChange change) {
+        if (changes.size() < MAX_REPORTED) {
+            changes.add(change);
+        }
+    }
+
+    private record Scope(UUID ownerId, String city, boolean anyProperty, Collection<UUID> propertyIds,
+                         LocalDate today, LocalDate cutoff) {
+
+        static Scope of(IndexationRequest request) {
+
+            boolean anyProperty = request.getPropertyIds() == null || request.getPropertyIds().isEmpty();
+            String city = request.getCity() == null || request.getCity().isBlank() ? null : request.getCity().trim();
+            LocalDate today = LocalDate.now();
+
+            // The id list is ignored when anyProperty is set, but an empty IN list is not valid SQL
+            return new Scope(request.getOwnerId(), city, anyProperty,
+                    anyProperty ? List.of(FIRST) : request.getPropertyIds(),
+                    today, today.minusMonths(request.getMinIntervalMonths()));
+        }
+    }
+}
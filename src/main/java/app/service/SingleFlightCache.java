@@ -0,0 +1,198 @@
+package app.service;
+
+import app.config.CacheSettings;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through access to the application caches for expensive loads.
+ * <ul>
+ *     <li>Concurrent callers asking for the same missing key wait on one in-flight load
+ *     instead of each running the query (single flight).</li>
+ *     <li>Once an entry is older than the cache's {@code refresh-after}, callers still get the
+ *     stored value immediately while one background load replaces it (stale-while-revalidate).
+ *     The hard {@code expire-after-write} limit still applies.</li>
+ * </ul>
+ * Entries live in the regular Spring caches, so size limits, statistics and
+ * {@link CacheInvalidator} evictions work for them unchanged. An eviction also bumps the
+ * cache's generation, and a load that started in an older generation returns its value to
+ * its callers without storing it, so it cannot put back what the eviction just removed.
+ */
+@Slf4j
+@Component
+public class SingleFlightCache {
+
+    private final CacheManager cacheManager;
+    private final CacheSettings cacheSettings;
+    private final ThreadPoolTaskExecutor refreshExecutor;
+
+    private final ConcurrentMap<Flight, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public SingleFlightCache(CacheManager cacheManager, CacheSettings cacheSettings) {
+        this.cacheManager = cacheManager;
+        this.cacheSettings = cacheSettings;
+
+        // Kept private so it does not replace the application's default task executor
+        this.refreshExecutor = new ThreadPoolTaskExecutor();
+        this.refreshExecutor.setCorePoolSize(cacheSettings.getRefreshThreads());
+        this.refreshExecutor.setMaxPoolSize(cacheSettings.getRefreshThreads());
+        this.refreshExecutor.setQueueCapacity(100);
+        this.refreshExecutor.setThreadNamePrefix("cache-refresh-");
+        this.refreshExecutor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String cacheName, Object key, Supplier<T> loader) {
+
+        Cache cache = cache(cacheName);
+        Cache.ValueWrapper wrapper = cache.get(key);
+
+        if (wrapper != null && wrapper.get() instanceof Stamped stamped) {
+            if (isStale(cacheName, stamped)) {
+                refreshInBackground(cache, key, loader);
+            }
+            return (T) stamped.value();
+        }
+
+        return (T) await(load(cache, key, loader));
+    }
+
+    /**
+     * Loads the value now and replaces the cached one; joins a load that is already running.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T refresh(String cacheName, Object key, Supplier<T> loader) {
+        return (T) await(load(cache(cacheName), key, loader));
+    }
+
+    /**
+     * Called by {@link CacheInvalidator} before it evicts from the cache: loads running now may
+     * have read the state the eviction is for.
+     */
+    void invalidated(String cacheName) {
+        generation(cacheName).incrementAndGet();
+    }
+
+    private CompletableFuture<Object> load(Cache cache, Object key, Supplier<?> loader) {
+
+        Flight flight = new Flight(cache.getName(), key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(flight, mine);
+
+        if (running != null) {
+            return running;
+        }
+
+        run(cache, key, loader, flight, mine);
+        return mine;
+    }
+
+    private void refreshInBackground(Cache cache, Object key, Supplier<?> loader) {
+
+        Flight flight = new Flight(cache.getName(), key);
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+
+        if (inFlight.putIfAbsent(flight, mine) != null) {
+            return;
+        }
+
+        mine.whenComplete((value, ex) -> {
+            if (ex != null) {
+                // Keep serving the stale value; the next read past refresh-after tries again
+                log.warn("Background refresh of '{}' failed: {}", cache.getName(), ex.getMessage());
+            }
+        });
+
+        try {
+            refreshExecutor.execute(() -> run(cache, key, loader, flight, mine));
+        } catch (TaskRejectedException ex) {
+            inFlight.remove(flight, mine);
+            log.debug("Refresh of '{}' skipped, executor saturated", cache.getName());
+        }
+    }
+
+    private void run(Cache cache, Object key, Supplier<?> loader, Flight flight, CompletableFuture<Object> future) {
+        AtomicLong generation = generation(cache.getName());
+        long started = generation.get();
+
+        try {
+            Object value = loader.get();
+
+            if (generation.get() == started) {
+                cache.put(key, new Stamped(value, System.currentTimeMillis()));
+
+                // An eviction between the check and the put may have run before the put landed
+                if (generation.get() != started) {
+                    cache.evict(key);
+                }
+            } else {
+                log.debug("Load of '{}' not cached, the cache was evicted meanwhile", cache.getName());
+            }
+
+            future.complete(value);
+        } catch (RuntimeException | Error ex) {
+            future.completeExceptionally(ex);
+        } finally {
+            inFlight.remove(flight, future);
+        }
+    }
+
+    private AtomicLong generation(String cacheName) {
+        return generations.computeIfAbsent(cacheName, name -> new AtomicLong());
+    }
+
+    private boolean isStale(String cacheName, Stamped stamped) {
+        Duration refreshAfter = cacheSettings.specFor(cacheName).getRefreshAfter();
+        return refreshAfter != null
+                && System.currentTimeMillis() - stamped.loadedAt() > refreshAfter.toMillis();
+    }
+
+    private Cache cache(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            throw new IllegalArgumentException("Unknown cache: " + cacheName);
+        }
+        return cache;
+    }
+
+    private Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+
+    private record Flight(String cacheName, Object key) {
+    }
+
+    record Stamped(Object value, long loadedAt) {
+    }
+}
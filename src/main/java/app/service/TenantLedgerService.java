@@ -0,0 +1,210 @@
+package app.service;
+
+import app.model.TenantLedger;
+import app.model.enums.PaymentStatus;
+import app.repository.TenantLedgerRepository;
+import app.repository.TenantLedgerRepository.LedgerTotals;
+import app.scheduler.SchedulerLeases;
+import app.web.dto.LedgerView;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps each tenant's {@link TenantLedger} in step with their payments.
+ * <p>
+ * Every payment write reports its change here, inside the same transaction, as the payment's
+ * amount and status before and after. A payment counts as charged unless it is CANCELED, and as
+ * paid when it is SUCCESS. The ledger rows are locked while they are updated, so concurrent writes
+ * for one tenant are applied one after another. Tenant pages then read one row instead of
+ * aggregating the payment history.
+ */
+@Slf4j
+@Service
+public class TenantLedgerService {
+
+    // Released at once: a node that starts later finds nothing left to backfill
+    private static final String BACKFILL_LEASE = "tenant-ledger-backfill";
+    private static final Duration BACKFILL_AT_MOST = Duration.ofMinutes(30);
+
+    private final TenantLedgerRepository tenantLedgerRepository;
+    private final CacheInvalidator cacheInvalidator;
+    private final SchedulerLeases schedulerLeases;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public TenantLedgerService(TenantLedgerRepository tenantLedgerRepository, CacheInvalidator cacheInvalidator, SchedulerLeases schedulerLeases, PlatformTransactionManager transactionManager) {
+        this.tenantLedgerRepository = tenantLedgerRepository;
+        this.cacheInvalidator = cacheInvalidator;
+        this.schedulerLeases = schedulerLeases;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Amount and status of a payment before and after a write; {@code null} amount and status mean "did not exist".
+     */
+    public record Change(UUID tenantId, BigDecimal oldAmount, PaymentStatus oldStatus, BigDecimal newAmount, PaymentStatus newStatus) {
+
+        public static Change created(UUID tenantId, BigDecimal amount, PaymentStatus status) {
+            return new Change(tenantId, null, null, amount, status);
+        }
+    }
+
+    @Cacheable(value = "payment", key = "{#root.methodName, #tenantId}")
+    public LedgerView getLedger(UUID tenantId) {
+        return tenantLedgerRepository.findById(tenantId)
+                .map(LedgerView::from)
+                .orElseGet(() -> LedgerView.empty(tenantId));
+    }
+
+    @Transactional
+    public void record(Change change) {
+        recordAll(List.of(change));
+    }
+
+    @Transactional
+    public void recordAll(Collection<Change> changes) {
+
+        // Sum up per tenant first, so each ledger row is touched once
+        Map<UUID, Delta> deltas = new TreeMap<>();
+        for (Change change : changes) {
+            if (change.tenantId() != null) {
+                deltas.computeIfAbsent(change.tenantId(), id -> new Delta()).add(change);
+            }
+        }
+        deltas.values().removeIf(Delta::isZero);
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, TenantLedger> ledgers = lock(deltas.keySet());
+
+        // A tenant's first payment: two transactions may both miss the row, so neither persists
+        // it; the conditional insert lets the second wait for the first and then lock its row
+        Set<UUID> missing = new TreeSet<>(deltas.keySet());
+        missing.removeAll(ledgers.keySet());
+
+        if (!missing.isEmpty()) {
+            missing.forEach(tenantId -> createIfAbsent(tenantId, now));
+            ledgers.putAll(lock(missing));
+        }
+
+        deltas.forEach((tenantId, delta) -> {
+            TenantLedger ledger = ledgers.get(tenantId);
+
+            ledger.setTotalCharged(ledger.getTotalCharged().add(delta.charged));
+            ledger.setTotalPaid(ledger.getTotalPaid().add(delta.paid));
+            ledger.setOutstanding(ledger.getTotalCharged().subtract(ledger.getTotalPaid()));
+            ledger.setUpdatedAt(now);
+        });
+
+        cacheInvalidator.evictMentioning("payment", deltas.keySet().toArray());
+    }
+
+    /**
+     * Creates an empty ledger unless the tenant has one. A ledger another transaction is inserting
+     * at the same time is waited for and then left alone, instead of failing on the primary key.
+     */
+    private void createIfAbsent(UUID tenantId, LocalDateTime now) {
+        // Hibernate's ON CONFLICT, which Spring Data's @Query parser does not accept
+        entityManager.createQuery("""
+                        INSERT INTO TenantLedger (tenantId, totalCharged, totalPaid, outstanding, updatedAt)
+                        VALUES (:tenantId, 0, 0, 0, :now)
+                        ON CONFLICT DO NOTHING
+                        """)
+                .setParameter("tenantId", tenantId)
+                .setParameter("now", now)
+                .executeUpdate();
+    }
+
+    private Map<UUID, TenantLedger> lock(Set<UUID> tenantIds) {
+        return tenantLedgerRepository.findAllForUpdate(tenantIds)
+                .stream()
+                .collect(Collectors.toMap(TenantLedger::getTenantId, Function.identity()));
+    }
+
+    @Transactional
+    public void delete(UUID tenantId) {
+        tenantLedgerRepository.deleteById(tenantId);
+        cacheInvalidator.evictMentioning("payment", tenantId);
+    }
+
+    /**
+     * Creates the ledgers of tenants whose payments predate the ledger table, from one grouped query.
+     * Nodes starting together would all insert the same rows, so only the lease holder runs it.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        schedulerLeases.runExclusively(BACKFILL_LEASE, BACKFILL_AT_MOST, Duration.ZERO,
+                () -> transactionTemplate.executeWithoutResult(status -> createMissingLedgers()));
+    }
+
+    private void createMissingLedgers() {
+
+        List<LedgerTotals> missing = tenantLedgerRepository.findMissingTotals();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (LedgerTotals totals : missing) {
+            entityManager.persist(new TenantLedger(totals.getTenantId(), totals.getTotalCharged(), totals.getTotalPaid(),
+                    totals.getTotalCharged().subtract(totals.getTotalPaid()), now));
+        }
+
+        if (!missing.isEmpty()) {
+            log.info("Created {} tenant ledgers from existing payments", missing.size());
+        }
+    }
+
+    private static BigDecimal charged(BigDecimal amount, PaymentStatus status) {
+        return amount == null || status == null || status == PaymentStatus.CANCELED ? BigDecimal.ZERO : amount;
+    }
+
+    private static BigDecimal paid(BigDecimal amount, PaymentStatus status) {
+        return amount != null && status == PaymentStatus.SUCCESS ? amount : BigDecimal.ZERO;
+    }
+
+    private static final class Delta {
+
+        private BigDecimal charged = BigDecimal.ZERO;
+        private BigDecimal paid = BigDecimal.ZERO;
+
+        void add(Change change) {
+            charged = charged.add(charged(change.newAmount(), change.newStatus()))
+                    .subtract(charged(change.oldAmount(), change.oldStatus()));
+            paid = paid.add(paid(change.newAmount(), change.newStatus()))
+                    .subtract(paid(change.oldAmount(), change.oldStatus()));
+        }
+
+        boolean isZero() {
+            return charged.signum() == 0 && paid.signum() == 0;
+        }
+    }
+}
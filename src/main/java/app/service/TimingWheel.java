@@ -0,0 +1,145 @@
+package app.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel with a resolution of one day.
+ * <p>
+ * Level {@code i} has {@value #SLOTS} slots of {@code SLOTS^i} days each. Level 0 covers the next
+ * 64 days, level 1 the next ~11 years and level 2 the rest. An entry is placed on the lowest level
+ * whose range reaches its date. When a higher-level slot comes due, its entries are redistributed
+ * to the levels below. Advancing by one day therefore touches only the entries due that day, plus
+ * one cascading slot every 64 days. Scheduling and cancelling are O(1).
+ * <p>
+ * Not thread-safe; callers synchronize.
+ */
+class TimingWheel<K> {
+
+    static final int SLOTS = 64;
+    static final int LEVELS = 3;
+
+    private final List<List<Set<K>>> levels = new ArrayList<>();
+    private final Map<K, Placement<K>> placements = new HashMap<>();
+
+    // Entries scheduled on or before the last processed day, fired by the next advance
+    private final Set<K> overdue = new LinkedHashSet<>();
+
+    private long current;
+
+    /**
+     * @param lastProcessed the last day whose entries count as already fired
+     */
+    TimingWheel(LocalDate lastProcessed) {
+        this.current = lastProcessed.toEpochDay();
+
+        for (int level = 0; level < LEVELS; level++) {
+            List<Set<K>> slots = new ArrayList<>(SLOTS);
+            for (int slot = 0; slot < SLOTS; slot++) {
+                slots.add(new LinkedHashSet<>());
+            }
+            levels.add(slots);
+        }
+    }
+
+    /**
+     * Schedules {@code key} for {@code date}, replacing an earlier schedule of the same key.
+     */
+    void schedule(K key, LocalDate date) {
+        cancel(key);
+        place(key, date.toEpochDay());
+    }
+
+    boolean cancel(K key) {
+        Placement<K> placement = placements.remove(key);
+        if (placement == null) {
+            return false;
+        }
+        placement.slot().remove(key);
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code date} and returns every entry that came due on the way,
+     * with the date it was scheduled for. Fired entries are removed from the wheel.
+     */
+    List<Due<K>> advanceTo(LocalDate date) {
+
+        List<Due<K>> fired = new ArrayList<>();
+        fire(overdue, fired);
+
+        long target = date.toEpochDay();
+
+        while (current < target) {
+            long day = ++current;
+
+            // Higher levels first, so entries they hand down are cascaded again the same day if needed
+            for (int level = LEVELS - 1; level > 0; level--) {
+                long span = span(level);
+                if (day % span == 0) {
+                    Set<K> slot = levels.get(level).get(slotIndex(day, span));
+                    List<K> cascading = new ArrayList<>(slot);
+                    slot.clear();
+                    cascading.forEach(key -> place(key, placements.get(key).day()));
+                }
+            }
+
+            fire(overdue, fired);
+            fire(levels.get(0).get(slotIndex(day, 1)), fired);
+        }
+
+        return fired;
+    }
+
+    int size() {
+        return placements.size();
+    }
+
+    private void place(K key, long day) {
+
+        Set<K> slot;
+
+        if (day <= current) {
+            slot = overdue;
+        } else {
+            int level = 0;
+            while (level < LEVELS - 1 && day / span(level) - current / span(level) >= SLOTS) {
+                level++;
+            }
+            slot = levels.get(level).get(slotIndex(day, span(level)));
+        }
+
+        slot.add(key);
+        placements.put(key, new Placement<>(day, slot));
+    }
+
+    private void fire(Set<K> slot, List<Due<K>> fired) {
+        for (K key : slot) {
+            fired.add(new Due<>(key, LocalDate.ofEpochDay(placements.remove(key).day())));
+        }
+        slot.clear();
+    }
+
+    private static long span(int level) {
+        long span = 1;
+        for (int i = 0; i < level; i++) {
+            span *= SLOTS;
+        }
+        return span;
+    }
+
+    private static int slotIndex(long day, long span) {
+        return (int) Math.floorMod(day / span, (long) SLOTS);
+    }
+
+    record Due<K>(K key, LocalDate date) {
+    }
+
+    private record Placement<K>(long day, Set<K> slot) {
+    }
+}
@@ -9,7 +9,6 @@ import app.repository.UserRepository;
 import app.web.dto.ProfileUpdateRequest;
 import app.web.dto.RegisterRequest;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -24,15 +23,16 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheInvalidator cacheInvalidator;
 
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, CacheInvalidator cacheInvalidator) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.cacheInvalidator = cacheInvalidator;
     }
 
     @Transactional
-    @CacheEvict(value = "user", allEntries = true)
     public void register(RegisterRequest request) {
         if (userRepository.existsByUsername(request.getUsername()))
             throw new IllegalArgumentException("Username already exists");
@@ -53,13 +53,12 @@ public class UserService {
         log.info("New user registered: {}", user.getUsername());
     }
 
-    @Cacheable("user")
+    @Cacheable(value = "user", key = "{#root.methodName, #id}")
     public User getById(UUID id) {
         return userRepository.findById(id).orElseThrow();
     }
 
     @Transactional
-    @CacheEvict(value = "user", allEntries = true)
     public void updateProfile(UUID userId, ProfileUpdateRequest req) {
         User user = userRepository.findById(userId).orElseThrow();
 
@@ -68,10 +67,10 @@ public class UserService {
         user.setPhoneNumber(req.getPhoneNumber());
 
         userRepository.save(user);
+        cacheInvalidator.evictMentioning("user", userId);
         log.info("Profile updated for user {}", userId);
     }
     @Transactional
-    @CacheEvict(value = "user", allEntries = true)
     public void changeEmail(UUID userId, String newEmail) {
 
         if (userRepository.existsByEmail(newEmail)) {
@@ -83,11 +82,12 @@ public class UserService {
 
         user.setEmail(newEmail);
         userRepository.save(user);
+        cacheInvalidator.evictMentioning("user", userId);
 
         log.info("Email updated for user {} -> {}", userId, newEmail);
     }
 
-    @Cacheable("user")
+    @Cacheable(value = "user", key = "{#root.methodName, #ids}")
     public List<User> getAllByIds(List<UUID> ids) {
         if (ids == null || ids.isEmpty()) {
             return List.of();
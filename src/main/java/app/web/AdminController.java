@@ -1,29 +1,63 @@
 package app.web;
 
 
+import app.feign.dto.MaintenanceResponse;
 import app.model.enums.PaymentStatus;
 import app.service.AdminService;
-import app.service.MaintenanceFacade;
+import app.service.CascadeDeletion;
+import app.service.ExportService;
+import app.service.MonthlyRentBilling;
+import app.service.PaymentReconciliation;
+import app.service.RentIndexation;
+import app.web.dto.AdminContractView;
+import app.web.dto.AdminPaymentView;
+import app.web.dto.AdminPropertyView;
+import app.web.dto.AdminUserView;
+import app.web.dto.BillingJobView;
+import app.web.dto.DeletionJobView;
+import app.web.dto.IndexationReport;
+import app.web.dto.IndexationRequest;
+import app.web.dto.KeysetPage;
+import app.web.dto.ReconciliationReport;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.zip.GZIPOutputStream;
 
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
 
     private final AdminService adminService;
-    private final MaintenanceFacade maintenanceFacade;
+    private final MonthlyRentBilling monthlyRentBilling;
+    private final ExportService exportService;
+    private final PaymentReconciliation paymentReconciliation;
+    private final CascadeDeletion cascadeDeletion;
+    private final RentIndexation rentIndexation;
 
     @Autowired
-    public AdminController(AdminService adminService, MaintenanceFacade maintenanceFacade) {
+    public AdminController(AdminService adminService, MonthlyRentBilling monthlyRentBilling, ExportService exportService, PaymentReconciliation paymentReconciliation, CascadeDeletion cascadeDeletion, RentIndexation rentIndexation) {
         this.adminService = adminService;
-        this.maintenanceFacade = maintenanceFacade;
+        this.monthlyRentBilling = monthlyRentBilling;
+        this.exportService = exportService;
+        this.paymentReconciliation = paymentReconciliation;
+        this.cascadeDeletion = cascadeDeletion;
+        this.rentIndexation = rentIndexation;
     }
 
     @GetMapping("/dashboard")
@@ -32,12 +66,11 @@ public class AdminController {
 
         ModelAndView modelAndView = new ModelAndView("admin/dashboard");
 
-        modelAndView.addObject("users", adminService.getAllUsers());
-        modelAndView.addObject("properties", adminService.getAllProperties());
-        modelAndView.addObject("contracts", adminService.getAllContracts());
-        modelAndView.addObject("payments", adminService.getAllPayments());
-        modelAndView.addObject("maintenanceList", adminService.getAllMaintenance());
-        modelAndView.addObject("maintenanceCount", maintenanceFacade.getAll().size());
+        modelAndView.addObject("counts", adminService.getCounts());
+        modelAndView.addObject("users", adminService.getAllUsers(null).items());
+        List<MaintenanceResponse> maintenance = adminService.getAllMaintenance();
+        modelAndView.addObject("maintenanceList", maintenance);
+        modelAndView.addObject("maintenanceCount", maintenance.size());
 
         modelAndView.addObject("currentPath", "/admin/dashboard");
 
@@ -47,11 +80,14 @@ public class AdminController {
 
     @GetMapping("/properties")
     @PreAuthorize("hasRole('ADMIN')")
-    public ModelAndView allProperties() {
+    public ModelAndView allProperties(@RequestParam(required = false) String cursor) {
 
         ModelAndView modelAndView = new ModelAndView("admin/properties");
 
-        modelAndView.addObject("properties", adminService.getAllProperties());
+        KeysetPage<AdminPropertyView> page = adminService.getAllProperties(cursor);
+
+        modelAndView.addObject("properties", page.items());
+        modelAndView.addObject("page", page);
         modelAndView.addObject("currentPath", "/admin/properties");
 
         return modelAndView;
@@ -59,19 +95,22 @@ public class AdminController {
 
     @PostMapping("/property/delete/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public String deleteProperty(@PathVariable UUID id) {
-        adminService.deleteProperty(id);
+    public String deleteProperty(@PathVariable UUID id, RedirectAttributes redirectAttributes) {
+        redirectAttributes.addFlashAttribute("deletionJob", adminService.deleteProperty(id));
         return "redirect:/admin/properties";
     }
 
 
     @GetMapping("/contracts")
     @PreAuthorize("hasRole('ADMIN')")
-    public ModelAndView allContracts() {
+    public ModelAndView allContracts(@RequestParam(required = false) String cursor) {
 
         ModelAndView modelAndView = new ModelAndView("admin/contracts");
 
-        modelAndView.addObject("contracts", adminService.getAllContracts());
+        KeysetPage<AdminContractView> page = adminService.getAllContracts(cursor);
+
+        modelAndView.addObject("contracts", page.items());
+        modelAndView.addObject("page", page);
         modelAndView.addObject("currentPath", "/admin/contracts");
 
         return modelAndView;
@@ -86,11 +125,14 @@ public class AdminController {
 
     @GetMapping("/payments")
     @PreAuthorize("hasRole('ADMIN')")
-    public ModelAndView allPayments() {
+    public ModelAndView allPayments(@RequestParam(required = false) String cursor) {
 
         ModelAndView modelAndView = new ModelAndView("admin/payments");
 
-        modelAndView.addObject("payments", adminService.getAllPayments());
+        KeysetPage<AdminPaymentView> page = adminService.getAllPayments(cursor);
+
+        modelAndView.addObject("payments", page.items());
+        modelAndView.addObject("page", page);
         modelAndView.addObject("currentPath", "/admin/payments");
 
         return modelAndView;
@@ -100,20 +142,45 @@ public class AdminController {
     @PreAuthorize("hasRole('ADMIN')")
     public String correctPayment(@RequestParam UUID id,
                                  @RequestParam BigDecimal amount,
-                                 @RequestParam PaymentStatus status) {
+                                 @RequestParam PaymentStatus status,
+                                 @RequestParam(required = false) Long version) {
 
-        adminService.correctPayment(id, amount, status);
+        adminService.correctPayment(id, amount, status, version);
         return "redirect:/admin/payments";
     }
 
 
+    /**
+     * Imports a bank statement sent as the raw {@code text/csv} request body, so large files are
+     * read as they arrive instead of being spooled as a multipart upload.
+     */
+    @PostMapping(value = "/payments/reconcile", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ReconciliationReport> reconcilePayments(InputStream statement) {
+        return ResponseEntity.ok(paymentReconciliation.importStatement(statement));
+    }
+
+    /**
+     * Indexes rents across all owners, or the owner, city or properties given in the request.
+     * Returns a preview unless the request sets {@code dryRun} to false.
+     */
+    @PostMapping("/rents/index")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<IndexationReport> indexRents(@RequestBody IndexationRequest request) {
+        return ResponseEntity.ok(rentIndexation.index(request));
+    }
+
+
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
-    public ModelAndView manageUsers() {
+    public ModelAndView manageUsers(@RequestParam(required = false) String cursor) {
 
         ModelAndView modelAndView = new ModelAndView("admin/users");
 
-        modelAndView.addObject("users", adminService.getAllUsers());
+        KeysetPage<AdminUserView> page = adminService.getAllUsers(cursor);
+
+        modelAndView.addObject("users", page.items());
+        modelAndView.addObject("page", page);
         modelAndView.addObject("currentPath", "/admin/users");
 
         return modelAndView;
@@ -121,8 +188,61 @@ public class AdminController {
 
     @PostMapping("/users/delete/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public String deleteUser(@PathVariable UUID id) {
-        adminService.deleteUser(id);
+    public String deleteUser(@PathVariable UUID id, RedirectAttributes redirectAttributes) {
+        DeletionJobView job = adminService.deleteUser(id);
+        if (job != null) {
+            redirectAttributes.addFlashAttribute("deletionJob", job);
+        }
         return "redirect:/admin/users";
     }
+
+    @GetMapping("/deletions/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<DeletionJobView> deletionJob(@PathVariable UUID id) {
+        return ResponseEntity.of(cascadeDeletion.getJob(id));
+    }
+
+    @GetMapping("/billing/latest")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BillingJobView> latestBillingJob() {
+        return ResponseEntity.of(monthlyRentBilling.getLatestJob());
+    }
+
+    @GetMapping("/export/payments")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportPayments(@RequestParam(defaultValue = "csv") String format,
+                                                                @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("payments", ExportService.Format.of(format), gzip, exportService::exportPayments);
+    }
+
+    @GetMapping("/export/contracts")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportContracts(@RequestParam(defaultValue = "csv") String format,
+                                                                 @RequestParam(defaultValue = "false") boolean gzip) {
+        return export("contracts", ExportService.Format.of(format), gzip, exportService::exportContracts);
+    }
+
+    /**
+     * Streams an export to the response as it is read; with {@code gzip} the file itself is gzipped.
+     */
+    private ResponseEntity<StreamingResponseBody> export(String name, ExportService.Format format, boolean gzip,
+                                                         BiConsumer<OutputStream, ExportService.Format> writer) {
+
+        String filename = name + "." + format.extension() + (gzip ? ".gz" : "");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+                writer.accept(compressed, format);
+                compressed.finish();
+            } else {
+                writer.accept(out, format);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : format.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
 }
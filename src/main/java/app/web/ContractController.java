@@ -1,10 +1,10 @@
 package app.web;
 
-import app.model.Property;
 import app.security.UserData;
 import app.service.ContractService;
 import app.service.PropertyService;
 import app.web.dto.ContractRequest;
+import app.web.dto.PropertyView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -30,9 +30,9 @@ public class ContractController {
     @GetMapping("/create/{propertyId}")
     public ModelAndView createPage(@PathVariable UUID propertyId) {
 
-        Property property = propertyService.getById(propertyId);
+        PropertyView property = propertyService.getById(propertyId);
 
-        if (!property.getStatus().name().equals("AVAILABLE")) {
+        if (!property.status().name().equals("AVAILABLE")) {
             return new ModelAndView("redirect:/properties/" + propertyId);
         }
 
@@ -3,6 +3,7 @@ package app.web;
 import app.exception.ResourceNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -38,5 +39,16 @@ public class GlobalExceptionHandler {
         return modelAndView;
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ModelAndView handleConcurrentUpdate(OptimisticLockingFailureException exception,
+                                               HttpServletRequest request) {
+
+        log.warn("Concurrent update at {}: {}", request.getRequestURI(), exception.getMessage());
 
+        ModelAndView modelAndView = new ModelAndView("error/general");
+        modelAndView.setStatus(HttpStatus.CONFLICT);
+        modelAndView.addObject("message", "This record was changed by someone else in the meantime. Reload the page and try again.");
+        modelAndView.addObject("path", request.getRequestURI());
+        return modelAndView;
+    }
 }
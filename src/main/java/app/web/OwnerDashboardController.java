@@ -1,19 +1,30 @@
 package app.web;
 
-import app.model.Payment;
 import app.model.Property;
-import app.model.RentalContract;
 import app.security.UserData;
 import app.service.ContractService;
 import app.service.MaintenanceFacade;
 import app.service.PaymentService;
 import app.service.PropertyService;
+import app.service.RentIndexation;
+import app.web.dto.ContractView;
+import app.web.dto.IndexationReport;
+import app.web.dto.IndexationRequest;
+import app.web.dto.KeysetPage;
+import app.web.dto.PaymentView;
+import app.web.dto.PropertyContractView;
+import app.web.dto.PropertyPaymentView;
+import app.web.dto.PropertyView;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.ModelAndView;
 
 import java.util.List;
@@ -28,13 +39,15 @@ public class OwnerDashboardController {
     private final ContractService contractService;
     private final PaymentService paymentService;
     private final MaintenanceFacade maintenanceFacade;
+    private final RentIndexation rentIndexation;
 
     @Autowired
-    public OwnerDashboardController(PropertyService propertyService, ContractService contractService, PaymentService paymentService, MaintenanceFacade maintenanceFacade) {
+    public OwnerDashboardController(PropertyService propertyService, ContractService contractService, PaymentService paymentService, MaintenanceFacade maintenanceFacade, RentIndexation rentIndexation) {
         this.propertyService = propertyService;
         this.contractService = contractService;
         this.paymentService = paymentService;
         this.maintenanceFacade = maintenanceFacade;
+        this.rentIndexation = rentIndexation;
     }
 
     @GetMapping("/dashboard")
@@ -59,8 +72,8 @@ public class OwnerDashboardController {
     public ModelAndView propertyContracts(@PathVariable UUID id,
                                     @AuthenticationPrincipal UserData user) {
 
-        Property property = propertyService.getByIdForOwner(id, user.getUserId()); // but now returns Property
-        List<RentalContract> contracts = contractService.getByProperty(id);
+        PropertyView property = propertyService.getByIdForOwner(id, user.getUserId());
+        List<PropertyContractView> contracts = contractService.getByProperty(id);
         ModelAndView modelAndView = new ModelAndView("owner/property-contracts");
 
         modelAndView.addObject("property", property);
@@ -72,12 +85,16 @@ public class OwnerDashboardController {
 
     @GetMapping("/property/{id}/payments")
     public ModelAndView payments(@PathVariable UUID id,
+                           @RequestParam(required = false) String cursor,
                            @AuthenticationPrincipal UserData user) {
 
-        Property property = propertyService.getByIdForOwner(id, user.getUserId());
+        PropertyView property = propertyService.getByIdForOwner(id, user.getUserId());
+        KeysetPage<PropertyPaymentView> page = paymentService.getPaymentsForProperty(id, user.getUserId(), cursor);
+
         ModelAndView modelAndView = new ModelAndView("owner/property-payments");
         modelAndView.addObject("property", property);
-        modelAndView.addObject("payments", paymentService.getPaymentsForProperty(id, user.getUserId()));
+        modelAndView.addObject("payments", page.items());
+        modelAndView.addObject("page", page);
         modelAndView.addObject("currentPath", "/owner/dashboard");
 
         return modelAndView;
@@ -87,8 +104,8 @@ public class OwnerDashboardController {
     @GetMapping("/contract/payments/{contractId}")
     public ModelAndView contractPayments(@PathVariable UUID contractId) {
 
-        RentalContract contract = contractService.getById(contractId);
-        List<Payment> payments = paymentService.getByContract(contractId);
+        ContractView contract = contractService.getById(contractId);
+        List<PaymentView> payments = paymentService.getByContract(contractId);
 
         ModelAndView modelAndView = new ModelAndView("owner/contract-payments");
         modelAndView.addObject("contract", contract);
@@ -96,4 +113,16 @@ public class OwnerDashboardController {
 
         return modelAndView;
     }
+
+
+    /**
+     * Indexes the rents of the owner's own properties and contracts; see {@link RentIndexation}.
+     */
+    @PostMapping("/rents/index")
+    public ResponseEntity<IndexationReport> indexRents(@RequestBody IndexationRequest request,
+                                                       @AuthenticationPrincipal UserData owner) {
+
+        request.setOwnerId(owner.getUserId());
+        return ResponseEntity.ok(rentIndexation.index(request));
+    }
 }
@@ -1,11 +1,14 @@
 package app.web;
 
-import app.model.Property;
 import app.model.enums.Role;
 import app.repository.RentalContractRepository;
 import app.security.UserData;
 import app.service.PropertyService;
+import app.web.dto.KeysetPage;
+import app.web.dto.PropertyCard;
 import app.web.dto.PropertyRequest;
+import app.web.dto.PropertySearchRequest;
+import app.web.dto.PropertyView;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
@@ -28,23 +31,19 @@ public class PropertyController {
     }
 
     @GetMapping
-    public ModelAndView search(@RequestParam(required = false) String city,
-                         @RequestParam(required = false) String keyword,
-                         @RequestParam(required = false) Integer minBedrooms,
-                         @RequestParam(required = false) Integer maxBedrooms,
+    public ModelAndView search(@ModelAttribute("search") PropertySearchRequest search,
+                         @RequestParam(required = false) String cursor,
                          @AuthenticationPrincipal UserData user) {
 
         ModelAndView modelAndView = new ModelAndView("properties/list");
         modelAndView.addObject("currentPath", "/properties");
 
-        if (user.getRole() == Role.TENANT) {
-            modelAndView.addObject("properties",
-                    propertyService.searchAvailable(city, keyword, minBedrooms, maxBedrooms));
-            return modelAndView;
-        }
+        KeysetPage<PropertyCard> result = user.getRole() == Role.TENANT
+                ? propertyService.searchAvailable(search, cursor)
+                : propertyService.search(search, cursor);
 
-        modelAndView.addObject("properties",
-                propertyService.search(city, keyword, minBedrooms, maxBedrooms));
+        modelAndView.addObject("properties", result.items());
+        modelAndView.addObject("page", result);
 
         return modelAndView;
     }
@@ -54,7 +53,7 @@ public class PropertyController {
     public ModelAndView details(@PathVariable UUID id,
                           @AuthenticationPrincipal UserData user) {
 
-        Property property = propertyService.getById(id);
+        PropertyView property = propertyService.getById(id);
         ModelAndView modelAndView = new ModelAndView("properties/details");
         modelAndView.addObject("property", property);
         modelAndView.addObject("currentPath", "/properties");
@@ -87,9 +86,13 @@ public class PropertyController {
     }
 
     @GetMapping("/owner/edit/{id}")
-    public ModelAndView editPage(@PathVariable UUID id) {
+    public ModelAndView editPage(@PathVariable UUID id,
+                                 @AuthenticationPrincipal UserData user) {
+        PropertyView property = propertyService.getByIdForOwner(id, user.getUserId());
+
         ModelAndView modelAndView = new ModelAndView("owner/property-edit");
-        modelAndView.addObject("property", propertyService.getById(id));
+        modelAndView.addObject("property", property);
+        modelAndView.addObject("propertyRequest", PropertyRequest.from(property));
         modelAndView.addObject("currentPath", "/owner/dashboard");
 
         return modelAndView;
@@ -1,11 +1,13 @@
     package app.web;
 
-    import app.model.Payment;
-    import app.model.RentalContract;
     import app.security.UserData;
     import app.service.ContractService;
     import app.service.PaymentService;
+    import app.service.TenantLedgerService;
     import app.service.UserService;
+    import app.web.dto.ContractView;
+    import app.web.dto.KeysetPage;
+    import app.web.dto.PaymentView;
     import org.springframework.beans.factory.annotation.Autowired;
     import org.springframework.boot.jackson.JsonMixinModuleEntries;
     import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -13,7 +15,9 @@
     import org.springframework.web.bind.annotation.GetMapping;
     import org.springframework.web.bind.annotation.PathVariable;
     import org.springframework.web.bind.annotation.PostMapping;
+    import org.springframework.web.bind.annotation.RequestHeader;
     import org.springframework.web.bind.annotation.RequestMapping;
+    import org.springframework.web.bind.annotation.RequestParam;
     import org.springframework.web.servlet.ModelAndView;
 
     import java.util.List;
@@ -28,20 +32,22 @@
         private final ContractService rentalContractService;
         private final UserService userService;
         private final JsonMixinModuleEntries jsonMixinModuleEntries;
+        private final TenantLedgerService tenantLedgerService;
 
         @Autowired
-        public TenantDashboardController(ContractService contractService, PaymentService paymentService, ContractService rentalContractService, UserService userService, JsonMixinModuleEntries jsonMixinModuleEntries) {
+        public TenantDashboardController(ContractService contractService, PaymentService paymentService, ContractService rentalContractService, UserService userService, JsonMixinModuleEntries jsonMixinModuleEntries, TenantLedgerService tenantLedgerService) {
             this.contractService = contractService;
             this.paymentService = paymentService;
             this.rentalContractService = rentalContractService;
             this.userService = userService;
             this.jsonMixinModuleEntries = jsonMixinModuleEntries;
+            this.tenantLedgerService = tenantLedgerService;
         }
 
         @GetMapping("/dashboard")
         public ModelAndView dashboard(@AuthenticationPrincipal UserData user) {
 
-            RentalContract active = contractService.getActiveContract(user.getUserId());
+            ContractView active = contractService.getActiveContract(user.getUserId());
             ModelAndView modelAndView = new ModelAndView("tenant/dashboard");
             modelAndView.addObject("activeContract", active);
 
@@ -55,21 +61,31 @@
         }
 
         @GetMapping("/payments")
-        public ModelAndView list(@AuthenticationPrincipal UserData user) {
+        public ModelAndView list(@RequestParam(required = false) String cursor,
+                                 @AuthenticationPrincipal UserData user) {
 
-            List<Payment> payments = paymentService.getPaymentsForTenant(user.getUserId());
+            KeysetPage<PaymentView> page = paymentService.getPaymentsForTenant(user.getUserId(), cursor);
             ModelAndView modelAndView = new ModelAndView("tenant/payments");
-            modelAndView.addObject("payments", payments);
+            modelAndView.addObject("payments", page.items());
+            modelAndView.addObject("page", page);
+            modelAndView.addObject("ledger", tenantLedgerService.getLedger(user.getUserId()));
+            modelAndView.addObject("payNonce", UUID.randomUUID());
             modelAndView.addObject("currentPath", "/tenant/payments");
 
             return modelAndView;
         }
 
+        /**
+         * The page renders one idempotency key per pay button, so a double click or a resubmitted
+         * form pays once. API clients may send their own key in the {@code Idempotency-Key} header.
+         */
         @PostMapping("/payments/pay/{id}")
         public String pay(@PathVariable UUID id,
+                          @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKeyHeader,
+                          @RequestParam(required = false) String idempotencyKey,
                           @AuthenticationPrincipal UserData user) {
 
-            paymentService.pay(id, user.getUserId());
+            paymentService.pay(id, user.getUserId(), idempotencyKeyHeader != null ? idempotencyKeyHeader : idempotencyKey);
             return "redirect:/tenant/payments";
         }
 
@@ -78,7 +94,7 @@
 
             UUID tenantId = user.getUserId();
 
-            List<RentalContract> history = rentalContractService.getFullHistoryForTenant(tenantId);
+            List<ContractView> history = rentalContractService.getFullHistoryForTenant(tenantId);
 
             ModelAndView modelAndView = new ModelAndView("tenant/contract-history");
             modelAndView.addObject("history", history);
@@ -91,16 +107,17 @@
         public ModelAndView paymentsForContract(@PathVariable UUID contractId,
                                                 @AuthenticationPrincipal UserData user) {
 
-            RentalContract contract = contractService.getById(contractId);
-            if (!contract.getTenant().getId().equals(user.getUserId())) {
+            ContractView contract = contractService.getById(contractId);
+            if (!contract.tenantId().equals(user.getUserId())) {
                 throw new SecurityException("Unauthorized");
             }
 
-            List<Payment> payments = paymentService.getByContract(contractId);
+            List<PaymentView> payments = paymentService.getByContract(contractId);
 
             ModelAndView modelAndView = new ModelAndView("tenant/payments");
             modelAndView.addObject("payments", payments);
             modelAndView.addObject("contract", contract);
+            modelAndView.addObject("payNonce", UUID.randomUUID());
             modelAndView.addObject("currentPath", "/tenant/payments");
 
             return modelAndView;
@@ -0,0 +1,36 @@
+package app.web.dto;
+
+import app.model.Property;
+import app.model.RentalContract;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a contract row as listed on the admin contracts page.
+ */
+public record AdminContractView(UUID id,
+                                String propertyTitle,
+                                String ownerUsername,
+                                String tenantUsername,
+                                BigDecimal monthlyRent,
+                                LocalDate startDate,
+                                LocalDate endDate,
+                                boolean active) {
+
+    public static AdminContractView from(RentalContract contract) {
+
+        Property property = contract.getProperty();
+
+        return new AdminContractView(
+                contract.getId(),
+                property.getTitle(),
+                property.getOwner().getUsername(),
+                contract.getTenant().getUsername(),
+                contract.getMonthlyRent(),
+                contract.getStartDate(),
+                contract.getEndDate(),
+                contract.isActive());
+    }
+}
@@ -0,0 +1,38 @@
+package app.web.dto;
+
+import app.model.Payment;
+import app.model.Property;
+import app.model.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a payment row as listed on the admin payments page. The version
+ * goes back with a correction, so a payment changed in the meantime is not overwritten.
+ */
+public record AdminPaymentView(UUID id,
+                               String propertyTitle,
+                               String ownerUsername,
+                               String tenantUsername,
+                               BigDecimal amount,
+                               LocalDate dueDate,
+                               PaymentStatus status,
+                               long version) {
+
+    public static AdminPaymentView from(Payment payment) {
+
+        Property property = payment.getContract().getProperty();
+
+        return new AdminPaymentView(
+                payment.getId(),
+                property.getTitle(),
+                property.getOwner().getUsername(),
+                payment.getContract().getTenant().getUsername(),
+                payment.getAmount(),
+                payment.getDueDate(),
+                payment.getStatus(),
+                payment.getVersion());
+    }
+}
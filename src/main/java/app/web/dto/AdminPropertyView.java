@@ -0,0 +1,32 @@
+package app.web.dto;
+
+import app.model.Property;
+import app.model.enums.Status;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a property row as listed on the admin properties page.
+ */
+public record AdminPropertyView(UUID id,
+                                String title,
+                                String city,
+                                String ownerUsername,
+                                BigDecimal monthlyRent,
+                                int bedrooms,
+                                Status status,
+                                long contracts) {
+
+    public static AdminPropertyView from(Property property, long contracts) {
+        return new AdminPropertyView(
+                property.getId(),
+                property.getTitle(),
+                property.getCity(),
+                property.getOwner().getUsername(),
+                property.getMonthlyRent(),
+                property.getBedrooms(),
+                property.getStatus(),
+                contracts);
+    }
+}
@@ -0,0 +1,25 @@
+package app.web.dto;
+
+import app.model.User;
+import app.model.enums.Role;
+
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a user row as listed on the admin users page.
+ */
+public record AdminUserView(UUID id,
+                            String username,
+                            String email,
+                            Role role,
+                            String phoneNumber) {
+
+    public static AdminUserView from(User user) {
+        return new AdminUserView(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getRole(),
+                user.getPhoneNumber());
+    }
+}
@@ -0,0 +1,46 @@
+package app.web.dto;
+
+import app.model.BillingJob;
+import app.model.enums.JobStatus;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of a monthly billing job as reported to admins.
+ */
+public record BillingJobView(UUID id,
+                             LocalDate runDate,
+                             JobStatus status,
+                             int totalContracts,
+                             int totalChunks,
+                             int completedChunks,
+                             int createdPayments,
+                             int percentDone,
+                             long paymentsPerSecond,
+                             LocalDateTime startedAt,
+                             LocalDateTime finishedAt) {
+
+    public static BillingJobView from(BillingJob job) {
+
+        int percent = job.getTotalChunks() == 0 ? 100 : job.getCompletedChunks() * 100 / job.getTotalChunks();
+
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+        long seconds = Math.max(1, Duration.between(job.getStartedAt(), end).toSeconds());
+
+        return new BillingJobView(
+                job.getId(),
+                job.getRunDate(),
+                job.getStatus(),
+                job.getTotalContracts(),
+                job.getTotalChunks(),
+                job.getCompletedChunks(),
+                job.getCreatedPayments(),
+                percent,
+                job.getCreatedPayments() / seconds,
+                job.getStartedAt(),
+                job.getFinishedAt());
+    }
+}
@@ -0,0 +1,28 @@
+package app.web.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One rental contract as written to the admin export, selected directly by the export query.
+ */
+public record ContractExportRow(UUID id,
+                                UUID propertyId,
+                                String propertyTitle,
+                                String city,
+                                String tenant,
+                                BigDecimal monthlyRent,
+                                LocalDate startDate,
+                                LocalDate endDate,
+                                boolean active) {
+
+    public static final List<String> COLUMNS = List.of(
+            "id", "propertyId", "propertyTitle", "city", "tenant", "monthlyRent", "startDate", "endDate", "active");
+
+    public List<Object> values() {
+        return Arrays.asList(id, propertyId, propertyTitle, city, tenant, monthlyRent, startDate, endDate, active);
+    }
+}
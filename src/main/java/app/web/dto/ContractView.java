@@ -0,0 +1,40 @@
+package app.web.dto;
+
+import app.model.Property;
+import app.model.RentalContract;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a tenant's contract with the property fields the dashboard shows.
+ */
+public record ContractView(UUID id,
+                           UUID tenantId,
+                           UUID propertyId,
+                           String propertyTitle,
+                           String propertyCity,
+                           String propertyAddress,
+                           BigDecimal monthlyRent,
+                           LocalDate startDate,
+                           LocalDate endDate,
+                           boolean active) {
+
+    public static ContractView from(RentalContract contract) {
+
+        Property property = contract.getProperty();
+
+        return new ContractView(
+                contract.getId(),
+                contract.getTenant().getId(),
+                property.getId(),
+                property.getTitle(),
+                property.getCity(),
+                property.getAddress(),
+                contract.getMonthlyRent(),
+                contract.getStartDate(),
+                contract.getEndDate(),
+                contract.isActive());
+    }
+}
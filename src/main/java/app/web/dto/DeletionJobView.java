@@ -0,0 +1,47 @@
+package app.web.dto;
+
+import app.model.DeletionJob;
+import app.model.enums.DeletionTarget;
+import app.model.enums.JobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress of a background deletion job as reported to admins.
+ */
+public record DeletionJobView(UUID id,
+                              DeletionTarget target,
+                              UUID targetId,
+                              JobStatus status,
+                              int totalProperties,
+                              int deletedProperties,
+                              int deletedContracts,
+                              int deletedPayments,
+                              int percentDone,
+                              LocalDateTime startedAt,
+                              LocalDateTime finishedAt,
+                              String error) {
+
+    public static DeletionJobView from(DeletionJob job) {
+
+        int percent = 100;
+        if (job.getStatus() != JobStatus.COMPLETED) {
+            percent = job.getTotalProperties() == 0 ? 0 : job.getDeletedProperties() * 100 / job.getTotalProperties();
+        }
+
+        return new DeletionJobView(
+                job.getId(),
+                job.getTarget(),
+                job.getTargetId(),
+                job.getStatus(),
+                job.getTotalProperties(),
+                job.getDeletedProperties(),
+                job.getDeletedContracts(),
+                job.getDeletedPayments(),
+                percent,
+                job.getStartedAt(),
+                job.getFinishedAt(),
+                job.getError());
+    }
+}
@@ -0,0 +1,21 @@
+package app.web.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a rent indexation, or its preview when {@code dryRun} is set. Only the first changes are
+ * listed; the counters and {@code contractRentIncrease} cover all of them.
+ */
+public record IndexationReport(boolean dryRun,
+                               BigDecimal factor,
+                               long propertiesIndexed,
+                               long contractsIndexed,
+                               BigDecimal contractRentIncrease,
+                               long durationMs,
+                               List<RentChange> changes) {
+
+    public record RentChange(String kind, UUID id, UUID propertyId, BigDecimal oldRent, BigDecimal newRent) {
+    }
+}
@@ -0,0 +1,44 @@
+package app.web.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A bulk rent indexation: either a flat {@code percent}, or a CPI-style ratio of
+ * {@code currentIndex} to {@code baseIndex}. Runs as a preview unless {@code dryRun} is false.
+ */
+@Data
+public class IndexationRequest {
+
+    private BigDecimal percent;
+
+    private BigDecimal baseIndex;
+
+    private BigDecimal currentIndex;
+
+    // Upper limit of the increase, e.g. a contractual cap on CPI indexation
+    private BigDecimal capPercent;
+
+    private boolean allowDecrease;
+
+    private boolean wholeEuros;
+
+    private boolean indexContracts = true;
+
+    private boolean indexProperties;
+
+    // Scope; owners are always limited to their own properties
+    private UUID ownerId;
+
+    private String city;
+
+    private List<UUID> propertyIds;
+
+    // Rents set or indexed more recently than this are left alone, so a repeated run does not index twice
+    private int minIntervalMonths = 12;
+
+    private boolean dryRun = true;
+}
@@ -0,0 +1,108 @@
+package app.web.dto;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Turns keyset scroll positions into opaque, URL-safe cursor strings and back.
+ * The cursor carries the scroll direction and the sort key values of the
+ * boundary row, each tagged with its type. Decoding checks them against
+ * the sort keys of the listing the cursor is submitted to.
+ */
+public final class KeysetCursor {
+
+    private KeysetCursor() {
+    }
+
+    public static String forward(Map<String, ?> keys) {
+        return encode('F', keys);
+    }
+
+    public static String backward(Map<String, ?> keys) {
+        return encode('B', keys);
+    }
+
+    /**
+     * Decodes a cursor of a listing sorted by the given keys. A missing or malformed cursor, or
+     * one whose keys are not exactly the listing's (names and value types), starts from the
+     * first page, so a tampered cursor never reaches the query.
+     */
+    public static KeysetScrollPosition decode(String cursor, Map<String, Class<?>> sortKeys) {
+
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(";");
+
+            Map<String, Object> keys = new LinkedHashMap<>();
+            for (int i = 1; i < parts.length; i++) {
+                String[] pair = parts[i].split("=", 2);
+                String value = URLDecoder.decode(pair[1].substring(2), StandardCharsets.UTF_8);
+                keys.put(pair[0], parse(pair[1].charAt(0), value));
+            }
+
+            if (!matches(keys, sortKeys)) {
+                return ScrollPosition.keyset();
+            }
+
+            return "B".equals(parts[0]) ? ScrollPosition.backward(keys) : ScrollPosition.forward(keys);
+        } catch (RuntimeException ex) {
+            return ScrollPosition.keyset();
+        }
+    }
+
+    private static boolean matches(Map<String, Object> keys, Map<String, Class<?>> sortKeys) {
+
+        if (!keys.keySet().equals(sortKeys.keySet())) {
+            return false;
+        }
+
+        return sortKeys.entrySet().stream()
+                .allMatch(key -> key.getValue().isInstance(keys.get(key.getKey())));
+    }
+
+    private static String encode(char direction, Map<String, ?> keys) {
+
+        StringBuilder raw = new StringBuilder().append(direction);
+        keys.forEach((name, value) -> raw.append(';')
+                .append(name)
+                .append('=')
+                .append(tag(value))
+                .append(':')
+                .append(URLEncoder.encode(String.valueOf(value), StandardCharsets.UTF_8)));
+
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static char tag(Object value) {
+        if (value instanceof UUID) return 'U';
+        if (value instanceof LocalDateTime) return 'T';
+        if (value instanceof LocalDate) return 'D';
+        if (value instanceof Boolean) return 'Z';
+        return 'S';
+    }
+
+    private static Object parse(char tag, String value) {
+        return switch (tag) {
+            case 'U' -> UUID.fromString(value);
+            case 'T' -> LocalDateTime.parse(value);
+            case 'D' -> LocalDate.parse(value);
+            case 'Z' -> Boolean.parseBoolean(value);
+            default -> value;
+        };
+    }
+}
@@ -0,0 +1,53 @@
+package app.web.dto;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code next} and {@code previous}
+ * are opaque cursors (see {@link KeysetCursor}), {@code null} when there is
+ * nothing further in that direction. {@code total} is {@code -1} when the
+ * listing does not count its rows.
+ */
+public record KeysetPage<T>(List<T> items, String next, String previous, long total) {
+
+    public static <T> KeysetPage<T> from(Window<T> window, KeysetScrollPosition requested) {
+
+        List<T> items = window.getContent();
+        if (items.isEmpty()) {
+            return new KeysetPage<>(items, null, null, -1);
+        }
+
+        boolean backward = requested.scrollsBackward();
+        boolean hasNext = backward || window.hasNext();
+        boolean hasPrevious = backward ? window.hasNext() : !requested.isInitial();
+
+        String next = hasNext
+                ? KeysetCursor.forward(((KeysetScrollPosition) window.positionAt(items.size() - 1)).getKeys())
+                : null;
+        String previous = hasPrevious
+                ? KeysetCursor.backward(((KeysetScrollPosition) window.positionAt(0)).getKeys())
+                : null;
+
+        return new KeysetPage<>(items, next, previous, -1);
+    }
+
+    public KeysetPage<T> withTotal(long total) {
+        return new KeysetPage<>(items, next, previous, total);
+    }
+
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new KeysetPage<>(items.stream().<R>map(mapper).toList(), next, previous, total);
+    }
+
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    public boolean hasPrevious() {
+        return previous != null;
+    }
+}
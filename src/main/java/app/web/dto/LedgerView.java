@@ -0,0 +1,30 @@
+package app.web.dto;
+
+import app.model.TenantLedger;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a tenant's account totals.
+ */
+public record LedgerView(UUID tenantId,
+                         BigDecimal totalCharged,
+                         BigDecimal totalPaid,
+                         BigDecimal outstanding,
+                         LocalDateTime updatedAt) {
+
+    public static LedgerView from(TenantLedger ledger) {
+        return new LedgerView(
+                ledger.getTenantId(),
+                ledger.getTotalCharged(),
+                ledger.getTotalPaid(),
+                ledger.getOutstanding(),
+                ledger.getUpdatedAt());
+    }
+
+    public static LedgerView empty(UUID tenantId) {
+        return new LedgerView(tenantId, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO, null);
+    }
+}
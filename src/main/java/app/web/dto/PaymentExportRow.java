@@ -0,0 +1,32 @@
+package app.web.dto;
+
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One payment as written to the admin export, selected directly by the export query.
+ */
+public record PaymentExportRow(UUID id,
+                               UUID contractId,
+                               String tenant,
+                               String propertyTitle,
+                               PaymentType type,
+                               PaymentStatus status,
+                               BigDecimal amount,
+                               LocalDate dueDate,
+                               LocalDateTime paidAt) {
+
+    public static final List<String> COLUMNS = List.of(
+            "id", "contractId", "tenant", "propertyTitle", "type", "status", "amount", "dueDate", "paidAt");
+
+    public List<Object> values() {
+        return Arrays.asList(id, contractId, tenant, propertyTitle, type, status, amount, dueDate, paidAt);
+    }
+}
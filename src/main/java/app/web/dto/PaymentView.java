@@ -0,0 +1,35 @@
+package app.web.dto;
+
+import app.model.Payment;
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a payment row as listed on the tenant payments page.
+ */
+public record PaymentView(UUID id,
+                          UUID contractId,
+                          String propertyTitle,
+                          BigDecimal amount,
+                          LocalDate dueDate,
+                          PaymentStatus status,
+                          PaymentType type,
+                          LocalDateTime paidAt) {
+
+    public static PaymentView from(Payment payment) {
+        return new PaymentView(
+                payment.getId(),
+                payment.getContract().getId(),
+                payment.getContract().getProperty().getTitle(),
+                payment.getAmount(),
+                payment.getDueDate(),
+                payment.getStatus(),
+                payment.getType(),
+                payment.getPaidAt());
+    }
+}
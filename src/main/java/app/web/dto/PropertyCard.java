@@ -0,0 +1,32 @@
+package app.web.dto;
+
+import app.model.Property;
+import app.model.enums.Status;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a property as listed in the search results.
+ */
+public record PropertyCard(UUID id,
+                           String title,
+                           String city,
+                           int bedrooms,
+                           int bathrooms,
+                           BigDecimal monthlyRent,
+                           Status status,
+                           String coverImageUrl) {
+
+    public static PropertyCard from(Property property) {
+        return new PropertyCard(
+                property.getId(),
+                property.getTitle(),
+                property.getCity(),
+                property.getBedrooms(),
+                property.getBathrooms(),
+                property.getMonthlyRent(),
+                property.getStatus(),
+                property.getImageUrls().isEmpty() ? null : property.getImageUrls().get(0));
+    }
+}
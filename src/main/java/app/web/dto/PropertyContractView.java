@@ -0,0 +1,36 @@
+package app.web.dto;
+
+import app.model.RentalContract;
+import app.model.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a contract on one of the owner's properties, with the tenant's name.
+ */
+public record PropertyContractView(UUID id,
+                                   UUID tenantId,
+                                   String tenantFirstName,
+                                   String tenantLastName,
+                                   BigDecimal monthlyRent,
+                                   LocalDate startDate,
+                                   LocalDate endDate,
+                                   boolean active) {
+
+    public static PropertyContractView from(RentalContract contract) {
+
+        User tenant = contract.getTenant();
+
+        return new PropertyContractView(
+                contract.getId(),
+                tenant.getId(),
+                tenant.getFirstName(),
+                tenant.getLastName(),
+                contract.getMonthlyRent(),
+                contract.getStartDate(),
+                contract.getEndDate(),
+                contract.isActive());
+    }
+}
@@ -0,0 +1,41 @@
+package app.web.dto;
+
+import app.model.Payment;
+import app.model.User;
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a payment row as listed on the owner's property payments page.
+ */
+public record PropertyPaymentView(UUID id,
+                                  UUID contractId,
+                                  String tenantFirstName,
+                                  String tenantLastName,
+                                  BigDecimal amount,
+                                  LocalDate dueDate,
+                                  PaymentStatus status,
+                                  PaymentType type,
+                                  LocalDateTime paidAt) {
+
+    public static PropertyPaymentView from(Payment payment) {
+
+        User tenant = payment.getContract().getTenant();
+
+        return new PropertyPaymentView(
+                payment.getId(),
+                payment.getContract().getId(),
+                tenant.getFirstName(),
+                tenant.getLastName(),
+                payment.getAmount(),
+                payment.getDueDate(),
+                payment.getStatus(),
+                payment.getType(),
+                payment.getPaidAt());
+    }
+}
@@ -35,6 +35,23 @@ public class PropertyRequest {
     private BigDecimal monthlyRent;
 
     private MultipartFile[] images;
+
+    /**
+     * The edit form's values, filled from the property as it is now.
+     */
+    public static PropertyRequest from(PropertyView property) {
+
+        PropertyRequest request = new PropertyRequest();
+        request.setTitle(property.title());
+        request.setDescription(property.description());
+        request.setCity(property.city());
+        request.setAddress(property.address());
+        request.setBedrooms(property.bedrooms());
+        request.setBathrooms(property.bathrooms());
+        request.setAreaSqm(property.areaSqm());
+        request.setMonthlyRent(property.monthlyRent());
+        return request;
+    }
 }
 
 
@@ -0,0 +1,25 @@
+package app.web.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class PropertySearchRequest {
+
+    private String city;
+
+    private String keyword;
+
+    private Integer minBedrooms;
+
+    private Integer maxBedrooms;
+
+    private Integer minBathrooms;
+
+    private BigDecimal minRent;
+
+    private BigDecimal maxRent;
+
+    private BigDecimal minArea;
+}
@@ -0,0 +1,54 @@
+package app.web.dto;
+
+import app.model.Property;
+import app.model.User;
+import app.model.enums.Status;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of a property for the details and contract pages.
+ * Safe to cache: it holds no lazy associations and cannot be modified.
+ */
+public record PropertyView(UUID id,
+                           String title,
+                           String description,
+                           String city,
+                           String address,
+                           int bedrooms,
+                           int bathrooms,
+                           BigDecimal areaSqm,
+                           BigDecimal monthlyRent,
+                           Status status,
+                           List<String> imageUrls,
+                           UUID ownerId,
+                           String ownerUsername,
+                           String ownerFirstName,
+                           String ownerLastName,
+                           String ownerPhoneNumber) {
+
+    public static PropertyView from(Property property) {
+
+        User owner = property.getOwner();
+
+        return new PropertyView(
+                property.getId(),
+                property.getTitle(),
+                property.getDescription(),
+                property.getCity(),
+                property.getAddress(),
+                property.getBedrooms(),
+                property.getBathrooms(),
+                property.getAreaSqm(),
+                property.getMonthlyRent(),
+                property.getStatus(),
+                property.getImageUrls() == null ? List.of() : List.copyOf(property.getImageUrls()),
+                owner.getId(),
+                owner.getUsername(),
+                owner.getFirstName(),
+                owner.getLastName(),
+                owner.getPhoneNumber());
+    }
+}
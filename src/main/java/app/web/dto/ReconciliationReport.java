@@ -0,0 +1,19 @@
+package app.web.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Outcome of a bank-statement import. Only the first unmatched lines are listed; {@code unmatched}
+ * counts all of them.
+ */
+public record ReconciliationReport(long lines,
+                                   long matched,
+                                   long unmatched,
+                                   BigDecimal matchedAmount,
+                                   long durationMs,
+                                   List<UnmatchedLine> unmatchedLines) {
+
+    public record UnmatchedLine(long lineNo, String reference, String amount, String reason) {
+    }
+}
@@ -0,0 +1,134 @@
+package app;
+
+import app.model.Payment;
+import app.model.Property;
+import app.model.RentalContract;
+import app.model.User;
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.IdempotencyKeyRepository;
+import app.repository.PaymentRepository;
+import app.repository.PropertyRepository;
+import app.repository.RentalContractRepository;
+import app.repository.TenantLedgerRepository;
+import app.repository.UserRepository;
+import app.service.TenantLedgerService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Saves users, properties, contracts and payments for the integration tests that commit their data
+ * instead of rolling it back, and deletes them again afterwards.
+ */
+@Component
+public class TestData {
+
+    private final UserRepository userRepository;
+    private final PropertyRepository propertyRepository;
+    private final RentalContractRepository rentalContractRepository;
+    private final PaymentRepository paymentRepository;
+    private final TenantLedgerRepository tenantLedgerRepository;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TenantLedgerService tenantLedgerService;
+
+    @Autowired
+    public TestData(UserRepository userRepository, PropertyRepository propertyRepository, RentalContractRepository rentalContractRepository, PaymentRepository paymentRepository, TenantLedgerRepository tenantLedgerRepository, IdempotencyKeyRepository idempotencyKeyRepository, TenantLedgerService tenantLedgerService) {
+        this.userRepository = userRepository;
+        this.propertyRepository = propertyRepository;
+        this.rentalContractRepository = rentalContractRepository;
+        this.paymentRepository = paymentRepository;
+        this.tenantLedgerRepository = tenantLedgerRepository;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.tenantLedgerService = tenantLedgerService;
+    }
+
+    public User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setPhoneNumber("000000");
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    public Property property(User owner, Status status) {
+        return property(owner, status, BigDecimal.valueOf(700));
+    }
+
+    public Property property(User owner, Status status, BigDecimal monthlyRent) {
+        Property property = new Property();
+        property.setTitle("Flat");
+        property.setDescription("Test description");
+        property.setCity("Sofia");
+        property.setAddress("Test street 1");
+        property.setBedrooms(1);
+        property.setBathrooms(1);
+        property.setAreaSqm(BigDecimal.valueOf(50));
+        property.setMonthlyRent(monthlyRent);
+        property.setStatus(status);
+        property.setCreatedOn(LocalDateTime.now());
+        property.setUpdatedOn(LocalDateTime.now());
+        property.setOwner(owner);
+        return propertyRepository.save(property);
+    }
+
+    /**
+     * An unsaved contract at the property's rent; an inactive one ended today.
+     */
+    public RentalContract newContract(User tenant, Property property, LocalDate startDate, boolean active) {
+        RentalContract contract = new RentalContract();
+        contract.setTenant(tenant);
+        contract.setProperty(property);
+        contract.setStartDate(startDate);
+        contract.setEndDate(active ? null : LocalDate.now());
+        contract.setMonthlyRent(property.getMonthlyRent());
+        contract.setActive(active);
+        return contract;
+    }
+
+    public RentalContract contract(User tenant, Property property, LocalDate startDate, boolean active) {
+        return rentalContractRepository.save(newContract(tenant, property, startDate, active));
+    }
+
+    /**
+     * A monthly rent payment at the contract's rent.
+     */
+    public Payment payment(RentalContract contract, PaymentStatus status, LocalDate dueDate) {
+        return payment(contract, PaymentType.MONTHLY_RENT, status, dueDate, contract.getMonthlyRent());
+    }
+
+    /**
+     * Saves the payment and charges it to the tenant's ledger, as the services do.
+     */
+    public Payment payment(RentalContract contract, PaymentType type, PaymentStatus status, LocalDate dueDate, BigDecimal amount) {
+        Payment payment = new Payment();
+        payment.setContract(contract);
+        payment.setAmount(amount);
+        payment.setDueDate(dueDate);
+        payment.setStatus(status);
+        payment.setPaidAt(status == PaymentStatus.SUCCESS ? LocalDateTime.now() : null);
+        payment.setType(type);
+        paymentRepository.save(payment);
+
+        tenantLedgerService.record(TenantLedgerService.Change.created(contract.getTenant().getId(), amount, status));
+        return payment;
+    }
+
+    public void deleteAll() {
+        paymentRepository.deleteAllInBatch();
+        idempotencyKeyRepository.deleteAllInBatch();
+        tenantLedgerRepository.deleteAllInBatch();
+        rentalContractRepository.deleteAllInBatch();
+        propertyRepository.deleteAll();
+        userRepository.deleteAllInBatch();
+    }
+}
@@ -0,0 +1,54 @@
+package app.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheConfigurationTest {
+
+    @Test
+    void cacheManager_appliesPerCacheSpec_andFallsBackToDefaults() {
+        CacheSettings settings = new CacheSettings();
+
+        CacheSettings.Spec admin = new CacheSettings.Spec();
+        admin.setMaximumSize(5);
+        admin.setExpireAfterWrite(Duration.ofSeconds(30));
+        admin.setExpireAfterAccess(Duration.ofSeconds(10));
+        settings.getSpecs().put("admin", admin);
+
+        var cacheManager = new CacheConfiguration().cacheManager(settings);
+
+        Cache<Object, Object> adminCache = nativeCache(cacheManager.getCache("admin"));
+        assertEquals(5, adminCache.policy().eviction().orElseThrow().getMaximum());
+        assertEquals(Duration.ofSeconds(30), adminCache.policy().expireAfterWrite().orElseThrow().getExpiresAfter());
+        assertEquals(Duration.ofSeconds(10), adminCache.policy().expireAfterAccess().orElseThrow().getExpiresAfter());
+
+        Cache<Object, Object> other = nativeCache(cacheManager.getCache("unlisted"));
+        assertEquals(1_000, other.policy().eviction().orElseThrow().getMaximum());
+        assertTrue(other.policy().expireAfterAccess().isEmpty());
+        assertTrue(other.policy().isRecordingStats());
+    }
+
+    @Test
+    void cache_isBoundedByMaximumSize() {
+        CacheSettings.Spec spec = new CacheSettings.Spec();
+        spec.setMaximumSize(10);
+
+        Cache<Object, Object> cache = CacheConfiguration.builder(spec).executor(Runnable::run).build();
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, i);
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.estimatedSize() <= 10);
+        assertTrue(cache.stats().evictionCount() >= 90);
+    }
+
+    private Cache<Object, Object> nativeCache(org.springframework.cache.Cache cache) {
+        return ((CaffeineCache) cache).getNativeCache();
+    }
+}
@@ -0,0 +1,81 @@
+package app.scheduler;
+
+import app.model.SchedulerLease;
+import app.repository.SchedulerLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class SchedulerLeasesIntegrationTest {
+
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private SchedulerLeases nodeA;
+    private SchedulerLeases nodeB;
+
+    @BeforeEach
+    void setUp() {
+        nodeA = new SchedulerLeases(leaseRepository, meterRegistry, "node-a");
+        nodeB = new SchedulerLeases(leaseRepository, meterRegistry, "node-b");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    void onlyOneNodeRunsWhileTheLeaseIsHeld() {
+
+        AtomicBoolean ranOnB = new AtomicBoolean();
+
+        boolean ranOnA = nodeA.runExclusively("job", Duration.ofMinutes(1), Duration.ZERO,
+                () -> ranOnB.set(nodeB.runExclusively("job", Duration.ofMinutes(1), Duration.ZERO, () -> {
+                })));
+
+        assertTrue(ranOnA);
+        assertFalse(ranOnB.get());
+        assertEquals("node-a", leaseRepository.findById("job").orElseThrow().getHolder());
+    }
+
+    @Test
+    void leaseIsKeptForAtLeastTheMinimumHold() {
+
+        assertTrue(nodeA.runExclusively("job", Duration.ofMinutes(1), Duration.ofMinutes(1), () -> {
+        }));
+
+        assertFalse(nodeB.runExclusively("job", Duration.ofMinutes(1), Duration.ZERO, () -> {
+        }));
+        assertTrue(nodeA.tryAcquire("job", Duration.ofMinutes(1)).isPresent());
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverByAnotherNode() {
+
+        // node-a died while holding the lease
+        leaseRepository.save(new SchedulerLease("job", "node-a",
+                LocalDateTime.now().minusMinutes(10), LocalDateTime.now().minusMinutes(1)));
+
+        assertTrue(nodeB.tryAcquire("job", Duration.ofMinutes(1)).isPresent());
+        assertEquals("node-b", leaseRepository.findById("job").orElseThrow().getHolder());
+        assertTrue(nodeA.tryAcquire("job", Duration.ofMinutes(1)).isEmpty());
+        assertTrue(meterRegistry.get("rentfix.scheduler.lease.attempts")
+                .tag("lease", "job").tag("outcome", "busy").counter().count() >= 1);
+    }
+}
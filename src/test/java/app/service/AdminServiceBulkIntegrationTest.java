@@ -0,0 +1,170 @@
+package app.service;
+
+import app.TestData;
+import app.model.Payment;
+import app.model.Property;
+import app.model.RentalContract;
+import app.model.TenantLedger;
+import app.model.User;
+import app.model.enums.PaymentStatus;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.PaymentRepository;
+import app.repository.PropertyRepository;
+import app.repository.RentalContractRepository;
+import app.repository.TenantLedgerRepository;
+import app.repository.UserRepository;
+import app.web.dto.AdminPaymentView;
+import app.web.dto.AdminUserView;
+import app.web.dto.KeysetPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the bulk statements must be checked against committed rows
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class AdminServiceBulkIntegrationTest {
+
+    private static final LocalDate START = LocalDate.now().minusMonths(6);
+
+    @Autowired
+    private AdminService adminService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private RentalContractRepository rentalContractRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TenantLedgerRepository tenantLedgerRepository;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+    }
+
+    @Test
+    void endContract_cancelsOnlyUnpaidPayments_andCreditsTheLedger() {
+
+        User tenant = testData.user("tenant-end", Role.TENANT);
+        Property property = testData.property(testData.user("owner-end", Role.OWNER), Status.RENTED);
+        RentalContract contract = testData.contract(tenant, property, START, true);
+
+        Payment paid = testData.payment(contract, PaymentStatus.SUCCESS, START.plusMonths(1));
+        Payment pending = testData.payment(contract, PaymentStatus.PENDING, START.plusMonths(2));
+        Payment overdue = testData.payment(contract, PaymentStatus.OVERDUE, START.plusMonths(3));
+
+        adminService.endContract(contract.getId());
+
+        assertEquals(PaymentStatus.SUCCESS, paymentRepository.findById(paid.getId()).orElseThrow().getStatus());
+        assertEquals(PaymentStatus.CANCELED, paymentRepository.findById(pending.getId()).orElseThrow().getStatus());
+        assertEquals(PaymentStatus.CANCELED, paymentRepository.findById(overdue.getId()).orElseThrow().getStatus());
+
+        TenantLedger ledger = tenantLedgerRepository.findById(tenant.getId()).orElseThrow();
+        assertEquals(0, ledger.getTotalCharged().compareTo(BigDecimal.valueOf(700)));
+        assertEquals(0, ledger.getTotalPaid().compareTo(BigDecimal.valueOf(700)));
+        assertEquals(0, ledger.getOutstanding().signum());
+
+        RentalContract ended = rentalContractRepository.findById(contract.getId()).orElseThrow();
+        assertFalse(ended.isActive());
+        assertNull(ended.getActivePropertyId());
+        assertEquals(Status.AVAILABLE, propertyRepository.findById(property.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void deleteUser_removesTheTenantsContractsAndPayments_only() {
+
+        User owner = testData.user("owner-delete", Role.OWNER);
+        User leaving = testData.user("tenant-leaving", Role.TENANT);
+        User staying = testData.user("tenant-staying", Role.TENANT);
+
+        RentalContract former = testData.contract(leaving, testData.property(owner, Status.RENTED), START, false);
+        Property rented = testData.property(owner, Status.RENTED);
+        RentalContract current = testData.contract(leaving, rented, START, true);
+        RentalContract other = testData.contract(staying, testData.property(owner, Status.RENTED), START, true);
+
+        testData.payment(former, PaymentStatus.SUCCESS, START.plusMonths(1));
+        testData.payment(current, PaymentStatus.PENDING, START.plusMonths(1));
+        Payment kept = testData.payment(other, PaymentStatus.PENDING, START.plusMonths(1));
+
+        adminService.deleteUser(leaving.getId());
+
+        assertFalse(userRepository.existsById(leaving.getId()));
+        assertFalse(tenantLedgerRepository.existsById(leaving.getId()));
+        assertEquals(List.of(other.getId()),
+                rentalContractRepository.findAll().stream().map(RentalContract::getId).toList());
+        assertEquals(List.of(kept.getId()),
+                paymentRepository.findAll().stream().map(Payment::getId).toList());
+        assertTrue(tenantLedgerRepository.existsById(staying.getId()));
+        assertEquals(Status.AVAILABLE, propertyRepository.findById(rented.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void correctPayment_evictsTheTenantsAndOwnersCachedPaymentPages() {
+
+        User tenant = testData.user("tenant-correct", Role.TENANT);
+        User owner = testData.user("owner-correct", Role.OWNER);
+        Property property = testData.property(owner, Status.RENTED);
+        RentalContract contract = testData.contract(tenant, property, START, true);
+        Payment pending = testData.payment(contract, PaymentStatus.PENDING, START.plusMonths(1));
+
+        assertEquals(PaymentStatus.PENDING, paymentService.getPaymentsForTenant(tenant.getId(), null).items().get(0).status());
+        assertEquals(PaymentStatus.PENDING, paymentService.getPaymentsForProperty(property.getId(), owner.getId(), null).items().get(0).status());
+        assertEquals(PaymentStatus.PENDING, paymentService.getByContract(contract.getId()).get(0).status());
+
+        adminService.correctPayment(pending.getId(), pending.getAmount(), PaymentStatus.SUCCESS, null);
+
+        assertEquals(PaymentStatus.SUCCESS, paymentService.getPaymentsForTenant(tenant.getId(), null).items().get(0).status());
+        assertEquals(PaymentStatus.SUCCESS, paymentService.getPaymentsForProperty(property.getId(), owner.getId(), null).items().get(0).status());
+        assertEquals(PaymentStatus.SUCCESS, paymentService.getByContract(contract.getId()).get(0).status());
+    }
+
+    @Test
+    void paymentPages_followTheirOwnCursors_andStartOverOnAnotherListingsCursor() {
+
+        User tenant = testData.user("tenant-pages", Role.TENANT);
+        RentalContract contract = testData.contract(tenant,
+                testData.property(testData.user("owner-pages", Role.OWNER), Status.RENTED), START, true);
+        for (int i = 0; i < 21; i++) {
+            testData.payment(contract, PaymentStatus.PENDING, START.plusDays(i));
+        }
+        cacheInvalidator.clear("admin_payments");
+        cacheInvalidator.clear("admin_users");
+
+        KeysetPage<AdminPaymentView> first = adminService.getAllPayments(null);
+        assertEquals(20, first.items().size());
+
+        KeysetPage<AdminPaymentView> second = adminService.getAllPayments(first.next());
+        assertEquals(List.of(START), second.items().stream().map(AdminPaymentView::dueDate).toList());
+
+        // A payments cursor submitted to the users listing does not fit its sort keys
+        KeysetPage<AdminUserView> users = adminService.getAllUsers(first.next());
+        assertFalse(users.hasPrevious());
+        assertEquals(adminService.getAllUsers(null).items().size(), users.items().size());
+    }
+}
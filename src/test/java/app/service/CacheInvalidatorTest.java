@@ -0,0 +1,43 @@
+package app.service;
+
+import app.config.CacheSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidatorTest {
+
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    private final CacheInvalidator invalidator = new CacheInvalidator(cacheManager, new SingleFlightCache(cacheManager, new CacheSettings()));
+
+    @Test
+    void evictMentioning_removesOnlyEntriesForTheGivenIds() {
+        UUID tenant = UUID.randomUUID();
+        UUID otherTenant = UUID.randomUUID();
+        UUID property = UUID.randomUUID();
+
+        Cache cache = cacheManager.getCache("payment");
+        cache.put(List.of("getPaymentsForTenant", tenant, "cursor-1"), "a");
+        cache.put(List.of("getPaymentsForTenant", tenant, "cursor-2"), "b");
+        cache.put(List.of("getPaymentsForTenant", otherTenant, "cursor-1"), "c");
+        cache.put(List.of("getAllByIds", List.of(property, otherTenant)), "d");
+        // The first page is cached under a null cursor
+        cache.put(Arrays.asList("getPaymentsForTenant", tenant, null), "e");
+        cache.put(Arrays.asList("getPaymentsForTenant", otherTenant, null), "f");
+
+        invalidator.evictMentioning("payment", tenant, property, null);
+
+        assertNull(cache.get(List.of("getPaymentsForTenant", tenant, "cursor-1")));
+        assertNull(cache.get(List.of("getPaymentsForTenant", tenant, "cursor-2")));
+        assertNull(cache.get(List.of("getAllByIds", List.of(property, otherTenant))));
+        assertNull(cache.get(Arrays.asList("getPaymentsForTenant", tenant, null)));
+        assertNotNull(cache.get(List.of("getPaymentsForTenant", otherTenant, "cursor-1")));
+        assertNotNull(cache.get(Arrays.asList("getPaymentsForTenant", otherTenant, null)));
+    }
+}
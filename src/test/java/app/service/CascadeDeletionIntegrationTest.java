@@ -0,0 +1,197 @@
+package app.service;
+
+import app.TestData;
+import app.model.DeletionJob;
+import app.model.Payment;
+import app.model.Property;
+import app.model.RentalContract;
+import app.model.User;
+import app.model.enums.DeletionTarget;
+import app.model.enums.JobStatus;
+import app.model.enums.PaymentStatus;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.DeletionJobRepository;
+import app.repository.PaymentRepository;
+import app.repository.PropertyRepository;
+import app.repository.SchedulerLeaseRepository;
+import app.repository.TenantLedgerRepository;
+import app.repository.UserRepository;
+import app.web.dto.DeletionJobView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+// Not @Transactional: the job runs on a worker thread and commits batch by batch
+@SpringBootTest(properties = "rentfix.deletion.batch-size=2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class CascadeDeletionIntegrationTest {
+
+    private static final LocalDate START = LocalDate.now().minusMonths(6);
+
+    @Autowired
+    private CascadeDeletion cascadeDeletion;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TenantLedgerRepository tenantLedgerRepository;
+
+    @MockitoSpyBean
+    private DeletionJobRepository deletionJobRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+        deletionJobRepository.deleteAllInBatch();
+        schedulerLeaseRepository.deleteAll();
+    }
+
+    @Test
+    void deleteOwner_removesPropertiesContractsPaymentsAndImages_inBatches() throws Exception {
+
+        User owner = testData.user("owner-cascade", Role.OWNER);
+        User tenant = testData.user("tenant-cascade", Role.TENANT);
+        User otherTenant = testData.user("tenant-elsewhere", Role.TENANT);
+
+        Property rented = testData.property(owner, Status.RENTED);
+        testData.property(owner, Status.RENTED);
+        testData.property(owner, Status.RENTED);
+        Property elsewhere = testData.property(testData.user("owner-staying", Role.OWNER), Status.RENTED);
+
+        RentalContract contract = testData.contract(tenant, rented, START, true);
+        testData.payment(contract, PaymentStatus.SUCCESS, START.plusMonths(1));
+        testData.payment(contract, PaymentStatus.PENDING, START.plusMonths(2));
+        Payment kept = testData.payment(testData.contract(otherTenant, elsewhere, START, true), PaymentStatus.PENDING, START.plusMonths(1));
+
+        Path images = PropertyService.imageFolder(rented.getId());
+        Files.createDirectories(images);
+        Files.writeString(images.resolve("front.jpg"), "image");
+
+        DeletionJobView job = awaitFinished(cascadeDeletion.deleteOwner(owner.getId()).id());
+
+        assertEquals(JobStatus.COMPLETED, job.status());
+        assertEquals(3, job.totalProperties());
+        assertEquals(3, job.deletedProperties());
+        assertEquals(1, job.deletedContracts());
+        assertEquals(2, job.deletedPayments());
+        assertEquals(100, job.percentDone());
+
+        assertFalse(userRepository.existsById(owner.getId()));
+        assertEquals(List.of(elsewhere.getId()), propertyRepository.findAll().stream().map(Property::getId).toList());
+        assertEquals(List.of(kept.getId()), paymentRepository.findAll().stream().map(Payment::getId).toList());
+        assertFalse(Files.exists(images));
+
+        // The tenant's balance no longer counts the deleted payments
+        assertEquals(0, tenantLedgerRepository.findById(tenant.getId()).orElseThrow().getTotalCharged().signum());
+    }
+
+    @Test
+    void deleteProperty_completes_andRejectsAPropertyThatIsGone() throws Exception {
+
+        Property property = testData.property(testData.user("owner-twice", Role.OWNER), Status.RENTED);
+
+        DeletionJobView first = cascadeDeletion.deleteProperty(property.getId());
+        DeletionJobView finished = awaitFinished(first.id());
+
+        assertEquals(JobStatus.COMPLETED, finished.status());
+        assertFalse(propertyRepository.existsById(property.getId()));
+        assertThrows(IllegalArgumentException.class, () -> cascadeDeletion.deleteProperty(property.getId()));
+    }
+
+    @Test
+    void deleteProperty_returnsTheJobAnotherRequestQueuedMeanwhile() {
+
+        Property property = testData.property(testData.user("owner-race", Role.OWNER), Status.RENTED);
+
+        // Another node queues the same deletion right after this request found no unfinished job
+        // The spied repository is a JDK proxy; its default answer delegates to the real one
+        Answer<?> real = mockingDetails(deletionJobRepository).getMockCreationSettings().getDefaultAnswer();
+        AtomicBoolean first = new AtomicBoolean(true);
+        AtomicReference<DeletionJob> other = new AtomicReference<>();
+        doAnswer(invocation -> {
+            Object unfinished = real.answer(invocation);
+            if (first.getAndSet(false)) {
+                CompletableFuture.runAsync(() -> other.set(deletionJobRepository.save(pending(DeletionTarget.PROPERTY, property.getId())))).join();
+            }
+            return unfinished;
+        }).when(deletionJobRepository).findFirstByTargetIdAndStatusIn(any(UUID.class), anyCollection());
+
+        DeletionJobView job = cascadeDeletion.deleteProperty(property.getId());
+
+        assertEquals(other.get().getId(), job.id());
+        assertEquals(1, deletionJobRepository.count());
+    }
+
+    @Test
+    void resumeInterrupted_runsOnlyOnTheNodeHoldingTheLease() throws Exception {
+
+        Property property = testData.property(testData.user("owner-resume", Role.OWNER), Status.RENTED);
+        DeletionJob interrupted = deletionJobRepository.save(pending(DeletionTarget.PROPERTY, property.getId()));
+
+        LocalDateTime now = LocalDateTime.now();
+        schedulerLeaseRepository.deleteAll();
+        schedulerLeaseRepository.create("deletion-resume", "other-node", now, now.plusHours(1));
+
+        assertFalse(cascadeDeletion.resumeInterrupted());
+        assertEquals(JobStatus.PENDING, cascadeDeletion.getJob(interrupted.getId()).orElseThrow().status());
+
+        schedulerLeaseRepository.deleteAll();
+        assertTrue(cascadeDeletion.resumeInterrupted());
+
+        assertEquals(JobStatus.COMPLETED, awaitFinished(interrupted.getId()).status());
+        assertFalse(propertyRepository.existsById(property.getId()));
+    }
+
+    private static DeletionJob pending(DeletionTarget target, UUID targetId) {
+        return new DeletionJob(null, target, targetId, JobStatus.PENDING, 0, 0, 0, 0, LocalDateTime.now(), null, null, null);
+    }
+
+    private DeletionJobView awaitFinished(UUID jobId) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + 30_000;
+
+        while (System.currentTimeMillis() < deadline) {
+            DeletionJobView job = cascadeDeletion.getJob(jobId).orElseThrow();
+            if (job.status() == JobStatus.COMPLETED || job.status() == JobStatus.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+
+        throw new AssertionError("Deletion job " + jobId + " did not finish");
+    }
+}
@@ -0,0 +1,110 @@
+package app.service;
+
+import app.TestData;
+import app.model.Property;
+import app.model.User;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.PropertyRepository;
+import app.repository.RentalContractRepository;
+import app.web.dto.ContractRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the competing requests run on their own threads and transactions
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class ContractDoubleBookingIntegrationTest {
+
+    @Autowired
+    private ContractService contractService;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private RentalContractRepository rentalContractRepository;
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+    }
+
+    @Test
+    void create_rentsThePropertyToExactlyOneOfConcurrentTenants() throws Exception {
+
+        User owner = testData.user("owner-race", Role.OWNER);
+        Property property = testData.property(owner, Status.AVAILABLE);
+
+        int tenants = 4;
+        List<User> competitors = new ArrayList<>();
+        for (int i = 0; i < tenants; i++) {
+            competitors.add(testData.user("tenant-race-" + i, Role.TENANT));
+        }
+
+        ContractRequest request = new ContractRequest();
+        request.setStartDate(LocalDate.now());
+
+        ExecutorService pool = Executors.newFixedThreadPool(tenants);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+
+        for (User tenant : competitors) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    contractService.create(property.getId(), tenant.getId(), request);
+                    return true;
+                } catch (IllegalStateException ex) {
+                    return false;
+                }
+            }));
+        }
+
+        start.countDown();
+        int won = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                won++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(1, won);
+        assertEquals(1, rentalContractRepository.findByPropertyId(property.getId()).size());
+        assertEquals(Status.RENTED, propertyRepository.findById(property.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void activeContractKeys_rejectASecondActiveContractForTheSameTenant() {
+
+        User owner = testData.user("owner-keys", Role.OWNER);
+        User tenant = testData.user("tenant-keys", Role.TENANT);
+
+        rentalContractRepository.saveAndFlush(testData.newContract(tenant, testData.property(owner, Status.AVAILABLE), LocalDate.now(), true));
+
+        // An ended contract does not hold the key
+        rentalContractRepository.saveAndFlush(testData.newContract(tenant, testData.property(owner, Status.AVAILABLE), LocalDate.now(), false));
+
+        assertThrows(DataIntegrityViolationException.class,
+                () -> rentalContractRepository.saveAndFlush(testData.newContract(tenant, testData.property(owner, Status.AVAILABLE), LocalDate.now(), true)));
+    }
+}
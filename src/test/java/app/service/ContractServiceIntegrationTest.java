@@ -40,6 +40,9 @@ class ContractServiceIntegrationTest {
     @Autowired
     private RentalContractRepository rentalContractRepository;
 
+    @Autowired
+    private ContractBillingWheel contractBillingWheel;
+
     @MockitoBean
     private PaymentService paymentService;
 
@@ -85,6 +88,7 @@ class ContractServiceIntegrationTest {
 
         ContractRequest request = new ContractRequest();
         request.setStartDate(LocalDate.now());
+        int scheduled = contractBillingWheel.size();
 
 
         contractService.create(property.getId(), tenant.getId(), request);
@@ -100,5 +104,8 @@ class ContractServiceIntegrationTest {
         Property updatedProperty = propertyRepository.findById(property.getId())
                 .orElseThrow();
         assertEquals(Status.RENTED, updatedProperty.getStatus());
+
+        // The test transaction never commits, so the contract must not reach the billing wheel
+        assertEquals(scheduled, contractBillingWheel.size());
     }
 }
\ No newline at end of file
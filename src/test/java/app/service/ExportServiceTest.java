@@ -0,0 +1,38 @@
+package app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportServiceTest {
+
+    @Test
+    void csvField_leavesPlainValuesUnquoted() {
+        assertEquals("Sofia", ExportService.csvField("Sofia"));
+        assertEquals("-12.50", ExportService.csvField(new BigDecimal("-12.50")));
+        assertEquals("", ExportService.csvField(null));
+    }
+
+    @Test
+    void csvField_quotesSeparatorsQuotesAndLineBreaks() {
+        assertEquals("\"Flat 3, Center\"", ExportService.csvField("Flat 3, Center"));
+        assertEquals("\"The \"\"Loft\"\"\"", ExportService.csvField("The \"Loft\""));
+        assertEquals("\"two\nlines\"", ExportService.csvField("two\nlines"));
+    }
+
+    @Test
+    void csvField_neutralisesFormulaPrefixes() {
+        assertEquals("'=SUM(A1:A9)", ExportService.csvField("=SUM(A1:A9)"));
+        assertEquals("\"'=HYPERLINK(\"\"x\"\",\"\"y\"\")\"", ExportService.csvField("=HYPERLINK(\"x\",\"y\")"));
+        assertEquals("'\t=1+1", ExportService.csvField("\t=1+1"));
+        assertEquals("\"'\r=1+1\"", ExportService.csvField("\r=1+1"));
+    }
+
+    @Test
+    void format_isCaseInsensitiveAndRejectsUnknownValues() {
+        assertEquals(ExportService.Format.NDJSON, ExportService.Format.of("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> ExportService.Format.of("xlsx"));
+    }
+}
@@ -0,0 +1,128 @@
+package app.service;
+
+import app.TestData;
+import app.model.Payment;
+import app.model.RentalContract;
+import app.model.TenantLedger;
+import app.model.User;
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.PaymentRepository;
+import app.repository.TenantLedgerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: every batch commits in its own transaction
+@SpringBootTest(properties = {
+        "rentfix.late-fees.grace-days=5",
+        "rentfix.late-fees.batch-size=2",
+        "rentfix.late-fees.max-total-percent=20",
+        "rentfix.late-fees.tiers[0].after-days=0",
+        "rentfix.late-fees.tiers[0].flat=25",
+        "rentfix.late-fees.tiers[1].after-days=10",
+        "rentfix.late-fees.tiers[1].percent=5",
+        "rentfix.late-fees.tiers[1].cap=100",
+        "rentfix.late-fees.tiers[2].after-days=25",
+        "rentfix.late-fees.tiers[2].percent=10",
+        "rentfix.late-fees.tiers[2].cap=200"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class LateFeeEngineIntegrationTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 6, 30);
+
+    @Autowired
+    private LateFeeEngine lateFeeEngine;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TenantLedgerRepository tenantLedgerRepository;
+
+    private int contracts;
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+    }
+
+    @Test
+    void run_chargesAndEscalatesUnpaidFees_inBatches_andIsIdempotent() {
+
+        User owner = testData.user("owner-fees", Role.OWNER);
+
+        Payment inGrace = rent(owner, PaymentStatus.PENDING, 3);
+        Payment firstTier = rent(owner, PaymentStatus.OVERDUE, 8);
+        Payment secondTier = rent(owner, PaymentStatus.OVERDUE, 20);
+        Payment paidRent = rent(owner, PaymentStatus.SUCCESS, 20);
+
+        Payment escalating = rent(owner, PaymentStatus.OVERDUE, 20);
+        Payment pendingFee = fee(escalating, PaymentStatus.PENDING);
+        Payment withPaidFee = rent(owner, PaymentStatus.OVERDUE, 20);
+        Payment paidFee = fee(withPaidFee, PaymentStatus.SUCCESS);
+        Payment withCanceledFee = rent(owner, PaymentStatus.OVERDUE, 20);
+        Payment canceledFee = fee(withCanceledFee, PaymentStatus.CANCELED);
+
+        // Five unpaid rents are past the grace period: three batches of at most two
+        assertEquals(new LateFeeEngine.Result(5, 2, 1), lateFeeEngine.run(TODAY));
+
+        assertNull(feeOf(inGrace));
+        assertNull(feeOf(paidRent));
+        assertFee("25.00", PaymentStatus.PENDING, feeOf(firstTier));
+        // 25 flat + min(5% of 700, 100)
+        assertFee("60.00", PaymentStatus.PENDING, feeOf(secondTier));
+        assertFee("60.00", PaymentStatus.PENDING, paymentRepository.findById(pendingFee.getId()).orElseThrow());
+        assertFee("25.00", PaymentStatus.SUCCESS, paymentRepository.findById(paidFee.getId()).orElseThrow());
+        assertFee("25.00", PaymentStatus.CANCELED, paymentRepository.findById(canceledFee.getId()).orElseThrow());
+
+        TenantLedger ledger = tenantLedgerRepository.findById(secondTier.getContract().getTenant().getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("760.00").compareTo(ledger.getTotalCharged()));
+
+        // The same day again changes nothing
+        assertEquals(new LateFeeEngine.Result(5, 0, 0), lateFeeEngine.run(TODAY));
+        assertEquals(5, paymentRepository.findAll().stream().filter(p -> p.getType() == PaymentType.LATE_FEE).count());
+
+        // Fifteen days later the third tier applies, within the 20% total cap of 140
+        assertEquals(new LateFeeEngine.Result(6, 1, 3), lateFeeEngine.run(TODAY.plusDays(15)));
+        assertFee("130.00", PaymentStatus.PENDING, feeOf(secondTier));
+        assertFee("60.00", PaymentStatus.PENDING, feeOf(firstTier));
+        assertFee("25.00", PaymentStatus.SUCCESS, paymentRepository.findById(paidFee.getId()).orElseThrow());
+    }
+
+    private Payment rent(User owner, PaymentStatus status, int daysLate) {
+        User tenant = testData.user("tenant-fees-" + contracts++, Role.TENANT);
+        RentalContract contract = testData.contract(tenant, testData.property(owner, Status.RENTED), TODAY.minusMonths(3), true);
+        return testData.payment(contract, status, TODAY.minusDays(daysLate));
+    }
+
+    private Payment fee(Payment rent, PaymentStatus status) {
+        return testData.payment(rent.getContract(), PaymentType.LATE_FEE, status, rent.getDueDate(), new BigDecimal("25.00"));
+    }
+
+    private Payment feeOf(Payment rent) {
+        return paymentRepository.findLateFees(List.of(rent.getContract().getId()), List.of(rent.getDueDate()))
+                .stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static void assertFee(String amount, PaymentStatus status, Payment fee) {
+        assertNotNull(fee);
+        assertEquals(0, new BigDecimal(amount).compareTo(fee.getAmount()));
+        assertEquals(status, fee.getStatus());
+    }
+}
@@ -0,0 +1,73 @@
+package app.service;
+
+import app.config.LateFeeSettings;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LateFeePlanTest {
+
+    private static final long RENT = 1_000_00;
+
+    @Test
+    void noFeeWithinGracePeriod() {
+        LateFeePlan plan = LateFeePlan.compile(settings(5, null, tier(0, "25", null, null)));
+
+        assertEquals(0, plan.feeCents(RENT, 0));
+        assertEquals(0, plan.feeCents(RENT, 5));
+        assertEquals(25_00, plan.feeCents(RENT, 6));
+    }
+
+    @Test
+    void tiersEscalateAndAddUp_eachWithinItsCap() {
+        LateFeePlan plan = LateFeePlan.compile(settings(0, null,
+                tier(10, null, "5", "30"),
+                tier(0, "25", null, null)));
+
+        assertEquals(25_00, plan.feeCents(RENT, 10));
+        // 25 flat + min(5% of 1000, 30)
+        assertEquals(55_00, plan.feeCents(RENT, 11));
+        assertEquals(55_00, plan.feeCents(RENT, 400));
+    }
+
+    @Test
+    void totalIsCappedAsPercentageOfTheRent() {
+        LateFeePlan plan = LateFeePlan.compile(settings(0, new BigDecimal("4"),
+                tier(0, "25", "10", null)));
+
+        assertEquals(40_00, plan.feeCents(RENT, 3));
+    }
+
+    @Test
+    void compile_rejectsNegativeValues() {
+        assertThrows(IllegalArgumentException.class,
+                () -> LateFeePlan.compile(settings(-1, null)));
+        assertThrows(IllegalArgumentException.class,
+                () -> LateFeePlan.compile(settings(0, null, tier(-3, "10", null, null))));
+    }
+
+    @Test
+    void noTiersMeansNoFees() {
+        assertEquals(0, LateFeePlan.compile(settings(0, null)).feeCents(RENT, 90));
+    }
+
+    private static LateFeeSettings settings(int graceDays, BigDecimal maxTotalPercent, LateFeeSettings.Tier... tiers) {
+        LateFeeSettings settings = new LateFeeSettings();
+        settings.setGraceDays(graceDays);
+        settings.setMaxTotalPercent(maxTotalPercent);
+        settings.setTiers(List.of(tiers));
+        return settings;
+    }
+
+    private static LateFeeSettings.Tier tier(int afterDays, String flat, String percent, String cap) {
+        LateFeeSettings.Tier tier = new LateFeeSettings.Tier();
+        tier.setAfterDays(afterDays);
+        tier.setFlat(flat == null ? null : new BigDecimal(flat));
+        tier.setPercent(percent == null ? null : new BigDecimal(percent));
+        tier.setCap(cap == null ? null : new BigDecimal(cap));
+        return tier;
+    }
+}
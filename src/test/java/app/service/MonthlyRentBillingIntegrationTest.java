@@ -0,0 +1,197 @@
+package app.service;
+
+import app.TestData;
+import app.model.BillingChunk;
+import app.model.BillingJob;
+import app.model.Payment;
+import app.model.RentalContract;
+import app.model.User;
+import app.model.enums.JobStatus;
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.BillingChunkRepository;
+import app.repository.BillingJobRepository;
+import app.repository.PaymentRepository;
+import app.repository.RentalContractRepository;
+import app.web.dto.BillingJobView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+// Not @Transactional: chunks are billed on worker threads in their own transactions
+@SpringBootTest(properties = {"rentfix.billing.chunk-size=2", "rentfix.billing.batch-size=2"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class MonthlyRentBillingIntegrationTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private MonthlyRentBilling monthlyRentBilling;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private BillingJobRepository billingJobRepository;
+
+    @Autowired
+    private BillingChunkRepository billingChunkRepository;
+
+    @MockitoSpyBean
+    private RentalContractRepository rentalContractRepository;
+
+    @AfterEach
+    void cleanUp() {
+        billingChunkRepository.deleteAllInBatch();
+        billingJobRepository.deleteAllInBatch();
+        testData.deleteAll();
+    }
+
+    @Test
+    void billDue_createsOnePendingPaymentPerDueActiveContract_andIsIdempotent() {
+
+        User owner = testData.user("owner-billing", Role.OWNER);
+        LocalDate dueDate = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+        LocalDate catchUp = dueDate.minusMonths(1);
+
+        Map<UUID, LocalDate> due = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            due.put(contract(owner, testData.user("tenant-billing-" + i, Role.TENANT), true).getId(), i == 0 ? catchUp : dueDate);
+        }
+        due.put(contract(owner, testData.user("tenant-billing-ended", Role.TENANT), false).getId(), dueDate);
+
+        assertEquals(5, monthlyRentBilling.billDue(TODAY, due));
+        assertEquals(0, monthlyRentBilling.billDue(TODAY, due));
+
+        List<Payment> payments = paymentRepository.findAll();
+        assertEquals(5, payments.size());
+        assertEquals(1, payments.stream().filter(p -> p.getDueDate().equals(catchUp)).count());
+        assertTrue(payments.stream().allMatch(p ->
+                p.getStatus() == PaymentStatus.PENDING
+                        && p.getType() == PaymentType.MONTHLY_RENT
+                        && p.getAmount().compareTo(BigDecimal.valueOf(700)) == 0));
+
+        // Six due contracts in chunks of two
+        BillingJobView job = monthlyRentBilling.getLatestJob().orElseThrow();
+        assertEquals(JobStatus.COMPLETED, job.status());
+        assertEquals(6, job.totalContracts());
+        assertEquals(3, job.totalChunks());
+        assertEquals(3, job.completedChunks());
+        assertEquals(100, job.percentDone());
+    }
+
+    @Test
+    void billDue_retriesABatchThatCollidesWithAConcurrentlyCommittedPayment() {
+
+        User owner = testData.user("owner-collision", Role.OWNER);
+        LocalDate dueDate = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+
+        RentalContract raced = contract(owner, testData.user("tenant-collision-1", Role.TENANT), true);
+        RentalContract other = contract(owner, testData.user("tenant-collision-2", Role.TENANT), true);
+
+        // Another node bills the first contract right after this batch has looked for missing payments
+        // The spied repository is a JDK proxy; its default answer delegates to the real one
+        Answer<?> real = mockingDetails(rentalContractRepository).getMockCreationSettings().getDefaultAnswer();
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            Object missing = real.answer(invocation);
+            if (first.getAndSet(false)) {
+                CompletableFuture.runAsync(() -> testData.payment(raced, PaymentStatus.PENDING, dueDate)).join();
+            }
+            return missing;
+        }).when(rentalContractRepository).findActiveWithoutPayment(eq(PaymentType.MONTHLY_RENT), eq(dueDate), anyCollection());
+
+        Map<UUID, LocalDate> due = new LinkedHashMap<>();
+        due.put(raced.getId(), dueDate);
+        due.put(other.getId(), dueDate);
+
+        assertEquals(1, monthlyRentBilling.billDue(TODAY, due));
+
+        List<Payment> payments = paymentRepository.findAll();
+        assertEquals(2, payments.size());
+        assertEquals(1, payments.stream().filter(p -> p.getContract().getId().equals(raced.getId())).count());
+    }
+
+    @Test
+    void resumeInterrupted_billsOnlyTheChunksWithoutCheckpoint() {
+
+        User owner = testData.user("owner-resume", Role.OWNER);
+        LocalDate dueDate = LocalDate.now().withDayOfMonth(1).plusMonths(1);
+
+        RentalContract billed = contract(owner, testData.user("tenant-resume-0", Role.TENANT), true);
+        Map<UUID, LocalDate> left = new LinkedHashMap<>();
+        for (int i = 1; i < 3; i++) {
+            left.put(contract(owner, testData.user("tenant-resume-" + i, Role.TENANT), true).getId(), dueDate);
+        }
+
+        // A job that stopped after its first chunk: the completed chunk is never billed again
+        BillingJob job = new BillingJob();
+        job.setRunDate(TODAY);
+        job.setStatus(JobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        job.setTotalContracts(3);
+        job.setTotalChunks(2);
+        job.setCompletedChunks(1);
+        billingJobRepository.save(job);
+
+        billingChunkRepository.save(chunk(job, 0, Map.of(billed.getId(), dueDate), JobStatus.COMPLETED));
+        BillingChunk pending = billingChunkRepository.save(chunk(job, 1, left, JobStatus.PENDING));
+
+        assertEquals(2, monthlyRentBilling.resumeInterrupted());
+
+        BillingJob resumed = billingJobRepository.findById(job.getId()).orElseThrow();
+        assertEquals(JobStatus.COMPLETED, resumed.getStatus());
+        assertEquals(2, resumed.getCompletedChunks());
+        assertEquals(2, resumed.getCreatedPayments());
+        assertNotNull(resumed.getFinishedAt());
+
+        BillingChunk checkpoint = billingChunkRepository.findById(pending.getId()).orElseThrow();
+        assertEquals(JobStatus.COMPLETED, checkpoint.getStatus());
+        assertEquals(2, checkpoint.getCreatedPayments());
+        assertNotNull(checkpoint.getDurationMs());
+
+        assertEquals(left.keySet(), paymentRepository.findAll().stream()
+                .map(p -> p.getContract().getId())
+                .collect(Collectors.toSet()));
+    }
+
+    private static BillingChunk chunk(BillingJob job, int chunkNo, Map<UUID, LocalDate> due, JobStatus status) {
+        BillingChunk chunk = new BillingChunk();
+        chunk.setJob(job);
+        chunk.setChunkNo(chunkNo);
+        chunk.setDueDates(due);
+        chunk.setStatus(status);
+        return chunk;
+    }
+
+    private RentalContract contract(User owner, User tenant, boolean active) {
+        return testData.contract(tenant, testData.property(owner, active ? Status.RENTED : Status.AVAILABLE),
+                LocalDate.now().minusMonths(2), active);
+    }
+}
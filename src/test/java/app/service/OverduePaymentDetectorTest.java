@@ -0,0 +1,64 @@
+package app.service;
+
+import app.model.enums.PaymentStatus;
+import app.repository.PaymentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OverduePaymentDetectorTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OverduePaymentDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        detector = new OverduePaymentDetector(paymentRepository, cacheInvalidator, meterRegistry);
+    }
+
+    @Test
+    void markOverdue_scansEveryPastDueDateOnEveryRun() {
+        LocalDate monday = LocalDate.of(2025, 3, 3);
+        LocalDate wednesday = monday.plusDays(2);
+
+        // A payment written on Tuesday with a due date in February is still found on Wednesday
+        when(paymentRepository.markOverdueDueBefore(monday)).thenReturn(4);
+        when(paymentRepository.markOverdueDueBefore(wednesday)).thenReturn(2);
+        when(paymentRepository.countByStatus(PaymentStatus.OVERDUE)).thenReturn(4L, 6L);
+
+        assertEquals(4, detector.markOverdue(monday));
+        assertEquals(2, detector.markOverdue(wednesday));
+
+        verify(paymentRepository).markOverdueDueBefore(monday);
+        verify(paymentRepository).markOverdueDueBefore(wednesday);
+        verify(cacheInvalidator, times(2)).clear("payment");
+        assertEquals(6.0, meterRegistry.get("rentfix.payments.overdue").gauge().value());
+    }
+
+    @Test
+    void markOverdue_leavesCachesAloneWhenNothingWasMarked() {
+        LocalDate today = LocalDate.of(2025, 3, 3);
+
+        when(paymentRepository.markOverdueDueBefore(today)).thenReturn(0);
+
+        assertEquals(0, detector.markOverdue(today));
+
+        verifyNoInteractions(cacheInvalidator);
+    }
+}
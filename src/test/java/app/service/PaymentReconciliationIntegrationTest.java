@@ -0,0 +1,146 @@
+package app.service;
+
+import app.TestData;
+import app.model.Payment;
+import app.model.RentalContract;
+import app.model.User;
+import app.model.enums.PaymentStatus;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.PaymentRepository;
+import app.web.dto.ReconciliationReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+// Not @Transactional: each batch of matches is committed in its own transaction
+@SpringBootTest(properties = "rentfix.reconciliation.batch-size=2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class PaymentReconciliationIntegrationTest {
+
+    @Autowired
+    private PaymentReconciliation paymentReconciliation;
+
+    @Autowired
+    private TestData testData;
+
+    @MockitoSpyBean
+    private PaymentRepository paymentRepository;
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+    }
+
+    @Test
+    void importStatement_marksMatchedPaymentsPaid_andReportsTheRest() {
+
+        User owner = testData.user("owner-reconcile", Role.OWNER);
+        RentalContract first = contract(owner, testData.user("tenant-reconcile-1", Role.TENANT));
+        RentalContract second = contract(owner, testData.user("tenant-reconcile-2", Role.TENANT));
+
+        LocalDate march = LocalDate.of(2026, 3, 5);
+        Payment firstMarch = testData.payment(first, PaymentStatus.PENDING, march);
+        Payment firstApril = testData.payment(first, PaymentStatus.PENDING, march.plusMonths(1));
+        Payment secondMarch = testData.payment(second, PaymentStatus.PENDING, march);
+
+        String statement = String.join("\n",
+                "Date,Reference,Amount",
+                "2026-03-04,\"Rent " + first.getId() + ", March\",700.00",
+                "2026-03-09,RENT " + second.getId().toString().toUpperCase() + ",700",
+                "2026-03-10,Rent " + second.getId() + ",700.00",
+                "2026-03-11,Rent " + first.getId() + ",650.00",
+                "2026-03-12,Coffee,3.50",
+                "",
+                "2026-04-02,Rent " + first.getId() + ",not-a-number");
+
+        ReconciliationReport report = paymentReconciliation.importStatement(
+                new ByteArrayInputStream(statement.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(6, report.lines());
+        assertEquals(2, report.matched());
+        assertEquals(4, report.unmatched());
+        assertEquals(0, report.matchedAmount().compareTo(BigDecimal.valueOf(1400)));
+        assertEquals(List.of(4L, 5L, 6L, 8L), report.unmatchedLines().stream()
+                .map(ReconciliationReport.UnmatchedLine::lineNo)
+                .toList());
+
+        assertEquals(PaymentStatus.SUCCESS, status(firstMarch));
+        assertEquals(PaymentStatus.SUCCESS, status(secondMarch));
+        assertEquals(PaymentStatus.PENDING, status(firstApril));
+        assertNotNull(paymentRepository.findById(firstMarch.getId()).orElseThrow().getPaidAt());
+    }
+
+    @Test
+    void importStatement_reportsLinesWhosePaymentWasPaidMeanwhile_asUnmatched() {
+
+        User owner = testData.user("owner-reconcile-race", Role.OWNER);
+        RentalContract raced = contract(owner, testData.user("tenant-reconcile-race-1", Role.TENANT));
+        RentalContract other = contract(owner, testData.user("tenant-reconcile-race-2", Role.TENANT));
+
+        LocalDate march = LocalDate.of(2026, 3, 5);
+        Payment racedMarch = testData.payment(raced, PaymentStatus.PENDING, march);
+        Payment otherMarch = testData.payment(other, PaymentStatus.PENDING, march);
+
+        // The tenant pays online after the index was built, before the batch is written
+        Answer<?> real = mockingDetails(paymentRepository).getMockCreationSettings().getDefaultAnswer();
+        AtomicBoolean first = new AtomicBoolean(true);
+        doAnswer(invocation -> {
+            if (first.getAndSet(false)) {
+                CompletableFuture.runAsync(() -> {
+                    Payment payment = paymentRepository.findById(racedMarch.getId()).orElseThrow();
+                    payment.setStatus(PaymentStatus.SUCCESS);
+                    paymentRepository.save(payment);
+                }).join();
+            }
+            return real.answer(invocation);
+        }).when(paymentRepository).findAllForUpdate(anyCollection());
+
+        String statement = String.join("\n",
+                "Date,Reference,Amount",
+                "2026-03-04,Rent " + raced.getId() + ",700.00",
+                "2026-03-05,Rent " + other.getId() + ",700.00");
+
+        ReconciliationReport report = paymentReconciliation.importStatement(
+                new ByteArrayInputStream(statement.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, report.lines());
+        assertEquals(1, report.matched());
+        assertEquals(1, report.unmatched());
+        assertEquals(0, report.matchedAmount().compareTo(BigDecimal.valueOf(700)));
+        assertEquals(List.of(new ReconciliationReport.UnmatchedLine(2, "Rent " + raced.getId(), "700.00", "already paid")),
+                report.unmatchedLines());
+        assertEquals(PaymentStatus.SUCCESS, status(otherMarch));
+    }
+
+    @Test
+    void importStatement_rejectsStatementsWithoutRequiredColumns() {
+        assertThrows(IllegalArgumentException.class, () -> paymentReconciliation.importStatement(
+                new ByteArrayInputStream("Booked,Text\n".getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private PaymentStatus status(Payment payment) {
+        return paymentRepository.findById(payment.getId()).orElseThrow().getStatus();
+    }
+
+    private RentalContract contract(User owner, User tenant) {
+        return testData.contract(tenant, testData.property(owner, Status.RENTED), LocalDate.of(2026, 1, 5), true);
+    }
+}
@@ -1,10 +1,12 @@
 package app.service;
 
 import app.exception.ResourceNotFoundException;
+import app.model.IdempotencyKey;
 import app.model.Payment;
 import app.model.RentalContract;
 import app.model.User;
 import app.model.enums.PaymentStatus;
+import app.repository.IdempotencyKeyRepository;
 import app.repository.PaymentRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,7 +14,9 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -25,6 +29,18 @@ class PaymentServiceTest {
     @Mock
     private PaymentRepository paymentRepository;
 
+    @Mock
+    private CacheInvalidator cacheInvalidator;
+
+    @Mock
+    private TenantLedgerService tenantLedgerService;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -94,6 +110,65 @@ class PaymentServiceTest {
         Payment saved = captor.getValue();
         assertEquals(PaymentStatus.SUCCESS, saved.getStatus());
         assertNotNull(saved.getPaidAt(), "paidAt should be set when payment is successful");
+
+        verify(cacheInvalidator).evictMentioning("payment", contract.getId(), tenantId, null);
+        verify(tenantLedgerService).record(new TenantLedgerService.Change(
+                tenantId, null, PaymentStatus.PENDING, null, PaymentStatus.SUCCESS));
     }
-}
 
+    @Test
+    void pay_storesIdempotencyKey_withThePayment() {
+        UUID paymentId = UUID.randomUUID();
+        UUID tenantId = UUID.randomUUID();
+
+        User tenant = new User();
+        tenant.setId(tenantId);
+
+        RentalContract contract = new RentalContract();
+        contract.setTenant(tenant);
+
+        Payment payment = new Payment();
+        payment.setId(paymentId);
+        payment.setContract(contract);
+        payment.setStatus(PaymentStatus.OVERDUE);
+
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(tenantId, "key-1")).thenReturn(Optional.empty());
+        when(paymentRepository.findById(paymentId)).thenReturn(Optional.of(payment));
+
+        paymentService.pay(paymentId, tenantId, "key-1");
+
+        ArgumentCaptor<IdempotencyKey> captor = ArgumentCaptor.forClass(IdempotencyKey.class);
+        verify(idempotencyKeyRepository).saveAndFlush(captor.capture());
+        assertEquals(tenantId, captor.getValue().getUserId());
+        assertEquals("key-1", captor.getValue().getIdempotencyKey());
+        assertEquals(paymentId, captor.getValue().getPaymentId());
+        assertEquals(PaymentStatus.SUCCESS, payment.getStatus());
+    }
+
+    @Test
+    void pay_skipsRepeatedRequest_withKnownIdempotencyKey() {
+        UUID paymentId = UUID.randomUUID();
+        UUID tenantId = UUID.randomUUID();
+
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(tenantId, "key-1"))
+                .thenReturn(Optional.of(new IdempotencyKey(UUID.randomUUID(), tenantId, "key-1", paymentId, LocalDateTime.now())));
+
+        paymentService.pay(paymentId, tenantId, "key-1");
+
+        verify(paymentRepository, never()).findById(any());
+        verify(tenantLedgerService, never()).record(any());
+    }
+
+    @Test
+    void pay_rejectsIdempotencyKey_reusedForAnotherPayment() {
+        UUID tenantId = UUID.randomUUID();
+
+        when(idempotencyKeyRepository.findByUserIdAndIdempotencyKey(tenantId, "key-1"))
+                .thenReturn(Optional.of(new IdempotencyKey(UUID.randomUUID(), tenantId, "key-1", UUID.randomUUID(), LocalDateTime.now())));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> paymentService.pay(UUID.randomUUID(), tenantId, "key-1"));
+
+        verify(paymentRepository, never()).findById(any());
+    }
+}
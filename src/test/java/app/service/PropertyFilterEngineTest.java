@@ -0,0 +1,138 @@
+package app.service;
+
+import app.model.Property;
+import app.model.enums.Status;
+import app.repository.PropertyRepository;
+import app.web.dto.PropertySearchRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class PropertyFilterEngineTest {
+
+    @Mock
+    private PropertyRepository propertyRepository;
+
+    @InjectMocks
+    private PropertyFilterEngine engine;
+
+    @Test
+    void filter_combinesStatusCityAndRanges_newestFirst() {
+        Property older = property("Sofia", 2, "800.00", Status.AVAILABLE);
+        Property newer = property("sofia", 3, "950.50", Status.AVAILABLE);
+        Property rented = property("Sofia", 3, "900.00", Status.RENTED);
+        Property elsewhere = property("Varna", 3, "900.00", Status.AVAILABLE);
+
+        List.of(older, newer, rented, elsewhere).forEach(engine::upsert);
+
+        PropertySearchRequest criteria = new PropertySearchRequest();
+        criteria.setCity(" SOFIA ");
+        criteria.setMaxRent(new BigDecimal("1000"));
+
+        PropertyFilterEngine.Snapshot snapshot = engine.snapshot();
+        BitSet matches = snapshot.filter(criteria, Status.AVAILABLE);
+
+        assertEquals(List.of(newer.getId(), older.getId()), snapshot.page(matches, null, false, 10).items());
+
+        criteria.setMinBedrooms(3);
+        matches = snapshot.filter(criteria, Status.AVAILABLE);
+
+        assertEquals(List.of(newer.getId()), snapshot.page(matches, null, false, 10).items());
+        assertFalse(snapshot.matches(matches, rented.getId()));
+    }
+
+    @Test
+    void upsertAndRemove_publishNewSnapshots_withoutChangingOldOnes() {
+        Property property = property("Plovdiv", 1, "500", Status.AVAILABLE);
+        engine.upsert(property);
+
+        PropertyFilterEngine.Snapshot before = engine.snapshot();
+
+        property.setStatus(Status.RENTED);
+        engine.upsert(property);
+        engine.remove(UUID.randomUUID());
+
+        PropertySearchRequest all = new PropertySearchRequest();
+
+        assertEquals(1, before.filter(all, Status.AVAILABLE).cardinality());
+        assertEquals(0, engine.snapshot().filter(all, Status.AVAILABLE).cardinality());
+        assertEquals(1, engine.snapshot().filter(all, Status.RENTED).cardinality());
+
+        engine.remove(property.getId());
+
+        assertEquals(0, engine.snapshot().size());
+        assertEquals(1, before.size());
+    }
+
+    @Test
+    void remove_compactsDeletedSlots_andKeepsNewestFirstOrder() {
+        // More than one chunk of slots
+        List<Property> properties = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            Property property = property("Sofia", 1 + i % 3, "500", Status.AVAILABLE);
+            properties.add(property);
+            engine.upsert(property);
+        }
+
+        PropertyFilterEngine.Snapshot before = engine.snapshot();
+        PropertySearchRequest all = new PropertySearchRequest();
+
+        List<UUID> kept = new ArrayList<>();
+        for (int i = 0; i < properties.size(); i++) {
+            if (i % 2 == 0) {
+                engine.remove(properties.get(i).getId());
+            } else {
+                kept.add(0, properties.get(i).getId());
+            }
+        }
+
+        PropertyFilterEngine.Snapshot after = engine.snapshot();
+        BitSet matches = after.filter(all, null);
+
+        assertEquals(750, after.size());
+        assertTrue(after.allocatedSlots() < 1000);
+        assertEquals(kept, after.page(matches, null, false, 1500).items());
+        assertFalse(after.matches(matches, properties.get(0).getId()));
+
+        // The snapshot taken before the deletions is unchanged
+        assertEquals(1500, before.size());
+        assertTrue(before.matches(before.filter(all, null), properties.get(0).getId()));
+
+        // Updates keep the slot, new properties come first
+        Property updated = properties.get(1);
+        updated.setStatus(Status.RENTED);
+        engine.upsert(updated);
+        Property added = property("Sofia", 1, "500", Status.AVAILABLE);
+        engine.upsert(added);
+
+        PropertyFilterEngine.Snapshot latest = engine.snapshot();
+        List<UUID> newestFirst = latest.page(latest.filter(all, null), null, false, 1500).items();
+
+        assertEquals(added.getId(), newestFirst.get(0));
+        assertEquals(updated.getId(), newestFirst.get(newestFirst.size() - 1));
+        assertEquals(List.of(updated.getId()), latest.page(latest.filter(all, Status.RENTED), null, false, 10).items());
+    }
+
+    private Property property(String city, int bedrooms, String rent, Status status) {
+        Property property = new Property();
+        property.setId(UUID.randomUUID());
+        property.setCity(city);
+        property.setBedrooms(bedrooms);
+        property.setBathrooms(1);
+        property.setMonthlyRent(new BigDecimal(rent));
+        property.setAreaSqm(BigDecimal.valueOf(60));
+        property.setStatus(status);
+        return property;
+    }
+}
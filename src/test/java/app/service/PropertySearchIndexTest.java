@@ -0,0 +1,77 @@
+package app.service;
+
+import app.model.Property;
+import app.model.enums.Status;
+import app.repository.PropertyRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class PropertySearchIndexTest {
+
+    @Mock
+    private PropertyRepository propertyRepository;
+
+    @InjectMocks
+    private PropertySearchIndex index;
+
+    @Test
+    void search_matchesPrefixesAcrossFields_andRanksTitleMatchesFirst() {
+        Property inTitle = property("Sunny apartment", "Close to the park", "Sofia");
+        Property inDescription = property("Family house", "Large apartment-style garden", "Plovdiv");
+
+        index.index(inTitle);
+        index.index(inDescription);
+
+        List<UUID> result = index.search("apart");
+
+        assertEquals(List.of(inTitle.getId(), inDescription.getId()), result);
+    }
+
+    @Test
+    void search_requiresEveryToken() {
+        Property sofia = property("Sunny apartment", "Close to the park", "Sofia");
+        Property plovdiv = property("Sunny apartment", "Old town", "Plovdiv");
+
+        index.index(sofia);
+        index.index(plovdiv);
+
+        assertEquals(List.of(plovdiv.getId()), index.search("sunny plovdiv"));
+    }
+
+    @Test
+    void index_replacesOldTerms_andRemoveDropsProperty() {
+        Property property = property("Studio", "Compact", "Varna");
+        index.index(property);
+
+        property.setTitle("Loft");
+        index.index(property);
+
+        assertTrue(index.search("studio").isEmpty());
+        assertEquals(List.of(property.getId()), index.search("loft"));
+
+        index.remove(property.getId());
+
+        assertTrue(index.search("loft").isEmpty());
+        assertFalse(index.contains(property.getId()));
+    }
+
+    private Property property(String title, String description, String city) {
+        Property property = new Property();
+        property.setId(UUID.randomUUID());
+        property.setTitle(title);
+        property.setDescription(description);
+        property.setCity(city);
+        property.setBedrooms(2);
+        property.setStatus(Status.AVAILABLE);
+        return property;
+    }
+}
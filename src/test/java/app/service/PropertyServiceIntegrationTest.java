@@ -0,0 +1,158 @@
+package app.service;
+
+import app.TestData;
+import app.model.Property;
+import app.model.User;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.PropertyRepository;
+import app.repository.PropertySpecifications;
+import app.web.dto.KeysetCursor;
+import app.web.dto.KeysetPage;
+import app.web.dto.PropertyCard;
+import app.web.dto.PropertyRequest;
+import app.web.dto.PropertySearchRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the index and the filter snapshot only change once a transaction commits
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class PropertyServiceIntegrationTest {
+
+    @Autowired
+    private PropertyService propertyService;
+
+    @Autowired
+    private PropertySearchIndex propertySearchIndex;
+
+    @Autowired
+    private PropertyFilterEngine propertyFilterEngine;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private CacheInvalidator cacheInvalidator;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+        propertySearchIndex.rebuild();
+        propertyFilterEngine.rebuild();
+    }
+
+    @Test
+    void keywordSearch_findsTheSamePropertiesInTheDatabaseAsInTheIndex() {
+
+        User owner = testData.user("owner-keywords", Role.OWNER);
+        property(owner, "Sunny apartment", "Close to the park", "Sofia");
+        property(owner, "Family house", "Large apartment-style garden", "Plovdiv");
+        property(owner, "Loft", "Top-floor studio", "Sofia");
+        propertySearchIndex.rebuild();
+
+        for (String keyword : new String[]{"apart", "sofia", "style", "partment", "Sunny SOFIA", "floor", "park loft", "!!"}) {
+            Set<UUID> inIndex = Set.copyOf(propertySearchIndex.search(keyword));
+            Set<UUID> inDatabase = propertyRepository.findAll(
+                            PropertySpecifications.hasWordsStartingWith(PropertySearchIndex.tokenize(keyword)))
+                    .stream()
+                    .map(Property::getId)
+                    .collect(Collectors.toSet());
+
+            assertEquals(inIndex, inDatabase, keyword);
+        }
+
+        assertEquals(2, propertySearchIndex.search("apart").size());
+    }
+
+    @Test
+    void create_updatesTheIndexAndTheFilterSnapshotOnlyOnCommit() {
+
+        User owner = testData.user("owner-commit", Role.OWNER);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        UUID rolledBack = transaction.execute(status -> {
+            UUID id = propertyService.create(request("Rolled back loft"), owner.getId()).getId();
+            status.setRollbackOnly();
+            return id;
+        });
+        UUID committed = transaction.execute(status -> propertyService.create(request("Committed loft"), owner.getId()).getId());
+
+        assertFalse(propertySearchIndex.contains(rolledBack));
+        assertFalse(inSnapshot(rolledBack));
+        assertTrue(propertySearchIndex.contains(committed));
+        assertTrue(inSnapshot(committed));
+    }
+
+    @Test
+    void search_rejectsACursorWhoseAnchorLeftTheResults_insteadOfServingTheFirstPage() {
+
+        User owner = testData.user("owner-cursor", Role.OWNER);
+        for (int i = 0; i < 13; i++) {
+            testData.property(owner, Status.AVAILABLE);
+        }
+        propertySearchIndex.rebuild();
+        propertyFilterEngine.rebuild();
+
+        PropertySearchRequest byKeyword = new PropertySearchRequest();
+        byKeyword.setKeyword("flat");
+
+        KeysetPage<PropertyCard> first = propertyService.search(byKeyword, null);
+        assertEquals(12, first.items().size());
+        assertEquals(1, propertyService.search(byKeyword, first.next()).items().size());
+
+        // The property the first page ended on is deleted
+        propertySearchIndex.remove(first.items().get(11).id());
+        cacheInvalidator.clear("properties_search");
+
+        assertThrows(IllegalArgumentException.class, () -> propertyService.search(byKeyword, first.next()));
+
+        String unknown = KeysetCursor.forward(Map.of("id", UUID.randomUUID()));
+        assertThrows(IllegalArgumentException.class, () -> propertyService.search(new PropertySearchRequest(), unknown));
+    }
+
+    private boolean inSnapshot(UUID id) {
+        PropertyFilterEngine.Snapshot snapshot = propertyFilterEngine.snapshot();
+        return snapshot.matches(snapshot.filter(new PropertySearchRequest(), null), id);
+    }
+
+    private void property(User owner, String title, String description, String city) {
+        Property property = testData.property(owner, Status.AVAILABLE);
+        property.setTitle(title);
+        property.setDescription(description);
+        property.setCity(city);
+        propertyRepository.save(property);
+    }
+
+    private static PropertyRequest request(String title) {
+        PropertyRequest request = new PropertyRequest();
+        request.setTitle(title);
+        request.setDescription("Test description");
+        request.setCity("Sofia");
+        request.setAddress("Test street 1");
+        request.setBedrooms(1);
+        request.setBathrooms(1);
+        request.setAreaSqm(BigDecimal.valueOf(50));
+        request.setMonthlyRent(BigDecimal.valueOf(700));
+        return request;
+    }
+}
@@ -0,0 +1,149 @@
+package app.service;
+
+import app.TestData;
+import app.model.Property;
+import app.model.RentalContract;
+import app.model.User;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.PropertyRepository;
+import app.repository.RentalContractRepository;
+import app.web.dto.IndexationReport;
+import app.web.dto.IndexationRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: every batch commits in its own transaction
+@SpringBootTest(properties = "rentfix.indexation.batch-size=2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class RentIndexationIntegrationTest {
+
+    @Autowired
+    private RentIndexation rentIndexation;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private RentalContractRepository rentalContractRepository;
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+    }
+
+    @Test
+    void index_previewsFirst_thenUpdatesOnlyDueContracts_andSkipsThemOnARerun() {
+
+        User owner = testData.user("owner-indexation", Role.OWNER);
+        RentalContract due = contract(testData.user("tenant-due", Role.TENANT), property(owner, "1000.00"), 13);
+        RentalContract dueToo = contract(testData.user("tenant-due-too", Role.TENANT), property(owner, "333.33"), 24);
+        RentalContract dueAsWell = contract(testData.user("tenant-due-as-well", Role.TENANT), property(owner, "500.00"), 12);
+        RentalContract recent = contract(testData.user("tenant-recent", Role.TENANT), property(owner, "800.00"), 3);
+
+        IndexationRequest request = new IndexationRequest();
+        request.setPercent(new BigDecimal("3"));
+
+        IndexationReport preview = rentIndexation.index(request);
+
+        assertTrue(preview.dryRun());
+        assertEquals(3, preview.contractsIndexed());
+        assertEquals(0, new BigDecimal("55.00").compareTo(preview.contractRentIncrease()));
+        assertEquals(3, preview.changes().size());
+        assertEquals(0, new BigDecimal("1000.00").compareTo(rent(due)));
+
+        request.setDryRun(false);
+        IndexationReport applied = rentIndexation.index(request);
+
+        assertFalse(applied.dryRun());
+        assertEquals(3, applied.contractsIndexed());
+        assertEquals(0, applied.propertiesIndexed());
+        assertEquals(0, new BigDecimal("1030.00").compareTo(rent(due)));
+        assertEquals(0, new BigDecimal("343.33").compareTo(rent(dueToo)));
+        assertEquals(0, new BigDecimal("515.00").compareTo(rent(dueAsWell)));
+        assertEquals(0, new BigDecimal("800.00").compareTo(rent(recent)));
+
+        // The listing rents were not in scope
+        assertEquals(0, new BigDecimal("1000.00").compareTo(
+                propertyRepository.findById(due.getProperty().getId()).orElseThrow().getMonthlyRent()));
+
+        IndexationReport rerun = rentIndexation.index(request);
+
+        assertEquals(0, rerun.contractsIndexed());
+        assertEquals(0, new BigDecimal("1030.00").compareTo(rent(due)));
+    }
+
+    @Test
+    void index_limitsToTheOwner_andIndexesListingRentsToWholeEuros() {
+
+        User owner = testData.user("owner-scoped", Role.OWNER);
+        Property own = property(owner, "749.00");
+        Property other = property(testData.user("owner-other", Role.OWNER), "749.00");
+
+        IndexationRequest request = new IndexationRequest();
+        request.setBaseIndex(new BigDecimal("120"));
+        request.setCurrentIndex(new BigDecimal("126"));
+        request.setOwnerId(owner.getId());
+        request.setIndexContracts(false);
+        request.setIndexProperties(true);
+        request.setWholeEuros(true);
+        request.setDryRun(false);
+
+        IndexationReport report = rentIndexation.index(request);
+
+        assertEquals(1, report.propertiesIndexed());
+        assertEquals(0, new BigDecimal("786").compareTo(propertyRepository.findById(own.getId()).orElseThrow().getMonthlyRent()));
+        assertEquals(0, new BigDecimal("749").compareTo(propertyRepository.findById(other.getId()).orElseThrow().getMonthlyRent()));
+    }
+
+    @Test
+    void factor_appliesTheCap_andRejectsAmbiguousOrExtremeRules() {
+
+        IndexationRequest capped = new IndexationRequest();
+        capped.setBaseIndex(new BigDecimal("100"));
+        capped.setCurrentIndex(new BigDecimal("108"));
+        capped.setCapPercent(new BigDecimal("5"));
+        assertEquals(0, new BigDecimal("1.05").compareTo(RentIndexation.factor(capped)));
+
+        IndexationRequest deflation = new IndexationRequest();
+        deflation.setPercent(new BigDecimal("-2"));
+        assertEquals(0, BigDecimal.ONE.compareTo(RentIndexation.factor(deflation)));
+        deflation.setAllowDecrease(true);
+        assertEquals(0, new BigDecimal("0.98").compareTo(RentIndexation.factor(deflation)));
+
+        IndexationRequest both = new IndexationRequest();
+        both.setPercent(new BigDecimal("3"));
+        both.setBaseIndex(new BigDecimal("100"));
+        both.setCurrentIndex(new BigDecimal("103"));
+        assertThrows(IllegalArgumentException.class, () -> RentIndexation.factor(both));
+
+        assertThrows(IllegalArgumentException.class, () -> RentIndexation.factor(new IndexationRequest()));
+
+        IndexationRequest extreme = new IndexationRequest();
+        extreme.setPercent(new BigDecimal("150"));
+        assertThrows(IllegalArgumentException.class, () -> RentIndexation.factor(extreme));
+    }
+
+    private BigDecimal rent(RentalContract contract) {
+        return rentalContractRepository.findById(contract.getId()).orElseThrow().getMonthlyRent();
+    }
+
+    private RentalContract contract(User tenant, Property property, int monthsAgo) {
+        return testData.contract(tenant, property, LocalDate.now().minusMonths(monthsAgo), true);
+    }
+
+    private Property property(User owner, String rent) {
+        return testData.property(owner, Status.RENTED, new BigDecimal(rent));
+    }
+}
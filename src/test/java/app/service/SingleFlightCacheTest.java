@@ -0,0 +1,135 @@
+package app.service;
+
+import app.config.CacheSettings;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightCacheTest {
+
+    private final CacheSettings settings = new CacheSettings();
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    private final SingleFlightCache cache = new SingleFlightCache(cacheManager, settings);
+    private final CacheInvalidator invalidator = new CacheInvalidator(cacheManager, cache);
+
+    @AfterEach
+    void shutdown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void get_concurrentMisses_shareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            results.add(callers.submit(() -> cache.get("admin_users", "first", () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "page";
+            })));
+        }
+
+        // Callers that arrive after the load finished hit the cache, so the count holds either way
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("page", result.get(5, TimeUnit.SECONDS));
+        }
+        callers.shutdown();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_staleEntry_isServedWhileOneBackgroundRefreshRuns() throws Exception {
+        CacheSettings.Spec spec = new CacheSettings.Spec();
+        // Stale as soon as it is stored
+        spec.setRefreshAfter(Duration.ofMillis(-1));
+        settings.getSpecs().put("maintenance", spec);
+
+        CountDownLatch stored = new CountDownLatch(1);
+        cacheManager.registerCustomCache("maintenance", Caffeine.newBuilder()
+                .executor(Runnable::run)
+                .removalListener((key, value, cause) -> stored.countDown())
+                .build());
+
+        assertEquals("v1", cache.get("maintenance", "all", () -> "v1"));
+
+        AtomicInteger refreshes = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<String> refresh = () -> {
+            refreshes.incrementAndGet();
+            await(release);
+            return "v2";
+        };
+
+        assertEquals("v1", cache.get("maintenance", "all", refresh));
+        assertEquals("v1", cache.get("maintenance", "all", refresh));
+
+        release.countDown();
+        // Replacing v1 notifies the removal listener
+        assertTrue(stored.await(5, TimeUnit.SECONDS));
+
+        assertEquals("v2", cache.get("maintenance", "all", () -> "v3"));
+        assertEquals(1, refreshes.get());
+    }
+
+    @Test
+    void get_loadThatStartedBeforeAnEviction_isReturnedButNotCached() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+
+        ExecutorService caller = Executors.newSingleThreadExecutor();
+        Future<String> before = caller.submit(() -> cache.get("admin_users", "first", () -> {
+            loading.countDown();
+            await(evicted);
+            return "before";
+        }));
+
+        // The load has read the old state; a write commits and evicts the cache
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        invalidator.clear("admin_users");
+        evicted.countDown();
+
+        assertEquals("before", before.get(5, TimeUnit.SECONDS));
+        caller.shutdown();
+
+        assertEquals("after", cache.get("admin_users", "first", () -> "after"));
+    }
+
+    @Test
+    void get_failedLoad_propagatesAndIsNotCached() {
+        assertThrows(IllegalStateException.class,
+                () -> cache.get("admin_stats", "counts", () -> {
+                    throw new IllegalStateException("down");
+                }));
+
+        assertEquals("ok", cache.get("admin_stats", "counts", () -> "ok"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
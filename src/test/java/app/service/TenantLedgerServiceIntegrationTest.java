@@ -0,0 +1,110 @@
+package app.service;
+
+import app.TestData;
+import app.model.TenantLedger;
+import app.model.User;
+import app.model.enums.PaymentStatus;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.SchedulerLeaseRepository;
+import app.repository.TenantLedgerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+// Not @Transactional: the ledger writes under test run in concurrent transactions
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class TenantLedgerServiceIntegrationTest {
+
+    @Autowired
+    private TenantLedgerService tenantLedgerService;
+
+    @MockitoSpyBean
+    private TenantLedgerRepository tenantLedgerRepository;
+
+    @Autowired
+    private SchedulerLeaseRepository schedulerLeaseRepository;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+        schedulerLeaseRepository.deleteAll();
+    }
+
+    @Test
+    void record_concurrentFirstWritesOfATenant_addUpInOneLedger() {
+
+        User tenant = testData.user("tenant-ledger-race", Role.TENANT);
+
+        // Both transactions find no ledger before either creates it
+        CyclicBarrier bothMissed = new CyclicBarrier(2);
+        Answer<?> real = mockingDetails(tenantLedgerRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            List<TenantLedger> found = (List<TenantLedger>) real.answer(invocation);
+            if (found.isEmpty()) {
+                bothMissed.await(5, TimeUnit.SECONDS);
+            }
+            return found;
+        }).when(tenantLedgerRepository).findAllForUpdate(anyCollection());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Runnable firstPayment = () -> transaction.executeWithoutResult(status -> tenantLedgerService.record(
+                TenantLedgerService.Change.created(tenant.getId(), BigDecimal.valueOf(700), PaymentStatus.PENDING)));
+
+        CompletableFuture.allOf(CompletableFuture.runAsync(firstPayment), CompletableFuture.runAsync(firstPayment)).join();
+
+        TenantLedger ledger = tenantLedgerRepository.findById(tenant.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(1400).compareTo(ledger.getTotalCharged()));
+        assertEquals(0, BigDecimal.valueOf(1400).compareTo(ledger.getOutstanding()));
+    }
+
+    @Test
+    void backfill_runsOnlyOnTheNodeHoldingTheLease() {
+
+        User owner = testData.user("owner-backfill", Role.OWNER);
+        User tenant = testData.user("tenant-backfill", Role.TENANT);
+        testData.payment(testData.contract(tenant, testData.property(owner, Status.RENTED), LocalDate.now().minusMonths(2), true),
+                PaymentStatus.SUCCESS, LocalDate.now().minusMonths(1));
+        tenantLedgerRepository.deleteAllInBatch();
+
+        LocalDateTime now = LocalDateTime.now();
+        schedulerLeaseRepository.create("tenant-ledger-backfill", "other-node", now, now.plusHours(1));
+
+        tenantLedgerService.backfill();
+        assertTrue(tenantLedgerRepository.findById(tenant.getId()).isEmpty());
+
+        schedulerLeaseRepository.deleteAll();
+        tenantLedgerService.backfill();
+
+        TenantLedger ledger = tenantLedgerRepository.findById(tenant.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(ledger.getTotalPaid()));
+        assertEquals(0, ledger.getOutstanding().signum());
+    }
+}
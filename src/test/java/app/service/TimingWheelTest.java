@@ -0,0 +1,82 @@
+package app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 15);
+
+    @Test
+    void advanceTo_firesEachEntryOnItsOwnDay_acrossAllLevels() {
+        TimingWheel<String> wheel = new TimingWheel<>(TODAY);
+
+        Map<String, LocalDate> dates = Map.of(
+                "tomorrow", TODAY.plusDays(1),
+                "next-month", TODAY.plusMonths(1),
+                "level-1", TODAY.plusDays(200),
+                "level-2", TODAY.plusYears(15));
+        dates.forEach(wheel::schedule);
+
+        List<TimingWheel.Due<String>> fired = new ArrayList<>();
+        for (LocalDate day = TODAY.plusDays(1); !day.isAfter(TODAY.plusYears(16)); day = day.plusDays(1)) {
+            for (TimingWheel.Due<String> due : wheel.advanceTo(day)) {
+                assertEquals(day, due.date(), due.key() + " fired on the wrong day");
+                fired.add(due);
+            }
+        }
+
+        assertEquals(dates.size(), fired.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advanceTo_jumpingSeveralDaysFiresEverythingInBetween() {
+        TimingWheel<String> wheel = new TimingWheel<>(TODAY);
+        wheel.schedule("a", TODAY.plusDays(3));
+        wheel.schedule("b", TODAY.plusDays(70));
+        wheel.schedule("c", TODAY.plusDays(71));
+
+        assertEquals(List.of("a", "b"), wheel.advanceTo(TODAY.plusDays(70)).stream().map(TimingWheel.Due::key).toList());
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void schedule_inThePastFiresOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(TODAY);
+        wheel.schedule("late", TODAY.minusDays(10));
+
+        List<TimingWheel.Due<String>> fired = wheel.advanceTo(TODAY);
+
+        assertEquals(1, fired.size());
+        assertEquals(TODAY.minusDays(10), fired.get(0).date());
+    }
+
+    @Test
+    void cancelAndReschedule_replaceThePreviousEntry() {
+        TimingWheel<String> wheel = new TimingWheel<>(TODAY);
+        wheel.schedule("moved", TODAY.plusDays(2));
+        wheel.schedule("moved", TODAY.plusDays(5));
+        wheel.schedule("gone", TODAY.plusDays(2));
+        assertTrue(wheel.cancel("gone"));
+
+        assertTrue(wheel.advanceTo(TODAY.plusDays(4)).isEmpty());
+        assertEquals("moved", wheel.advanceTo(TODAY.plusDays(5)).get(0).key());
+    }
+
+    @Test
+    void nextDueDate_followsStartDateWithoutDriftAndOncePerMonth() {
+        LocalDate start = LocalDate.of(2025, 1, 31);
+
+        assertEquals(LocalDate.of(2025, 2, 28), ContractBillingWheel.nextDueDate(start, start));
+        assertEquals(LocalDate.of(2025, 3, 31), ContractBillingWheel.nextDueDate(start, LocalDate.of(2025, 2, 28)));
+        // A legacy payment on the 1st already covers March
+        assertEquals(LocalDate.of(2025, 4, 30), ContractBillingWheel.nextDueDate(start, LocalDate.of(2025, 3, 1)));
+    }
+}
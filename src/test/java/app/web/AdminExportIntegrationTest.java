@@ -0,0 +1,173 @@
+package app.web;
+
+import app.TestData;
+import app.model.Payment;
+import app.model.Property;
+import app.model.RentalContract;
+import app.model.User;
+import app.model.enums.PaymentStatus;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.PropertyRepository;
+import app.security.UserData;
+import app.web.dto.ContractExportRow;
+import app.web.dto.PaymentExportRow;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streams the admin exports from the database through the controller, plain and gzipped, and
+ * reads the files back.
+ */
+// Not @Transactional: the export reads in its own transaction on the streaming thread
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class AdminExportIntegrationTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 1, 1);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestData testData;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private UserData admin;
+    private RentalContract contract;
+    private Payment paid;
+    private Payment pending;
+
+    @BeforeEach
+    void setUp() {
+
+        User owner = testData.user("owner-export", Role.OWNER);
+        User tenant = testData.user("tenant-export", Role.TENANT);
+        User adminUser = testData.user("admin-export", Role.ADMIN);
+        admin = new UserData(adminUser.getId(), adminUser.getUsername(), adminUser.getPassword(), adminUser.getRole(), true);
+
+        // A title a spreadsheet would evaluate, with a separator and quotes in it
+        Property property = testData.property(owner, Status.RENTED);
+        property.setTitle("=Loft, \"top\"");
+        propertyRepository.save(property);
+
+        contract = testData.contract(tenant, property, START, true);
+        paid = testData.payment(contract, PaymentStatus.SUCCESS, START.plusMonths(1));
+        pending = testData.payment(contract, PaymentStatus.PENDING, START.plusMonths(2));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        testData.deleteAll();
+    }
+
+    @Test
+    void exportPayments_asCsv_writesTheHeaderAndOneLinePerPayment_plainAndGzipped() throws Exception {
+
+        MvcResult plain = export("/admin/export/payments?format=csv");
+        assertEquals("text/csv;charset=UTF-8", plain.getResponse().getContentType());
+        assertEquals("attachment; filename=\"payments.csv\"", plain.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+
+        String csv = plain.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<String> lines = List.of(csv.split("\r\n"));
+
+        assertEquals(3, lines.size());
+        assertEquals(String.join(",", PaymentExportRow.COLUMNS), lines.get(0));
+        // The paid payment's paidAt is a timestamp, so only the columns before it are compared
+        assertTrue(lines.get(1).startsWith(paid.getId() + "," + contract.getId() + ",tenant-export,\"'=Loft, \"\"top\"\"\",MONTHLY_RENT,SUCCESS,700.00," + START.plusMonths(1) + ","));
+        assertEquals(pending.getId() + "," + contract.getId() + ",tenant-export,\"'=Loft, \"\"top\"\"\",MONTHLY_RENT,PENDING,700.00," + START.plusMonths(2) + ",",
+                lines.get(2));
+
+        MvcResult gzipped = export("/admin/export/payments?format=csv&gzip=true");
+        assertEquals("application/gzip", gzipped.getResponse().getContentType());
+        assertEquals("attachment; filename=\"payments.csv.gz\"", gzipped.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals(csv, gunzip(gzipped.getResponse().getContentAsByteArray()));
+    }
+
+    @Test
+    void exportContracts_asNdjson_writesOneJsonObjectPerLine_plainAndGzipped() throws Exception {
+
+        MvcResult plain = export("/admin/export/contracts?format=ndjson");
+        assertEquals("application/x-ndjson;charset=UTF-8", plain.getResponse().getContentType());
+        assertEquals("attachment; filename=\"contracts.ndjson\"", plain.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+
+        String ndjson = plain.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : ndjson.split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+
+        assertEquals(1, rows.size());
+        JsonNode row = rows.get(0);
+        assertEquals(List.copyOf(ContractExportRow.COLUMNS), fieldNames(row));
+        assertEquals(contract.getId().toString(), row.get("id").asText());
+        // JSON needs no spreadsheet escaping
+        assertEquals("=Loft, \"top\"", row.get("propertyTitle").asText());
+        assertEquals("tenant-export", row.get("tenant").asText());
+        assertEquals(700, row.get("monthlyRent").asInt());
+        assertTrue(row.get("active").asBoolean());
+        assertTrue(row.get("endDate").isNull());
+
+        MvcResult gzipped = export("/admin/export/contracts?format=ndjson&gzip=true");
+        assertEquals("application/gzip", gzipped.getResponse().getContentType());
+        assertEquals("attachment; filename=\"contracts.ndjson.gz\"", gzipped.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION));
+        assertEquals(ndjson, gunzip(gzipped.getResponse().getContentAsByteArray()));
+    }
+
+    private MvcResult export(String path) throws Exception {
+
+        MvcResult started = mockMvc.perform(get(path).with(authentication(
+                        new UsernamePasswordAuthenticationToken(admin, admin.getPassword(), admin.getAuthorities()))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private static List<String> fieldNames(JsonNode row) {
+        List<String> names = new ArrayList<>();
+        row.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package app.web;
 
 import app.exception.ResourceNotFoundException;
+import app.model.Payment;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.servlet.ModelAndView;
 
+import java.util.UUID;
+
 import static org.junit.jupiter.api.Assertions.*;
 import org.springframework.http.HttpStatus;
 
@@ -41,4 +45,17 @@ class GlobalExceptionHandlerTest {
         assertEquals("Bad request", mav.getModel().get("message"));
         assertEquals("/bad", mav.getModel().get("path"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void handleConcurrentUpdate_returnsConflictView() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRequestURI("/admin/payment/correct");
+
+        ModelAndView mav = handler.handleConcurrentUpdate(
+                new ObjectOptimisticLockingFailureException(Payment.class, UUID.randomUUID()), request);
+
+        assertEquals("error/general", mav.getViewName());
+        assertEquals(HttpStatus.CONFLICT, mav.getStatus());
+        assertEquals("/admin/payment/correct", mav.getModel().get("path"));
+    }
+}
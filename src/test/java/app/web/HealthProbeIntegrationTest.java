@@ -0,0 +1,93 @@
+package app.web;
+
+import app.scheduler.AdminCacheRefresher;
+import app.service.AdminService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Calls the readiness probe over HTTP without credentials, as the kubelet does, both while the
+ * cache warm-up is running and after startup.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "rentfix.warmup.enabled=true",
+        "rentfix.warmup.cities=",
+        "management.endpoint.health.probes.enabled=true"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class HealthProbeIntegrationTest {
+
+    // The probe's answer as seen from inside the warm-up's admin step
+    private static final AtomicReference<HttpResponse<String>> DURING_WARM_UP = new AtomicReference<>();
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    void readinessProbe_isAnonymous_andOutOfServiceUntilTheWarmUpHasFinished() {
+
+        HttpResponse<String> during = DURING_WARM_UP.get();
+        assertNotNull(during, "the warm-up did not run");
+        assertEquals(503, during.statusCode());
+        assertTrue(during.body().contains("\"OUT_OF_SERVICE\""), during.body());
+
+        HttpResponse<String> after = readiness(port);
+        assertEquals(200, after.statusCode());
+        assertTrue(after.body().contains("\"UP\""), after.body());
+
+        assertEquals(200, get(port, "/actuator/health/liveness").statusCode());
+    }
+
+    private static HttpResponse<String> readiness(int port) {
+        return get(port, "/actuator/health/readiness");
+    }
+
+    // Redirects are not followed, so a redirect to the login page fails the status check
+    private static HttpResponse<String> get(int port, String path) {
+        try {
+            return HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @TestConfiguration
+    static class ProbingWarmUp {
+
+        @Bean
+        @Primary
+        AdminCacheRefresher probingAdminCacheRefresher(AdminService adminService, Environment environment) {
+            return new AdminCacheRefresher(adminService) {
+                @Override
+                public void refresh() {
+                    // The scheduled refresh may also run before the server has a port
+                    Integer port = environment.getProperty("local.server.port", Integer.class);
+                    if (port != null) {
+                        DURING_WARM_UP.compareAndSet(null, readiness(port));
+                    }
+                    super.refresh();
+                }
+            };
+        }
+    }
+}
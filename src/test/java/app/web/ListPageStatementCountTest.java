@@ -0,0 +1,216 @@
+package app.web;
+
+import app.model.Payment;
+import app.model.Property;
+import app.model.RentalContract;
+import app.model.User;
+import app.model.enums.PaymentStatus;
+import app.model.enums.PaymentType;
+import app.model.enums.Role;
+import app.model.enums.Status;
+import app.repository.IdempotencyKeyRepository;
+import app.repository.PaymentRepository;
+import app.repository.PropertyRepository;
+import app.repository.RentalContractRepository;
+import app.repository.TenantLedgerRepository;
+import app.repository.UserRepository;
+import app.security.UserData;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Renders the list pages and counts the JDBC statements they cost. The count must stay the same
+ * when the lists grow, i.e. no association is loaded row by row.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+class ListPageStatementCountTest {
+
+    private static final int MAX_STATEMENTS = 4;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PropertyRepository propertyRepository;
+
+    @Autowired
+    private RentalContractRepository rentalContractRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private TenantLedgerRepository tenantLedgerRepository;
+
+    private User owner;
+    private User tenant;
+    private Property property;
+    private RentalContract contract;
+    private int rows;
+
+    @BeforeEach
+    void setUp() {
+        owner = user("owner-n1", Role.OWNER);
+        tenant = user("tenant-n1", Role.TENANT);
+        property = property(owner);
+        contract = contract(property, tenant, true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        paymentRepository.deleteAllInBatch();
+        idempotencyKeyRepository.deleteAllInBatch();
+        tenantLedgerRepository.deleteAllInBatch();
+        rentalContractRepository.deleteAllInBatch();
+        propertyRepository.deleteAll();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void listPages_useAFixedNumberOfStatements_regardlessOfRowCount() throws Exception {
+
+        grow(1);
+        Map<String, Long> small = countStatements();
+
+        grow(4);
+        Map<String, Long> large = countStatements();
+
+        assertEquals(small, large);
+        large.forEach((page, statements) ->
+                assertTrue(statements <= MAX_STATEMENTS, page + " ran " + statements + " statements"));
+    }
+
+    private Map<String, Long> countStatements() throws Exception {
+
+        UserData admin = principal(user("admin-n1-" + rows, Role.ADMIN));
+        UserData ownerPrincipal = principal(owner);
+        UserData tenantPrincipal = principal(tenant);
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("admin contracts", statements("/admin/contracts", admin));
+        counts.put("admin payments", statements("/admin/payments", admin));
+        counts.put("admin properties", statements("/admin/properties", admin));
+        counts.put("property search", statements("/properties", ownerPrincipal));
+        counts.put("tenant contract history", statements("/tenant/contract-history", tenantPrincipal));
+        counts.put("tenant contract payments", statements("/tenant/payments/contract/" + contract.getId(), tenantPrincipal));
+        counts.put("owner property contracts", statements("/owner/property/" + property.getId() + "/contracts", ownerPrincipal));
+        counts.put("owner contract payments", statements("/owner/contract/payments/" + contract.getId(), ownerPrincipal));
+        return counts;
+    }
+
+    private long statements(String path, UserData principal) throws Exception {
+
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        mockMvc.perform(get(path).with(authentication(
+                        new UsernamePasswordAuthenticationToken(principal, principal.getPassword(), principal.getAuthorities()))))
+                .andExpect(status().isOk());
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Adds rows to every list: ended contracts of other tenants on the property, ended contracts
+     * of the tenant on other properties, and payments of the active contract.
+     */
+    private void grow(int count) {
+        for (int i = 0; i < count; i++, rows++) {
+            contract(property, user("former-tenant-n1-" + rows, Role.TENANT), false);
+            contract(property(user("other-owner-n1-" + rows, Role.OWNER)), tenant, false);
+            payment(contract, LocalDate.now().minusMonths(rows + 1));
+        }
+    }
+
+    private UserData principal(User user) {
+        return new UserData(user.getId(), user.getUsername(), user.getPassword(), user.getRole(), true);
+    }
+
+    private void payment(RentalContract contract, LocalDate dueDate) {
+        Payment payment = new Payment();
+        payment.setContract(contract);
+        payment.setAmount(BigDecimal.valueOf(700));
+        payment.setDueDate(dueDate);
+        payment.setStatus(PaymentStatus.PENDING);
+        payment.setType(PaymentType.MONTHLY_RENT);
+        paymentRepository.save(payment);
+    }
+
+    private User user(String username, Role role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setPhoneNumber("000000");
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setRole(role);
+        return userRepository.save(user);
+    }
+
+    private Property property(User owner) {
+        Property property = new Property();
+        property.setTitle("Flat of " + owner.getUsername());
+        property.setDescription("Test description");
+        property.setCity("Sofia");
+        property.setAddress("Test street 1");
+        property.setBedrooms(1);
+        property.setBathrooms(1);
+        property.setAreaSqm(BigDecimal.valueOf(50));
+        property.setMonthlyRent(BigDecimal.valueOf(700));
+        property.setStatus(Status.RENTED);
+        property.setCreatedOn(LocalDateTime.now());
+        property.setUpdatedOn(LocalDateTime.now());
+        property.setOwner(owner);
+        return propertyRepository.save(property);
+    }
+
+    private RentalContract contract(Property property, User tenant, boolean active) {
+        RentalContract contract = new RentalContract();
+        contract.setTenant(tenant);
+        contract.setProperty(property);
+        contract.setStartDate(LocalDate.now().minusYears(1));
+        contract.setEndDate(active ? null : LocalDate.now().minusMonths(1));
+        contract.setMonthlyRent(BigDecimal.valueOf(700));
+        contract.setActive(active);
+        return rentalContractRepository.save(contract);
+    }
+}
@@ -0,0 +1,54 @@
+package app.web.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    private static final Map<String, Class<?>> PAYMENT_KEYS = Map.of("dueDate", LocalDate.class, "id", UUID.class);
+
+    @Test
+    void decode_returnsTheEncodedPosition_forTheListingsOwnKeys() {
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("dueDate", LocalDate.of(2026, 3, 1));
+        keys.put("id", UUID.randomUUID());
+
+        KeysetScrollPosition next = KeysetCursor.decode(KeysetCursor.forward(keys), PAYMENT_KEYS);
+        assertFalse(next.isInitial());
+        assertFalse(next.scrollsBackward());
+        assertEquals(keys, next.getKeys());
+
+        assertTrue(KeysetCursor.decode(KeysetCursor.backward(keys), PAYMENT_KEYS).scrollsBackward());
+    }
+
+    @Test
+    void decode_startsFromTheFirstPage_forCursorsThatDoNotFitTheListing() {
+
+        UUID id = UUID.randomUUID();
+
+        // Another listing's cursor, a missing key, an extra key and a key of the wrong type
+        assertTrue(KeysetCursor.decode(KeysetCursor.forward(Map.of("username", "ann", "id", id)), PAYMENT_KEYS).isInitial());
+        assertTrue(KeysetCursor.decode(KeysetCursor.forward(Map.of("id", id)), PAYMENT_KEYS).isInitial());
+        assertTrue(KeysetCursor.decode(KeysetCursor.forward(
+                Map.of("dueDate", LocalDate.of(2026, 3, 1), "id", id, "amount", "1")), PAYMENT_KEYS).isInitial());
+        assertTrue(KeysetCursor.decode(KeysetCursor.forward(Map.of("dueDate", "yesterday", "id", id)), PAYMENT_KEYS).isInitial());
+
+        assertTrue(KeysetCursor.decode(encoded("F;dueDate=D:not-a-date;id=U:" + id), PAYMENT_KEYS).isInitial());
+        assertTrue(KeysetCursor.decode("%%%", PAYMENT_KEYS).isInitial());
+        assertTrue(KeysetCursor.decode(null, PAYMENT_KEYS).isInitial());
+    }
+
+    private static String encoded(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}